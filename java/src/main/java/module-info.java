@@ -1,3 +1,6 @@
 module se.jbee.lusid {
+    requires static jdk.incubator.vector;
+    requires static jdk.jfr;
+
     exports se.jbee.lusid;
 }
@@ -0,0 +1,96 @@
+package se.jbee.lusid;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.util.Objects.checkFromToIndex;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link CharSequence} view on ASCII bytes in a {@code byte[]} or a {@link ByteBuffer}. This
+ * allows to decode IDs directly from bytes without creating a {@link String} first.
+ *
+ * <p>Indexes are the indexes of the underlying array or the absolute indexes of the buffer. Bytes
+ * outside the ASCII range are mapped to characters that are never used by any ASCII {@link
+ * Coder.Mode} and therefore are rejected when decoding.
+ *
+ * <p>A view is mutable so that it can be reused (per thread) to not allocate a view per ID.
+ *
+ * @author Jan Bernitt
+ */
+final class AsciiChars implements CharSequence {
+
+  /** The array of a heap buffer or a byte array, null for direct buffers */
+  private byte[] bytes;
+
+  /** The index in {@link #bytes} of index 0 in the view */
+  private int offset;
+
+  /** Only set when bytes are not accessible as array (direct buffers) */
+  private ByteBuffer buffer;
+
+  private int length;
+
+  AsciiChars of(byte[] bytes) {
+    this.bytes = bytes;
+    this.offset = 0;
+    this.buffer = null;
+    this.length = bytes.length;
+    return this;
+  }
+
+  AsciiChars of(ByteBuffer buffer) {
+    if (buffer.hasArray()) {
+      this.bytes = buffer.array();
+      this.offset = buffer.arrayOffset();
+      this.buffer = null;
+    } else {
+      this.bytes = null;
+      this.offset = 0;
+      this.buffer = buffer;
+    }
+    this.length = buffer.limit();
+    return this;
+  }
+
+  /** Drops the reference to the viewed bytes so they can be garbage collected. */
+  void clear() {
+    bytes = null;
+    buffer = null;
+    length = 0;
+  }
+
+  @Override
+  public int length() {
+    return length;
+  }
+
+  @Override
+  public char charAt(int index) {
+    if (index < 0 || index >= length) throw new StringIndexOutOfBoundsException(index);
+    byte b = bytes != null ? bytes[offset + index] : buffer.get(index);
+    return (char) (b & 0xFF);
+  }
+
+  /** Copies only the bytes in the range, never the entire underlying array or buffer. */
+  @Override
+  public CharSequence subSequence(int start, int end) {
+    checkFromToIndex(start, end, length);
+    return string(start, end - start);
+  }
+
+  /**
+   * Copies all bytes up to the buffer's limit. Error messages must never use this (the view is
+   * usually on a far larger network buffer), they use {@link #subSequence(int, int)} of the ID.
+   */
+  @Override
+  public String toString() {
+    return string(0, length);
+  }
+
+  private String string(int start, int count) {
+    if (bytes != null) return new String(bytes, offset + start, count, ISO_8859_1);
+    byte[] copy = new byte[count];
+    buffer.get(start, copy);
+    return new String(copy, ISO_8859_1);
+  }
+}
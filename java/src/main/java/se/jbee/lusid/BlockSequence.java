@@ -0,0 +1,224 @@
+package se.jbee.lusid;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link Coder.Sequence} where each thread takes blocks of numbers from a range leased from the
+ * {@link Coder.HighWaterMark}.
+ *
+ * <p>The fast path only touches the thread's own {@link Block}. Taking a new block is a single
+ * compare-and-set on the current {@link Lease}. Only leasing a new range of {@link #LEASE_BLOCKS}
+ * blocks is done under a lock on the mark: the range starts at the mark's current value which is
+ * advanced to the range's end before any of its numbers are handed out. Sequences sharing the same
+ * mark instance therefore lease disjoint ranges. The mark's monitor is used as lock, as it is the
+ * only object all sequences sharing the mark know of.
+ *
+ * <p>The counter never moves past the end of the lease and a lease never ends beyond {@link
+ * Long#MAX_VALUE}, so once the numbers are used up the sequence stays exhausted.
+ *
+ * @author Jan Bernitt
+ */
+final class BlockSequence implements Coder.Sequence {
+
+  /** Number of blocks the high-water mark is advanced ahead at a time */
+  static final int LEASE_BLOCKS = 64;
+
+  /** The numbers of a thread's current block from next (inclusive) to end (exclusive) */
+  private static final class Block {
+    long next;
+    long end;
+  }
+
+  /**
+   * The numbers reserved by the high-water mark for this sequence from the first number of the
+   * next block (inclusive) to end (exclusive). The length is a multiple of the block size.
+   */
+  private static final class Lease {
+    final AtomicLong next;
+    final long end;
+
+    Lease(long start, long end) {
+      this.next = new AtomicLong(start);
+      this.end = end;
+    }
+  }
+
+  private final Coder coder;
+  private final Coder.HighWaterMark mark;
+  private final int blockSize;
+
+  private volatile Lease lease = new Lease(0L, 0L);
+
+  private final ThreadLocal<Block> blocks =
+      new ThreadLocal<>() {
+        @Override
+        protected Block initialValue() {
+          return new Block();
+        }
+      };
+
+  BlockSequence(Coder coder, Coder.HighWaterMark mark, int blockSize) {
+    if (blockSize < 1)
+      throw new IllegalArgumentException("Block size must be positive but was: " + blockSize);
+    this.coder = coder;
+    this.mark = mark;
+    this.blockSize = blockSize;
+  }
+
+  @Override
+  public long nextLong() {
+    Block block = blocks.get();
+    if (block.next == block.end) nextBlock(block);
+    return block.next++;
+  }
+
+  @Override
+  public String nextId() {
+    return coder.encodeLong(nextLong());
+  }
+
+  private void nextBlock(Block block) {
+    while (true) {
+      Lease current = lease;
+      long start = current.next.get();
+      if (start < current.end) {
+        // as the lease length is a multiple of the block size a block never crosses the end
+        if (current.next.compareAndSet(start, start + blockSize)) {
+          block.next = start;
+          block.end = start + blockSize;
+          return;
+        }
+      } else {
+        renew(current);
+      }
+    }
+  }
+
+  /**
+   * Leases the next range from the mark unless another thread already replaced the expired lease.
+   * The lock is on the mark so that sequences sharing it load and store it one after the other.
+   *
+   * @throws IllegalStateException when the mark is negative (as the range end would overflow) or
+   *     there are no more numbers
+   */
+  private void renew(Lease expired) {
+    synchronized (mark) {
+      if (lease != expired) return;
+      long start = mark.load();
+      if (start < 0)
+        throw new IllegalStateException("High-water mark must not be negative but was: " + start);
+      if (start > Long.MAX_VALUE - blockSize) throw new IllegalStateException("Sequence exhausted");
+      long blocks = Math.min(LEASE_BLOCKS, (Long.MAX_VALUE - start) / blockSize);
+      long end = start + blocks * blockSize;
+      mark.store(end);
+      lease = new Lease(start, end);
+    }
+  }
+
+  /*
+  High-Water Marks
+   */
+
+  private static void checkStart(long start) {
+    if (start < 0)
+      throw new IllegalArgumentException("Start must not be negative but was: " + start);
+  }
+
+  static final class MemoryMark implements Coder.HighWaterMark {
+
+    private volatile long mark;
+
+    MemoryMark(long start) {
+      checkStart(start);
+      this.mark = start;
+    }
+
+    @Override
+    public long load() {
+      return mark;
+    }
+
+    @Override
+    public void store(long mark) {
+      this.mark = mark;
+    }
+  }
+
+  /**
+   * Stores the mark in a file. The new content is written to a temporary file and forced to the
+   * storage device, the temporary file then replaces the file atomically. Last the directory is
+   * forced as well so that the rename itself survives a crash. Without this a crash could bring
+   * back the file with an older, lower mark and numbers would be handed out twice.
+   *
+   * <p>Windows does not allow to open a directory as a file channel, there forcing the directory
+   * is skipped and the rename relies on the file system journal (NTFS) to be durable.
+   */
+  static final class FileMark implements Coder.HighWaterMark {
+
+    private static final boolean WINDOWS =
+        System.getProperty("os.name", "").startsWith("Windows");
+
+    private final Path file;
+    private final Path tmp;
+    private final long start;
+
+    FileMark(Path file, long start) {
+      checkStart(start);
+      this.file = file;
+      this.tmp = file.resolveSibling(file.getFileName() + ".tmp");
+      this.start = start;
+    }
+
+    @Override
+    public long load() {
+      try {
+        return Long.parseLong(Files.readString(file, US_ASCII).trim());
+      } catch (NoSuchFileException ex) {
+        return start;
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+
+    @Override
+    public void store(long mark) {
+      try (FileChannel out = FileChannel.open(tmp, CREATE, WRITE, TRUNCATE_EXISTING)) {
+        ByteBuffer content = ByteBuffer.wrap(Long.toString(mark).getBytes(US_ASCII));
+        while (content.hasRemaining()) out.write(content);
+        out.force(true);
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+      try {
+        Files.move(tmp, file, ATOMIC_MOVE, REPLACE_EXISTING);
+        forceDirectory(file.toAbsolutePath().getParent());
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+
+    private static void forceDirectory(Path dir) throws IOException {
+      try (FileChannel channel = FileChannel.open(dir, READ)) {
+        channel.force(true);
+      } catch (IOException ex) {
+        // best-effort where directories cannot be opened, anywhere else this is a real failure
+        if (!WINDOWS) throw ex;
+      }
+    }
+  }
+}
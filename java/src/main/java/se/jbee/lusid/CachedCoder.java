@@ -0,0 +1,281 @@
+package se.jbee.lusid;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link Coder} decorator that memoizes the IDs returned by {@link #encodeLong(long)} (and
+ * therefore also by all methods based on it like {@link #encodeInt(int)}) and/or the values
+ * returned by {@link #decodeLong(String)} (and all methods based on it like {@link
+ * #decodeInt(String)}).
+ *
+ * <p>Caches are lock-free. Entries are immutable so that they can be read and replaced without
+ * synchronisation. Concurrent updates can lose an entry or its usage mark which is acceptable for a
+ * cache as the worst outcome is another miss.
+ *
+ * @author Jan Bernitt
+ */
+final class CachedCoder extends ForwardingCoder implements Coder.Cached {
+
+  /** The largest capacity of a cache, so that the number of slots still is a positive int */
+  static final int MAX_CAPACITY = 1 << 30;
+
+  /** Number of slots in each set of a cache */
+  private static final int WAYS = 4;
+
+  /** Strategy used to store already encoded IDs */
+  interface Cache {
+
+    /**
+     * @return the cached ID for the value or null if the value is not cached
+     */
+    String get(long value);
+
+    void put(long value, String id);
+  }
+
+  /** null if encoding is not cached */
+  private final Cache cache;
+
+  /** null if decoding is not cached */
+  private final DecodeCache decodeCache;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder decodeHits = new LongAdder();
+  private final LongAdder decodeMisses = new LongAdder();
+
+  CachedCoder(Coder delegate, Cache cache, DecodeCache decodeCache) {
+    super(delegate);
+    this.cache = cache;
+    this.decodeCache = decodeCache;
+  }
+
+  @Override
+  public String encodeLong(long value) {
+    if (cache == null) return delegate.encodeLong(value);
+    String id = cache.get(value);
+    if (id != null) {
+      hits.increment();
+      return id;
+    }
+    misses.increment();
+    id = delegate.encodeLong(value);
+    cache.put(value, id);
+    return id;
+  }
+
+  /**
+   * Only entire {@link String}s are cached (which includes all calls to {@link
+   * #decodeLong(String)}) as caching a part of a sequence would require to create a key.
+   */
+  @Override
+  public long decodeLong(CharSequence id, int from, int to) {
+    if (decodeCache == null || !(id instanceof String key) || from != 0 || to != key.length())
+      return delegate.decodeLong(id, from, to);
+    DecodeCache.Entry e = decodeCache.get(key);
+    if (e != null) {
+      decodeHits.increment();
+      return e.value();
+    }
+    decodeMisses.increment();
+    // an invalid ID throws so that it never gets into the cache
+    long value = delegate.decodeLong(key, 0, to);
+    decodeCache.put(key, value);
+    return value;
+  }
+
+  @Override
+  public Cached withLookupTables(int triplets) {
+    return new CachedCoder(delegate.withLookupTables(triplets), cache, decodeCache);
+  }
+
+  @Override
+  public CacheStats encodeStats() {
+    return new CacheStats(hits.sum(), misses.sum());
+  }
+
+  @Override
+  public CacheStats decodeStats() {
+    return new CacheStats(decodeHits.sum(), decodeMisses.sum());
+  }
+
+  /**
+   * @param capacity the minimum number of slots
+   * @return the number of sets of {@link #WAYS} slots needed for the capacity, a power of 2 so a
+   *     set can be found by masking
+   * @throws IllegalArgumentException when capacity is not 1 to {@link #MAX_CAPACITY}
+   */
+  static int setCount(int capacity) {
+    if (capacity < 1 || capacity > MAX_CAPACITY)
+      throw new IllegalArgumentException(
+          "Capacity must be 1-%d but was: %d".formatted(MAX_CAPACITY, capacity));
+    int sets = (capacity + WAYS - 1) / WAYS;
+    return sets == 1 ? 1 : Integer.highestOneBit(sets - 1) << 1;
+  }
+
+  /**
+   * A set-associative cache using the CLOCK algorithm to evict entries from a set.
+   *
+   * <p>Each value maps to a set of {@link #WAYS} slots. A hit marks the slot as used. On insert the
+   * set's clock hand moves over the slots clearing used marks until it finds a free or unused slot
+   * which then gets replaced.
+   */
+  static final class ClockCache implements Cache {
+
+    private record Entry(long value, String id) {}
+
+    private final Entry[] entries;
+    private final boolean[] used;
+    private final byte[] hands;
+    private final int setMask;
+
+    ClockCache(int capacity) {
+      int sets = setCount(capacity);
+      this.entries = new Entry[sets * WAYS];
+      this.used = new boolean[sets * WAYS];
+      this.hands = new byte[sets];
+      this.setMask = sets - 1;
+    }
+
+    @Override
+    public String get(long value) {
+      int set0 = setOf(value) * WAYS;
+      for (int i = set0; i < set0 + WAYS; i++) {
+        Entry e = entries[i];
+        if (e != null && e.value == value) {
+          // only write when needed to not invalidate the cache line for other readers
+          if (!used[i]) used[i] = true;
+          return e.id;
+        }
+      }
+      return null;
+    }
+
+    @Override
+    public void put(long value, String id) {
+      int set = setOf(value);
+      int set0 = set * WAYS;
+      int hand = hands[set];
+      // after one round all used marks are cleared so a second round must find a slot
+      for (int n = 0; n < 2 * WAYS; n++) {
+        int i = set0 + (hand++ & (WAYS - 1));
+        if (entries[i] == null || !used[i]) {
+          entries[i] = new Entry(value, id);
+          used[i] = false;
+          hands[set] = (byte) hand;
+          return;
+        }
+        used[i] = false;
+      }
+    }
+
+    int capacity() {
+      return entries.length;
+    }
+
+    private int setOf(long value) {
+      long h = value * 0x9E3779B97F4A7C15L;
+      return ((int) (h >>> 32) ^ (int) h) & setMask;
+    }
+  }
+
+  /**
+   * A set-associative cache using the CLOCK algorithm (same as {@link ClockCache}) from ID to its
+   * value.
+   *
+   * <p>The value is stored as primitive in the immutable entry so no boxing occurs. Keys are
+   * compared by identity first so that lookups for the same {@link String} instance (for example
+   * constants or interned IDs) do not need to compare characters. The hash of a {@link String} is
+   * cached by the instance so that computing it is only paid once per instance. The hashes of the
+   * entries are kept in a separate array so that a lookup only dereferences an entry (and its ID)
+   * when the hash matches.
+   */
+  static final class DecodeCache {
+
+    record Entry(String id, long value) {}
+
+    private final Entry[] entries;
+    private final int[] hashes;
+    private final boolean[] used;
+    private final byte[] hands;
+    private final int setMask;
+
+    DecodeCache(int capacity) {
+      int sets = setCount(capacity);
+      this.entries = new Entry[sets * WAYS];
+      this.hashes = new int[sets * WAYS];
+      this.used = new boolean[sets * WAYS];
+      this.hands = new byte[sets];
+      this.setMask = sets - 1;
+    }
+
+    /**
+     * @return the entry for the ID or null if the ID is not cached
+     */
+    Entry get(String id) {
+      int hash = id.hashCode();
+      int set0 = setOf(hash) * WAYS;
+      for (int i = set0; i < set0 + WAYS; i++) {
+        if (hashes[i] != hash) continue;
+        Entry e = entries[i];
+        // hash and entry are not updated atomically so the entry must be checked
+        if (e != null && (e.id == id || e.id.equals(id))) {
+          if (!used[i]) used[i] = true;
+          return e;
+        }
+      }
+      return null;
+    }
+
+    void put(String id, long value) {
+      int hash = id.hashCode();
+      int set = setOf(hash);
+      int set0 = set * WAYS;
+      int hand = hands[set];
+      for (int n = 0; n < 2 * WAYS; n++) {
+        int i = set0 + (hand++ & (WAYS - 1));
+        if (entries[i] == null || !used[i]) {
+          entries[i] = new Entry(id, value);
+          hashes[i] = hash;
+          used[i] = false;
+          hands[set] = (byte) hand;
+          return;
+        }
+        used[i] = false;
+      }
+    }
+
+    int capacity() {
+      return entries.length;
+    }
+
+    private int setOf(int hash) {
+      int h = hash * 0x9E3779B9;
+      return (h ^ (h >>> 16)) & setMask;
+    }
+  }
+
+  /**
+   * A direct-mapped cache for values from 0 to size (exclusive). Values outside that range are
+   * never cached.
+   */
+  static final class DenseCache implements Cache {
+
+    private final String[] ids;
+
+    DenseCache(int size) {
+      if (size < 1) throw new IllegalArgumentException("Size must be positive but was: " + size);
+      this.ids = new String[size];
+    }
+
+    @Override
+    public String get(long value) {
+      return value >= 0 && value < ids.length ? ids[(int) value] : null;
+    }
+
+    @Override
+    public void put(long value, String id) {
+      if (value >= 0 && value < ids.length) ids[(int) value] = id;
+    }
+  }
+}
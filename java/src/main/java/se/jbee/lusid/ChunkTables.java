@@ -0,0 +1,105 @@
+package se.jbee.lusid;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precomputed lookup tables that encode a chunk of multiple triplets (3 bits each) with a single
+ * lookup, and decode a pair of symbols with a single lookup.
+ *
+ * <p>The tables only depend on the tables of the {@link Coder.Mode} (not the secret or minimum
+ * length) and are therefore shared by all coders using the same mode and chunk size.
+ *
+ * <p>Footprint of the encoding table is {@code tableCount * 8^triplets * triplets} characters, for
+ * the 7 tables of {@link Coder.Mode#MIXED} this is 1.75kB for 2, 21kB for 3 and 224kB for 4
+ * triplets. The decoding table is {@code tableCount * range^2} bytes where range is the distance
+ * between the lowest and highest symbol, for {@link Coder.Mode#MIXED} this is 39k. It is only
+ * created for modes with a range of at most 128 symbols.
+ *
+ * @author Jan Bernitt
+ */
+final class ChunkTables {
+
+  /** Decoding pairs for modes with a larger symbol range would take too much memory */
+  private static final int MAX_PAIR_RANGE = 128;
+
+  private static final Map<String, ChunkTables> SHARED = new ConcurrentHashMap<>();
+
+  /**
+   * @return the potentially shared tables for the given mode tables and number of triplets
+   */
+  static ChunkTables of(char[] tables, int triplets) {
+    return SHARED.computeIfAbsent(
+        triplets + ":" + new String(tables), key -> new ChunkTables(tables, triplets));
+  }
+
+  /** number of triplets encoded by a single lookup */
+  final int triplets;
+
+  /** bit mask for the bits of a chunk */
+  final int mask;
+
+  final int tableCount;
+
+  /**
+   * {@code [((startTable << 3 * triplets) + bits) * triplets + i]} = the symbol of the i-th
+   * triplet (lowest first) of the chunk when the chunk starts with table startTable
+   */
+  final char[] encode;
+
+  /** lowest symbol used by the tables, pair lookups are relative to this */
+  final char base;
+
+  /** number of characters from {@link #base} to the highest symbol used (inclusive) */
+  final int range;
+
+  /**
+   * {@code [(tableNo * range + (s1 - base)) * range + (s2 - base)]} = the 6 bits of the symbol
+   * pair s1s2 (s2 being in table tableNo, s1 in the next table) or -1 if any of the two is not in
+   * its table; null if the range of symbols is too large
+   */
+  final byte[] decode;
+
+  private ChunkTables(char[] tables, int triplets) {
+    this.triplets = triplets;
+    this.mask = (1 << (3 * triplets)) - 1;
+    this.tableCount = tables.length / 8;
+    int chunks = 1 << (3 * triplets);
+    this.encode = new char[tableCount * chunks * triplets];
+    for (int t = 0; t < tableCount; t++)
+      for (int bits = 0; bits < chunks; bits++)
+        for (int i = 0; i < triplets; i++)
+          encode[((t * chunks) + bits) * triplets + i] =
+              tables[8 * ((t + i) % tableCount) + ((bits >>> (3 * i)) & 0b111)];
+    char min = tables[0], max = tables[0];
+    for (char s : tables) {
+      if (s < min) min = s;
+      if (s > max) max = s;
+    }
+    this.base = min;
+    this.range = max - min + 1;
+    this.decode = range > MAX_PAIR_RANGE ? null : new byte[tableCount * range * range];
+    if (decode == null) return;
+    Arrays.fill(decode, (byte) -1);
+    for (int t = 0; t < tableCount; t++) {
+      int tNext = (t + 1) % tableCount;
+      for (int i1 = 0; i1 < 8; i1++)
+        for (int i2 = 0; i2 < 8; i2++) {
+          int s1 = tables[8 * tNext + i1] - base;
+          int s2 = tables[8 * t + i2] - base;
+          decode[(t * range + s1) * range + s2] = (byte) ((i1 << 3) | i2);
+        }
+    }
+  }
+
+  /**
+   * @return the 6 bits of the pair of symbols where s2 is from the given table and s1 from the
+   *     table following it, or -1 if the pair is not valid
+   */
+  int decodePair(int tableNo, char s1, char s2) {
+    int i1 = (char) (s1 - base);
+    int i2 = (char) (s2 - base);
+    return i1 < range && i2 < range ? decode[(tableNo * range + i1) * range + i2] : -1;
+  }
+}
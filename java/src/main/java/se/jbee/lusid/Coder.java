@@ -1,11 +1,27 @@
 package se.jbee.lusid;
 
-import static java.util.stream.IntStream.range;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.Objects.checkFromToIndex;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
 import java.util.List;
-import java.util.stream.DoubleStream;
-import java.util.stream.IntStream;
+import java.util.OptionalLong;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongConsumer;
 import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
 
 /**
  * A {@linkplain Coder} is the combination of an encoder and a decoder with a chosen configuration.
@@ -42,10 +58,10 @@ import java.util.stream.LongStream;
  * so on.
  *
  * <p>The algorithm does not require heap allocation except to create the encoded result string.
- * Decoding can be implemented heap allocation free but currently does use a single allocation to
- * copy the input string into a character array for convenience. All in all both encoding and
- * decoding can be assumed very "cheap" operations similar to creating a {@link String} or similar
- * length.
+ * Decoding single values is heap allocation free and does not modify the input. IDs can be decoded
+ * from any range of a {@link CharSequence} without extracting them into a {@link String} first.
+ * All in all both encoding and decoding can be assumed very "cheap" operations similar to creating
+ * a {@link String} or similar length.
  *
  * <p><b>Important!</b> To protect the secret one must never expose the {@link Coder} in a way that
  * allows a user to poke it with known number values. Values can only be protected if both the
@@ -67,6 +83,19 @@ public interface Coder {
    */
   String SECRET_PROPERTY = "lusid.secret";
 
+  /**
+   * The default maximum number of values processed sequentially by a single task when encoding or
+   * decoding in parallel. Inputs of this size or smaller are processed sequentially in the calling
+   * thread.
+   */
+  int PARALLEL_THRESHOLD = 4096;
+
+  /**
+   * The length of any ID of a {@link UUID} (or any other 128-bit value) for the standard modes,
+   * see {@link #encodedUuidLength()}
+   */
+  int UUID_LENGTH = 26;
+
   /*
   Creating new De/Encoders
    */
@@ -111,24 +140,164 @@ public interface Coder {
   /**
    * @param secret the secret 64bit sequence to use, 0 to load from {@link #SECRET_PROPERTY}
    * @param minLength target minimum length for generated ID strings; 1-20, any value outside the
-   *     bounds is limited to the closest limit
+   *     bounds is limited to the closest limit; with {@link Mode#DENSE16} a single value is padded
+   *     with at most 17 characters, so it can be shorter than a minimum length of 19 or 20, see
+   *     {@link Mode}
    * @param mode configuration for the characters used to encode/decode bits with
    * @return an instance with the specified behaviour
    */
   static Coder of(long secret, int minLength, Mode mode) {
-    return Lusid.coder(secret, Coder.SECRET_PROPERTY, minLength, mode);
+    return Lusid.coder(secret, Coder.SECRET_PROPERTY, minLength, false, mode);
   }
 
   /**
    * @param secretProperty name of the system property or environment variable that is used as
    *     secret number
    * @param minLength target minimum length for generated ID strings; 1-20, any value outside the
-   *     bounds is limited to the closest limit
+   *     bounds is limited to the closest limit; with {@link Mode#DENSE16} a single value is padded
+   *     with at most 17 characters, so it can be shorter than a minimum length of 19 or 20, see
+   *     {@link Mode}
    * @param mode configuration for the characters used to encode/decode bits with
    * @return an instance with the specified behaviour
    */
   static Coder of(String secretProperty, int minLength, Mode mode) {
-    return Lusid.coder(0L, secretProperty, minLength, mode);
+    return Lusid.coder(0L, secretProperty, minLength, false, mode);
+  }
+
+  /**
+   * Creates a coder that encodes any long value to exactly {@link Mode#fixedLength()} characters.
+   * This allows to store IDs in fixed width columns (like {@code CHAR(20)}) or in files with a
+   * fixed stride that can be searched without offsets.
+   *
+   * <p>Fixed length IDs never use padding or the flip marker, all symbols are data. Therefore,
+   * these IDs are different from the IDs of a coder created with {@link #of(long, int, Mode)} even
+   * if its minimum length is the same. Multiple values are joined as usual, each value having the
+   * fixed length. Decoding an ID of any other length fails.
+   *
+   * @param secret the secret 64bit sequence to use, 0 to load from {@link #SECRET_PROPERTY}
+   * @param mode configuration for the characters used to encode/decode bits with
+   * @return an instance encoding each long to exactly {@link Mode#fixedLength()} characters
+   */
+  static Coder ofFixedLength(long secret, Mode mode) {
+    return Lusid.coder(secret, Coder.SECRET_PROPERTY, mode.fixedLength(), true, mode);
+  }
+
+  /**
+   * Returns a coder that produces the exact same IDs as this coder but trades memory for speed by
+   * using precomputed lookup tables. These encode multiple triplets (3 bits each) with a single
+   * lookup and decode pairs of symbols with a single lookup.
+   *
+   * <p>The tables only depend on the {@link Mode} and are shared between all coders using the same
+   * mode and number of triplets. The encoding tables grow by factor 8 for each triplet added. For
+   * a mode with 7 tables these are ~2kB for 2, ~21kB for 3 and ~230kB for 4 triplets. The decoding
+   * table is ~40kB for the standard modes (and not used for modes with a wide range of symbols).
+   *
+   * @param triplets the number of triplets encoded per lookup: 1 to use no extra lookup tables,
+   *     2-4 to use lookup tables
+   * @return a coder using lookup tables for the given number of triplets
+   * @throws IllegalArgumentException when triplets is not 1-4
+   * @throws IllegalStateException when the coder uses a dense {@link Mode} (tables of 16, 32 or 64
+   *     symbols), these do not encode triplets
+   */
+  Coder withLookupTables(int triplets);
+
+  /**
+   * Creates a coder that caches the IDs of the most recently and frequently encoded values. This is
+   * useful when a small set of values is encoded over and over again.
+   *
+   * <p>The cache is bounded and evicts entries using the CLOCK algorithm. Reading from and updating
+   * the cache is lock-free.
+   *
+   * @param coder the coder to use to encode values not yet in the cache
+   * @param capacity the minimum number of entries the cache can hold, rounded up to a power of 2,
+   *     at most {@code 1 << 30}
+   * @return a coder caching the results of {@link #encodeLong(long)}
+   * @throws IllegalArgumentException when capacity is not positive or above {@code 1 << 30}
+   */
+  static Cached cached(Coder coder, int capacity) {
+    return new CachedCoder(coder, new CachedCoder.ClockCache(capacity), null);
+  }
+
+  /**
+   * Creates a coder that caches the IDs of the most recently and frequently encoded values and/or
+   * the values of the most recently and frequently decoded IDs.
+   *
+   * <p>Both caches are bounded, evict entries using the CLOCK algorithm and are lock-free. Invalid
+   * IDs are never cached, so decoding garbage input cannot evict valid entries. Only IDs given as
+   * entire {@link String} are cached when decoding.
+   *
+   * @param coder the coder to use to encode values or decode IDs not yet in the cache
+   * @param encodeCapacity the minimum number of values the encode cache can hold, 0 to not cache
+   *     encoding, at most {@code 1 << 30}
+   * @param decodeCapacity the minimum number of IDs the decode cache can hold, 0 to not cache
+   *     decoding, at most {@code 1 << 30}
+   * @return a coder caching the results of {@link #encodeLong(long)} and/or {@link
+   *     #decodeLong(String)}
+   * @throws IllegalArgumentException when any of the capacities is negative or above {@code 1 <<
+   *     30}
+   */
+  static Cached cached(Coder coder, int encodeCapacity, int decodeCapacity) {
+    if (encodeCapacity < 0 || decodeCapacity < 0)
+      throw new IllegalArgumentException("Capacity must not be negative");
+    return new CachedCoder(
+        coder,
+        encodeCapacity == 0 ? null : new CachedCoder.ClockCache(encodeCapacity),
+        decodeCapacity == 0 ? null : new CachedCoder.DecodeCache(decodeCapacity));
+  }
+
+  /**
+   * Creates a coder that caches the IDs of the values from 0 to size (exclusive) in an array
+   * indexed by value. This is the fastest cache when the encoded values are dense small numbers.
+   * Values outside the range are not cached.
+   *
+   * @param coder the coder to use to encode values not yet in the cache
+   * @param size the number of values (starting from 0) to cache
+   * @return a coder caching the results of {@link #encodeLong(long)} for the values 0 to size
+   * @throws IllegalArgumentException when size is not positive
+   */
+  static Cached cachedDense(Coder coder, int size) {
+    return new CachedCoder(coder, new CachedCoder.DenseCache(size), null);
+  }
+
+  /**
+   * Creates a coder that counts the calls, failures and the lengths of IDs for each {@link
+   * Operation}. Counting uses striped counters so that it scales with the number of threads using
+   * the coder. Not metering a coder costs nothing, so meters should only be added where needed.
+   *
+   * @param coder the coder to meter
+   * @param latency true to also record a histogram of the time each operation took; this adds two
+   *     reads of {@link System#nanoTime()} per call
+   * @return a coder metering the {@link Operation}s on the given coder
+   */
+  static Metered metered(Coder coder, boolean latency) {
+    return new MeteredCoder(coder, latency);
+  }
+
+  /**
+   * Creates a sequence that hands out new numbers and their IDs, for example to use as primary
+   * keys. Each thread takes a block of numbers from a shared counter and hands them out without
+   * touching shared memory until the block is used up, so the sequence scales with the number of
+   * threads using it. Numbers are unique but only ascending per thread.
+   *
+   * <p>The numbers are leased from the high-water mark in ranges of 64 blocks. A lease loads the
+   * mark and stores it advanced by the range before any of its numbers are handed out. After a
+   * restart numbers continue from the stored mark so numbers are never handed out twice but
+   * numbers reserved but not handed out before the restart are skipped.
+   *
+   * <p>Multiple sequences in the same JVM can share the same mark instance, each leases its own
+   * ranges from it so numbers are unique across all of them. Sharing a mark between processes
+   * (like the same file) is not supported as leasing is only synchronized within the JVM. A lease
+   * is taken while holding the mark's monitor ({@code synchronized (mark)}), a caller holding it
+   * blocks all sequences using the mark from leasing until it is released.
+   *
+   * @param coder the coder used to encode the numbers
+   * @param mark the place where the highest reserved number is stored
+   * @param blockSize the number of values a thread takes from the shared counter at a time
+   * @return a new sequence continuing from the given mark
+   * @throws IllegalArgumentException when block size is not positive
+   */
+  static Sequence sequence(Coder coder, HighWaterMark mark, int blockSize) {
+    return new BlockSequence(coder, mark, blockSize);
   }
 
   /*
@@ -151,7 +320,74 @@ public interface Coder {
    *     chance that changing a single character is detected. Change in multiple characters increase
    *     the chance further as expected.
    */
-  long decodeLong(String id);
+  default long decodeLong(String id) {
+    return decodeLong(id, 0, id.length());
+  }
+
+  /**
+   * Decodes an ID that is a part of a larger sequence of characters, like a path or a header value.
+   * Decoding neither allocates nor modifies the input.
+   *
+   * @param id a sequence of characters that contains an ID previously encoded with this {@link
+   *     Coder}
+   * @param from index of the first character of the ID (inclusive)
+   * @param to index after the last character of the ID (exclusive)
+   * @return the decoded value
+   * @throws IllegalArgumentException in case the given ID wasn't valid
+   * @throws IndexOutOfBoundsException in case the range is not within the given sequence
+   * @see #decodeLong(String)
+   */
+  long decodeLong(CharSequence id, int from, int to);
+
+  default OptionalLong tryDecodeLong(CharSequence id) {
+    return tryDecodeLong(id, 0, id.length());
+  }
+
+  /**
+   * Same as {@link #decodeLong(CharSequence, int, int)} except that an invalid ID is not reported
+   * by throwing an exception. Use this for input that is likely to be garbage, like IDs from a
+   * request path, where the cost of creating exceptions would be significant.
+   *
+   * @param id a sequence of characters that might contain an ID previously encoded with this {@link
+   *     Coder}
+   * @param from index of the first character of the ID (inclusive)
+   * @param to index after the last character of the ID (exclusive)
+   * @return the decoded value or empty if the ID wasn't valid (including an empty range)
+   * @throws IndexOutOfBoundsException in case the range is not within the given sequence
+   */
+  OptionalLong tryDecodeLong(CharSequence id, int from, int to);
+
+  /**
+   * Same as {@link #isValid(CharSequence, int, int)} for the entire sequence.
+   *
+   * @param id a sequence of characters that might be an ID previously encoded with this {@link
+   *     Coder}
+   * @return true, if {@link #decodeLong(CharSequence, int, int)} of the entire sequence would not
+   *     throw an {@link IllegalArgumentException}
+   */
+  default boolean isValid(CharSequence id) {
+    return isValid(id, 0, id.length());
+  }
+
+  /**
+   * Checks if an ID could be decoded without decoding it into a result. Like decoding this only
+   * checks the length, the padding and flip markers and that all symbols are valid for their
+   * position, it does not tell if the ID actually was encoded by this {@link Coder}.
+   *
+   * <p>Implementations should check the structure of the ID without computing the value or
+   * allocating. The default falls back to {@link #tryDecodeLong(CharSequence, int, int)}.
+   *
+   * @param id a sequence of characters that might contain an ID previously encoded with this {@link
+   *     Coder}
+   * @param from index of the first character of the ID (inclusive)
+   * @param to index after the last character of the ID (exclusive)
+   * @return true, if {@link #decodeLong(CharSequence, int, int)} of the same ID would not throw an
+   *     {@link IllegalArgumentException}, false for an empty range
+   * @throws IndexOutOfBoundsException in case the range is not within the given sequence
+   */
+  default boolean isValid(CharSequence id, int from, int to) {
+    return tryDecodeLong(id, from, to).isPresent();
+  }
 
   /**
    * Encodes each value using {@link #encodeLong(long)} and joins the results with {@link
@@ -163,11 +399,169 @@ public interface Coder {
    */
   String encodeLongs(long... values);
 
-  long[] decodeLongs(String id);
+  /**
+   * @param id an ID previously encoded with {@link #encodeLongs(long...)}
+   * @return the decoded values
+   * @throws IllegalArgumentException in case the given ID wasn't valid
+   */
+  default long[] decodeLongs(String id) {
+    return decodeLongs(id, 0, id.length());
+  }
+
+  /**
+   * Decodes an ID of multiple values that is a part of a larger sequence of characters. The input
+   * is parsed in a single pass.
+   *
+   * @param id a sequence of characters that contains an ID previously encoded with {@link
+   *     #encodeLongs(long...)}
+   * @param from index of the first character of the ID (inclusive)
+   * @param to index after the last character of the ID (exclusive)
+   * @return the decoded values, empty for an empty range
+   * @throws IllegalArgumentException in case the given ID wasn't valid
+   * @throws IndexOutOfBoundsException in case the range is not within the given sequence
+   */
+  long[] decodeLongs(CharSequence id, int from, int to);
+
+  /**
+   * Same as {@link #decodeLongs(CharSequence, int, int)} but each value is passed to the consumer
+   * as soon as it is decoded instead of collecting them in an array.
+   *
+   * @param consumer receives the decoded values in order
+   * @return the number of values decoded
+   * @throws IllegalArgumentException in case the given ID wasn't valid (values before the invalid
+   *     one have already been passed to the consumer)
+   */
+  int decodeLongs(CharSequence id, int from, int to, LongConsumer consumer);
+
+  /**
+   * Lazy variant of {@link #decodeLongs(CharSequence, int, int)}, each value is decoded when it is
+   * requested from the iterator. The input must not be modified while iterating.
+   *
+   * @return an iterator over the values of the ID, for an empty range there are no values
+   * @throws IndexOutOfBoundsException in case the range is not within the given sequence
+   */
+  PrimitiveIterator.OfLong decodeLongIterator(CharSequence id, int from, int to);
+
+  /**
+   * @see #decodeLongIterator(CharSequence, int, int)
+   * @return a sequential stream of the values of the ID that decodes lazily
+   */
+  default LongStream decodeLongStream(CharSequence id, int from, int to) {
+    return StreamSupport.longStream(
+        Spliterators.spliteratorUnknownSize(
+            decodeLongIterator(id, from, to),
+            Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE),
+        false);
+  }
+
+  /**
+   * Same as {@link #encodeLongs(long...)} except that only the first value is encoded as is, each
+   * following value is encoded as its difference to the value before it. Differences are zig-zag
+   * mapped so small negative differences are as short as small positive ones.
+   *
+   * <p>For sorted or nearby values, like keys of a page or a selection, the differences are small
+   * and need far fewer characters than the values. Any values can be encoded but unrelated values
+   * get longer than with {@link #encodeLongs(long...)}.
+   *
+   * @param values a list of arbitrary long values, ideally sorted
+   * @return An ID representing the values that can only be decoded with {@link
+   *     #decodeDeltaLongs(String)}
+   */
+  default String encodeDeltaLongs(long... values) {
+    long[] deltas = new long[values.length];
+    DeltaCoding.deltas(values, deltas);
+    return encodeLongs(deltas);
+  }
+
+  /**
+   * @param id an ID previously encoded with {@link #encodeDeltaLongs(long...)}
+   * @return the decoded values
+   * @throws IllegalArgumentException in case the given ID wasn't valid
+   */
+  default long[] decodeDeltaLongs(String id) {
+    return decodeDeltaLongs(id, 0, id.length());
+  }
+
+  /**
+   * @see #decodeLongs(CharSequence, int, int)
+   * @see #encodeDeltaLongs(long...)
+   */
+  default long[] decodeDeltaLongs(CharSequence id, int from, int to) {
+    return DeltaCoding.values(decodeLongs(id, from, to));
+  }
+
+  /**
+   * @see #decodeLongs(CharSequence, int, int, LongConsumer)
+   * @see #encodeDeltaLongs(long...)
+   */
+  default int decodeDeltaLongs(CharSequence id, int from, int to, LongConsumer consumer) {
+    return decodeLongs(id, from, to, new DeltaCoding.Values(consumer));
+  }
+
+  /**
+   * @return the length of any ID of a {@link UUID}, {@link #UUID_LENGTH} for the standard modes,
+   *     32, 26 or 22 for the dense modes with 16, 32 or 64 symbols per table
+   */
+  int encodedUuidLength();
+
+  /**
+   * @see #encodeUuid(long, long)
+   */
+  default String encodeUuid(UUID value) {
+    return encodeUuid(value.getMostSignificantBits(), value.getLeastSignificantBits());
+  }
+
+  /**
+   * Encodes all 128 bits as a single unit in {@link #UUID_LENGTH} characters (compared to 36
+   * characters of {@link UUID#toString()}). Each character encodes 5 bits, 13 characters for each
+   * half. Neither a join character nor padding is used. Dense modes encode 4, 5 or 6 bits per
+   * character, see {@link #encodedUuidLength()}.
+   *
+   * @param mostSigBits the high 64 bits
+   * @param leastSigBits the low 64 bits
+   * @return the encoded ID, always {@link #encodedUuidLength()} characters
+   */
+  String encodeUuid(long mostSigBits, long leastSigBits);
+
+  /**
+   * Same as {@link #encodeUuid(long, long)} but writes the ID into the given array.
+   *
+   * @return the number of characters written, always {@link #encodedUuidLength()}
+   * @throws IndexOutOfBoundsException in case the array is too small
+   */
+  int encodeUuidInto(long mostSigBits, long leastSigBits, char[] dst, int offset);
+
+  default UUID decodeUuid(String id) {
+    return decodeUuid(id, 0, id.length());
+  }
+
+  /**
+   * @return the {@link UUID} of an ID created by {@link #encodeUuid(long, long)}
+   * @throws IllegalArgumentException in case the given ID wasn't valid
+   */
+  default UUID decodeUuid(CharSequence id, int from, int to) {
+    return new UUID(decodeUuidMostSigBits(id, from, to), decodeUuidLeastSigBits(id, from, to));
+  }
+
+  /**
+   * Decodes only the first half of the ID.
+   *
+   * @return the high 64 bits of an ID created by {@link #encodeUuid(long, long)}
+   * @throws IllegalArgumentException in case the given ID wasn't valid
+   */
+  long decodeUuidMostSigBits(CharSequence id, int from, int to);
+
+  /**
+   * Decodes only the second half of the ID.
+   *
+   * @return the low 64 bits of an ID created by {@link #encodeUuid(long, long)}
+   * @throws IllegalArgumentException in case the given ID wasn't valid
+   */
+  long decodeUuidLeastSigBits(CharSequence id, int from, int to);
 
   /**
-   * The resulting ID is always 1 character per input character. Padding can be at most 9 additional
-   * characters.
+   * The resulting ID is always 1 character per input character (2 for {@link Mode#DENSE16}).
+   * Padding can be at most 9 additional characters.
    *
    * @param value for example an enum constant name
    * @return the encoded ID for the given name
@@ -189,6 +583,71 @@ public interface Coder {
 
   String decodeText(String id);
 
+  /**
+   * Same as {@link #encodeText(String)} but the bits of the UTF-8 bytes are packed into units of 5
+   * bits that are encoded as 1 character each. The resulting ID therefore uses 1.6 characters per
+   * input UTF-8 byte (rounded up). Dense modes pack units of 4, 5 or 6 bits. Padding can be at most
+   * 9 additional characters.
+   *
+   * @param value any string
+   * @return the encoded ID for the string
+   */
+  String encodePackedText(String value);
+
+  String decodePackedText(String id);
+
+  /*
+  Streaming Text De/Encoding
+
+  Same as encodeText/decodeText just that the input is read and the output is written in chunks so
+  that memory use is constant for any length of text. Readers, writers and channels are neither
+  closed nor flushed. Channels must be in blocking mode.
+   */
+
+  /**
+   * Same as {@link #encodeText(String)} for the text read.
+   *
+   * @param text the source of the text to encode
+   * @param id the target of the encoded ID
+   * @return the number of characters written to the target
+   */
+  long encodeText(Reader text, Writer id) throws IOException;
+
+  /**
+   * Same as {@link #decodeText(String)} for the ID read.
+   *
+   * @param id the source of an ID as created by {@link #encodeText(Reader, Writer)}
+   * @param text the target of the decoded text
+   * @return the number of UTF-8 bytes decoded
+   * @throws IllegalArgumentException in case the ID wasn't valid (some text might already have
+   *     been written)
+   */
+  long decodeText(Reader id, Writer text) throws IOException;
+
+  /**
+   * Same as {@link #encodeText(String)} for the UTF-8 bytes read. Any bytes can be encoded, they do
+   * not need to be valid UTF-8.
+   *
+   * @param text the source of the text bytes to encode
+   * @param id the target of the ID written as ASCII bytes
+   * @return the number of bytes written to the target
+   * @throws UnsupportedOperationException when the {@link Mode} uses non ASCII characters
+   */
+  long encodeText(ReadableByteChannel text, WritableByteChannel id) throws IOException;
+
+  /**
+   * Same as {@link #decodeText(String)} for the ID read as ASCII bytes.
+   *
+   * @param id the source of an ID as created by {@link #encodeText(ReadableByteChannel,
+   *     WritableByteChannel)}
+   * @param text the target of the decoded bytes
+   * @return the number of bytes written to the target
+   * @throws IllegalArgumentException in case the ID wasn't valid (some bytes might already have
+   *     been written)
+   * @throws UnsupportedOperationException when the {@link Mode} uses non ASCII characters
+   */
+  long decodeText(ReadableByteChannel id, WritableByteChannel text) throws IOException;
+
   /*
   Convenience De/Encoding API
    */
@@ -226,31 +685,735 @@ public interface Coder {
   }
 
   default int decodeInt(String id) {
-    return (int) decodeLong(id);
+    return decodeInt(id, 0, id.length());
   }
 
   default double decodeDouble(String id) {
-    return Double.longBitsToDouble(decodeLong(id));
+    return decodeDouble(id, 0, id.length());
   }
 
   default float decodeFloat(String id) {
-    return Float.intBitsToFloat(decodeInt(id));
+    return decodeFloat(id, 0, id.length());
+  }
+
+  /**
+   * @see #decodeLong(CharSequence, int, int)
+   */
+  default int decodeInt(CharSequence id, int from, int to) {
+    return (int) decodeLong(id, from, to);
+  }
+
+  /**
+   * @see #decodeLong(CharSequence, int, int)
+   */
+  default double decodeDouble(CharSequence id, int from, int to) {
+    return Double.longBitsToDouble(decodeLong(id, from, to));
+  }
+
+  /**
+   * @see #decodeLong(CharSequence, int, int)
+   */
+  default float decodeFloat(CharSequence id, int from, int to) {
+    return Float.intBitsToFloat(decodeInt(id, from, to));
   }
 
   default String encodeDoubles(double... values) {
-    return encodeLongs(DoubleStream.of(values).mapToLong(Double::doubleToRawLongBits).toArray());
+    long[] longs = new long[values.length];
+    for (int i = 0; i < values.length; i++) longs[i] = Double.doubleToRawLongBits(values[i]);
+    return encodeLongs(longs);
   }
 
   default double[] decodeDoubles(String id) {
-    return LongStream.of(decodeLongs(id)).mapToDouble(Double::longBitsToDouble).toArray();
+    long[] longs = decodeLongs(id);
+    double[] values = new double[longs.length];
+    for (int i = 0; i < longs.length; i++) values[i] = Double.longBitsToDouble(longs[i]);
+    return values;
+  }
+
+  /**
+   * Same as {@link #encodeDouble(double)} but the bits are reversed before encoding, so the sign
+   * and exponent become the lowest bits and trailing zero bits of the mantissa become leading zeros
+   * which are not encoded. Whole numbers and binary fractions like 0.5 or 1.25 therefore only need
+   * a few characters (e.g. 1.0 and 42.0 need 4 and 5 characters, 1e9 needs 10, before padding).
+   * Decimals without an exact binary representation, like 0.1, still need up to 20 characters.
+   *
+   * <p>The IDs are not compatible with {@link #decodeDouble(String)}.
+   *
+   * @param value any number including NaN and infinity
+   * @return the encoded ID
+   */
+  default String encodeCompactDouble(double value) {
+    return encodeLong(Long.reverse(Double.doubleToRawLongBits(value)));
+  }
+
+  /**
+   * Same as {@link #encodeFloat(float)} but the bits are reversed before encoding.
+   *
+   * @param value any number including NaN and infinity
+   * @return the encoded ID
+   * @see #encodeCompactDouble(double)
+   */
+  default String encodeCompactFloat(float value) {
+    return encodeInt(Integer.reverse(Float.floatToRawIntBits(value)));
+  }
+
+  default double decodeCompactDouble(String id) {
+    return decodeCompactDouble(id, 0, id.length());
+  }
+
+  default float decodeCompactFloat(String id) {
+    return decodeCompactFloat(id, 0, id.length());
+  }
+
+  /**
+   * @see #decodeLong(CharSequence, int, int)
+   */
+  default double decodeCompactDouble(CharSequence id, int from, int to) {
+    return Double.longBitsToDouble(Long.reverse(decodeLong(id, from, to)));
+  }
+
+  /**
+   * @see #decodeLong(CharSequence, int, int)
+   */
+  default float decodeCompactFloat(CharSequence id, int from, int to) {
+    return Float.intBitsToFloat(Integer.reverse(decodeInt(id, from, to)));
+  }
+
+  /**
+   * @see #encodeCompactDouble(double)
+   */
+  default String encodeCompactDoubles(double... values) {
+    long[] longs = new long[values.length];
+    for (int i = 0; i < values.length; i++)
+      longs[i] = Long.reverse(Double.doubleToRawLongBits(values[i]));
+    return encodeLongs(longs);
+  }
+
+  default double[] decodeCompactDoubles(String id) {
+    long[] longs = decodeLongs(id);
+    double[] values = new double[longs.length];
+    for (int i = 0; i < longs.length; i++)
+      values[i] = Double.longBitsToDouble(Long.reverse(longs[i]));
+    return values;
+  }
+
+  /**
+   * @param value any number including NaN and infinity
+   * @return the exact number of characters {@link #encodeCompactDouble(double)} uses for the value
+   */
+  default int encodedCompactLength(double value) {
+    return encodedLength(Long.reverse(Double.doubleToRawLongBits(value)));
   }
 
   default String encodeInts(int... values) {
-    return encodeLongs(IntStream.of(values).mapToLong(v -> v).toArray());
+    long[] longs = new long[values.length];
+    for (int i = 0; i < values.length; i++) longs[i] = values[i];
+    return encodeLongs(longs);
   }
 
   default int[] decodeInts(String id) {
-    return LongStream.of(decodeLongs(id)).mapToInt(v -> (int) v).toArray();
+    long[] longs = decodeLongs(id);
+    int[] values = new int[longs.length];
+    for (int i = 0; i < longs.length; i++) values[i] = (int) longs[i];
+    return values;
+  }
+
+  /*
+  Encoding into Buffers
+   */
+
+  /**
+   * The length depends on the minimum length of this {@link Coder}, therefore this is not a static
+   * function. No value requires more than 20 characters.
+   *
+   * @param value any number
+   * @return the exact number of characters {@link #encodeLong(long)} uses for the value; this is
+   *     also the length for {@link #encodeInt(int)} when called with an int value
+   */
+  int encodedLength(long value);
+
+  /**
+   * @param value any number including NaN and infinity
+   * @return the exact number of characters {@link #encodeDouble(double)} uses for the value
+   */
+  default int encodedLength(double value) {
+    return encodedLength(Double.doubleToRawLongBits(value));
+  }
+
+  /**
+   * @param value any number including NaN and infinity
+   * @return the exact number of characters {@link #encodeFloat(float)} uses for the value
+   */
+  default int encodedLength(float value) {
+    return encodedLength((long) Float.floatToRawIntBits(value));
+  }
+
+  /**
+   * Same as {@link #encodeLong(long)} but writes the ID into the given array. When the array is
+   * reused for many values encoding does not allocate.
+   *
+   * @param value any number
+   * @param dst the array to write the ID to, must have at least {@link #encodedLength(long)}
+   *     characters space starting from the offset
+   * @param offset index in the array of the first character written
+   * @return the number of characters written
+   * @throws IndexOutOfBoundsException when the array is too small to hold the ID
+   */
+  int encodeLongInto(long value, char[] dst, int offset);
+
+  /**
+   * @see #encodeLongInto(long, char[], int)
+   */
+  default int encodeIntInto(int value, char[] dst, int offset) {
+    return encodeLongInto(value, dst, offset);
+  }
+
+  /**
+   * @see #encodeLongInto(long, char[], int)
+   */
+  default int encodeDoubleInto(double value, char[] dst, int offset) {
+    return encodeLongInto(Double.doubleToRawLongBits(value), dst, offset);
+  }
+
+  /**
+   * @see #encodeLongInto(long, char[], int)
+   */
+  default int encodeFloatInto(float value, char[] dst, int offset) {
+    return encodeIntInto(Float.floatToRawIntBits(value), dst, offset);
+  }
+
+  /**
+   * Same as {@link #encodeLong(long)} but appends the ID to the given target. When the target is
+   * reused for many values, for example a {@link StringBuilder} that is reset, encoding does not
+   * allocate.
+   *
+   * @param value any number
+   * @param dst the target to append the ID to
+   * @return the given target (for chaining)
+   * @throws UncheckedIOException when appending to the target fails
+   */
+  default <A extends Appendable> A encodeLongInto(long value, A dst) {
+    try {
+      dst.append(encodeLong(value));
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+    return dst;
+  }
+
+  /**
+   * @see #encodeLongInto(long, Appendable)
+   */
+  default <A extends Appendable> A encodeIntInto(int value, A dst) {
+    return encodeLongInto(value, dst);
+  }
+
+  /**
+   * @see #encodeLongInto(long, Appendable)
+   */
+  default <A extends Appendable> A encodeDoubleInto(double value, A dst) {
+    return encodeLongInto(Double.doubleToRawLongBits(value), dst);
+  }
+
+  /**
+   * @see #encodeLongInto(long, Appendable)
+   */
+  default <A extends Appendable> A encodeFloatInto(float value, A dst) {
+    return encodeIntInto(Float.floatToRawIntBits(value), dst);
+  }
+
+  /*
+  ASCII Byte De/Encoding
+
+  IDs are written as and read from ASCII bytes without creating a String in between. This is only
+  supported by modes that exclusively use ASCII characters (all standard modes do).
+   */
+
+  /**
+   * Same as {@link #encodeLongInto(long, char[], int)} but writes ASCII bytes.
+   *
+   * @return the number of bytes written
+   * @throws IndexOutOfBoundsException when the array is too small to hold the ID
+   * @throws UnsupportedOperationException when the {@link Mode} uses non ASCII characters
+   */
+  int encodeLongInto(long value, byte[] dst, int offset);
+
+  /**
+   * Writes the ID as ASCII bytes at the current position of the buffer (which is advanced).
+   *
+   * @return the number of bytes written
+   * @throws java.nio.BufferOverflowException when the buffer does not have enough space left
+   * @throws UnsupportedOperationException when the {@link Mode} uses non ASCII characters
+   */
+  int encodeLongInto(long value, ByteBuffer dst);
+
+  /**
+   * @param values a list of arbitrary long values
+   * @return the exact number of characters (or bytes) {@link #encodeLongs(long...)} uses for the
+   *     values
+   */
+  int encodedLength(long... values);
+
+  /**
+   * Same as {@link #encodeLongs(long...)} but writes ASCII bytes.
+   *
+   * @return the number of bytes written
+   * @throws IndexOutOfBoundsException when the array is too small to hold the ID
+   * @throws UnsupportedOperationException when the {@link Mode} uses non ASCII characters
+   */
+  int encodeLongsInto(long[] values, byte[] dst, int offset);
+
+  /**
+   * Same as {@link #encodeLongs(long...)} but writes ASCII bytes at the current position of the
+   * buffer (which is advanced).
+   *
+   * @return the number of bytes written
+   * @throws java.nio.BufferOverflowException when the buffer does not have enough space left
+   * @throws UnsupportedOperationException when the {@link Mode} uses non ASCII characters
+   */
+  int encodeLongsInto(long[] values, ByteBuffer dst);
+
+  /**
+   * Same as {@link #decodeLong(CharSequence, int, int)} but reads ASCII bytes.
+   *
+   * @throws UnsupportedOperationException when the {@link Mode} uses non ASCII characters
+   */
+  long decodeLong(byte[] id, int from, int to);
+
+  /**
+   * Same as {@link #decodeLong(CharSequence, int, int)} but reads ASCII bytes. The range is given
+   * in absolute indexes, the buffer position is not used or changed.
+   *
+   * @throws UnsupportedOperationException when the {@link Mode} uses non ASCII characters
+   */
+  long decodeLong(ByteBuffer id, int from, int to);
+
+  /**
+   * Same as {@link #decodeLongs(String)} but reads ASCII bytes.
+   *
+   * @throws UnsupportedOperationException when the {@link Mode} uses non ASCII characters
+   */
+  long[] decodeLongs(byte[] id, int from, int to);
+
+  /**
+   * Same as {@link #decodeLongs(String)} but reads ASCII bytes. The range is given in absolute
+   * indexes, the buffer position is not used or changed.
+   *
+   * @throws UnsupportedOperationException when the {@link Mode} uses non ASCII characters
+   */
+  long[] decodeLongs(ByteBuffer id, int from, int to);
+
+  /*
+  Batch De/Encoding into packed Columns
+   */
+
+  /**
+   * Encodes each value in the range of the array using {@link #encodeLong(long)}. All IDs are
+   * written to a single array of symbols.
+   *
+   * @param values any numbers
+   * @param from index of the first value to encode (inclusive)
+   * @param to index after the last value to encode (exclusive)
+   * @return the IDs of all values in the range packed into one {@link Column}
+   */
+  Column encodeLongColumn(long[] values, int from, int to);
+
+  /**
+   * Same as {@link #encodeLongColumn(long[], int, int)} but the IDs are packed as ASCII bytes.
+   *
+   * @throws UnsupportedOperationException when the {@link Mode} uses non ASCII characters
+   */
+  AsciiColumn encodeLongAsciiColumn(long[] values, int from, int to);
+
+  /**
+   * @param column IDs previously encoded with this {@link Coder}
+   * @return the decoded values in the order of the IDs in the column
+   * @throws IllegalArgumentException in case any of the IDs wasn't valid
+   */
+  long[] decodeLongColumn(Column column);
+
+  /**
+   * @see #decodeLongColumn(Column)
+   * @throws UnsupportedOperationException when the {@link Mode} uses non ASCII characters
+   */
+  long[] decodeLongColumn(AsciiColumn column);
+
+  /**
+   * @see #encodeLongColumn(long[], int, int)
+   */
+  default Column encodeIntColumn(int[] values, int from, int to) {
+    checkFromToIndex(from, to, values.length);
+    long[] longs = new long[to - from];
+    for (int i = 0; i < longs.length; i++) longs[i] = values[from + i];
+    return encodeLongColumn(longs, 0, longs.length);
+  }
+
+  /**
+   * @see #encodeLongColumn(long[], int, int)
+   */
+  default Column encodeDoubleColumn(double[] values, int from, int to) {
+    checkFromToIndex(from, to, values.length);
+    long[] longs = new long[to - from];
+    for (int i = 0; i < longs.length; i++) longs[i] = Double.doubleToRawLongBits(values[from + i]);
+    return encodeLongColumn(longs, 0, longs.length);
+  }
+
+  default int[] decodeIntColumn(Column column) {
+    long[] longs = decodeLongColumn(column);
+    int[] values = new int[longs.length];
+    for (int i = 0; i < values.length; i++) values[i] = (int) longs[i];
+    return values;
+  }
+
+  default double[] decodeDoubleColumn(Column column) {
+    long[] longs = decodeLongColumn(column);
+    double[] values = new double[longs.length];
+    for (int i = 0; i < values.length; i++) values[i] = Double.longBitsToDouble(longs[i]);
+    return values;
+  }
+
+  /**
+   * A column of IDs packed into a single array of symbols (like the variable size binary layout of
+   * Apache Arrow). The ID at index {@code i} is stored in {@link #symbols} from {@code offsets[i]}
+   * (inclusive) to {@code offsets[i + 1]} (exclusive).
+   *
+   * @param symbols all IDs in the column concatenated
+   * @param offsets start index of each ID plus the end index of the last ID; the length therefore
+   *     is one more than the number of IDs in the column
+   */
+  record Column(char[] symbols, int[] offsets) {
+
+    public Column {
+      if (offsets.length == 0 || offsets[offsets.length - 1] > symbols.length)
+        throw new IllegalArgumentException("Offsets do not match the symbols");
+    }
+
+    /**
+     * @return the number of IDs in the column
+     */
+    public int size() {
+      return offsets.length - 1;
+    }
+
+    /**
+     * @param index of the ID in the column
+     * @return the ID at the index as {@link String}
+     */
+    public String get(int index) {
+      return new String(symbols, offsets[index], offsets[index + 1] - offsets[index]);
+    }
+  }
+
+  /**
+   * Same as {@link Column} but the symbols are stored as ASCII bytes.
+   *
+   * @param symbols all IDs in the column concatenated
+   * @param offsets start index of each ID plus the end index of the last ID
+   */
+  record AsciiColumn(byte[] symbols, int[] offsets) {
+
+    public AsciiColumn {
+      if (offsets.length == 0 || offsets[offsets.length - 1] > symbols.length)
+        throw new IllegalArgumentException("Offsets do not match the symbols");
+    }
+
+    /**
+     * @return the number of IDs in the column
+     */
+    public int size() {
+      return offsets.length - 1;
+    }
+
+    /**
+     * @param index of the ID in the column
+     * @return the ID at the index as {@link String}
+     */
+    public String get(int index) {
+      int from = offsets[index];
+      return new String(symbols, from, offsets[index + 1] - from, US_ASCII);
+    }
+  }
+
+  /*
+  Parallel Bulk De/Encoding
+   */
+
+  /**
+   * Encodes each value using {@link #encodeLong(long)} in parallel using the common {@link
+   * ForkJoinPool} and the {@link #PARALLEL_THRESHOLD}.
+   *
+   * @see #encodeLongEach(long[], Executor, int)
+   */
+  default String[] encodeLongEach(long[] values) {
+    return encodeLongEach(values, ForkJoinPool.commonPool(), PARALLEL_THRESHOLD);
+  }
+
+  /**
+   * Same as {@link #encodeLongEach(long[])} for values given as stream.
+   *
+   * @param values the values to encode, the stream is consumed
+   * @return the IDs in the order of the stream
+   */
+  default String[] encodeLongEach(LongStream values) {
+    return encodeLongEach(values.toArray());
+  }
+
+  /**
+   * Encodes each value using {@link #encodeLong(long)} splitting the work into tasks of at most
+   * threshold values run by the given executor.
+   *
+   * @param values the values to encode
+   * @param executor used to run the tasks, a {@link ForkJoinPool} splits the work recursively
+   * @param threshold maximum number of values processed sequentially by a single task; when the
+   *     input has no more values than this the work is done sequentially in the calling thread
+   * @return the IDs in the order of the values, the ID at index i is the ID of the value at index i
+   */
+  default String[] encodeLongEach(long[] values, Executor executor, int threshold) {
+    return ParallelCoding.encodeLongs(this, values, executor, threshold);
+  }
+
+  /**
+   * Decodes each ID using {@link #decodeLong(String)} in parallel using the common {@link
+   * ForkJoinPool} and the {@link #PARALLEL_THRESHOLD}.
+   *
+   * @see #decodeLongEach(String[], Executor, int)
+   */
+  default long[] decodeLongEach(String[] ids) {
+    return decodeLongEach(ids, ForkJoinPool.commonPool(), PARALLEL_THRESHOLD);
+  }
+
+  /**
+   * Decodes each ID using {@link #decodeLong(String)} splitting the work into tasks of at most
+   * threshold values run by the given executor.
+   *
+   * @param ids the IDs to decode
+   * @param executor used to run the tasks, a {@link ForkJoinPool} splits the work recursively
+   * @param threshold maximum number of values processed sequentially by a single task; when the
+   *     input has no more values than this the work is done sequentially in the calling thread
+   * @return the values in the order of the IDs
+   * @throws IllegalArgumentException in case any of the IDs wasn't valid
+   */
+  default long[] decodeLongEach(String[] ids, Executor executor, int threshold) {
+    return ParallelCoding.decodeLongs(this, ids, executor, threshold);
+  }
+
+  /*
+  Caching
+   */
+
+  /**
+   * A {@link Coder} that caches encoded IDs and/or decoded values.
+   *
+   * @see #cached(Coder, int)
+   * @see #cached(Coder, int, int)
+   * @see #cachedDense(Coder, int)
+   */
+  interface Cached extends Coder {
+
+    /**
+     * @return the hits and misses of the cache for {@link #encodeLong(long)} so far
+     */
+    CacheStats encodeStats();
+
+    /**
+     * @return the hits and misses of the cache for {@link #decodeLong(String)} so far
+     */
+    CacheStats decodeStats();
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>As the IDs are the same the returned coder shares the cache with this coder.
+     */
+    @Override
+    Cached withLookupTables(int triplets);
+  }
+
+  /**
+   * @param hits number of lookups that found the result in the cache
+   * @param misses number of lookups that did not find the result in the cache
+   */
+  record CacheStats(long hits, long misses) {
+
+    /**
+     * @return the share of lookups that were hits (0-1), 0 if there were no lookups yet
+     */
+    public double hitRatio() {
+      long total = hits + misses;
+      return total == 0 ? 0d : (double) hits / total;
+    }
+  }
+
+  /*
+  Metering
+   */
+
+  /**
+   * A {@link Coder} that counts the calls and failures and records the distribution of ID lengths
+   * (and optionally of latencies) for each {@link Operation}.
+   *
+   * <p>Only the methods returning or accepting IDs as {@link String} or {@link CharSequence} are
+   * metered, see {@link Operation} for which method counts as which operation. Variants writing
+   * into buffers, using bytes or columns, the streaming text variants, {@link
+   * #isValid(CharSequence, int, int)} and the length computations are forwarded without being
+   * metered.
+   *
+   * @see #metered(Coder, boolean)
+   */
+  interface Metered extends Coder {
+
+    /**
+     * @param op the operation to get the statistics for
+     * @return a snapshot of the meters for the given operation; as meters are updated concurrently
+     *     the values are not necessarily consistent with each other
+     */
+    MeterStats stats(Operation op);
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The returned coder shares the meters with this coder.
+     */
+    @Override
+    Metered withLookupTables(int triplets);
+  }
+
+  /**
+   * The metered operations of a {@link Metered} coder. The compact variants of a single value count
+   * as the operation of their type. All IDs of lists count as {@link #ENCODE_LONGS} and {@link
+   * #DECODE_LONGS}, whatever the type of the values and including delta lists. Packed text counts
+   * as text.
+   */
+  enum Operation {
+    ENCODE_LONG,
+    DECODE_LONG,
+    ENCODE_INT,
+    DECODE_INT,
+    ENCODE_FLOAT,
+    DECODE_FLOAT,
+    ENCODE_DOUBLE,
+    DECODE_DOUBLE,
+    ENCODE_LONGS,
+    DECODE_LONGS,
+    ENCODE_NAME,
+    DECODE_NAME,
+    ENCODE_TEXT,
+    DECODE_TEXT,
+    ENCODE_UUID,
+    /** Decoding only one half counts as well */
+    DECODE_UUID
+  }
+
+  /**
+   * @param count number of calls, including those that failed
+   * @param failures number of calls that threw a {@link RuntimeException} (mostly an {@link
+   *     IllegalArgumentException} for invalid input, or an {@link IndexOutOfBoundsException} for an
+   *     invalid range), for {@link #tryDecodeLong(CharSequence, int, int)} also the calls with an
+   *     empty result
+   * @param lengths number of IDs by their length, the last index counts all IDs of that length or
+   *     longer (only calls that did not fail are counted)
+   * @param latencies number of calls by the time they took, index {@code i} counts calls that took
+   *     less than {@code 2^i} but at least {@code 2^(i-1)} nanoseconds, the last index counts all
+   *     calls that took longer; includes calls that failed; empty if latency is not measured
+   */
+  record MeterStats(long count, long failures, long[] lengths, long[] latencies) {
+
+    /**
+     * @return the length of the longest ID seen so far, or 0 if there were no IDs
+     */
+    public int maxLength() {
+      for (int i = lengths.length - 1; i > 0; i--) if (lengths[i] > 0) return i;
+      return 0;
+    }
+
+    /**
+     * @param percentile 0-1, for example 0.99 for the 99th percentile
+     * @return the upper bound in nanoseconds of the latency below which the given share of calls
+     *     was (a power of 2), or 0 if latency is not measured or there were no calls
+     */
+    public long latency(double percentile) {
+      long total = 0;
+      for (long n : latencies) total += n;
+      if (total == 0) return 0L;
+      long rank = Math.max(1L, (long) Math.ceil(percentile * total));
+      long seen = 0;
+      for (int i = 0; i < latencies.length; i++) {
+        seen += latencies[i];
+        if (seen >= rank) return 1L << i;
+      }
+      return 1L << (latencies.length - 1);
+    }
+  }
+
+  /*
+  Sequences
+   */
+
+  /**
+   * A source of unique numbers and their IDs.
+   *
+   * @see #sequence(Coder, HighWaterMark, int)
+   */
+  interface Sequence {
+
+    /**
+     * @return a number that has not been returned before by this sequence (or any other sequence
+     *     using the same {@link HighWaterMark} instance)
+     * @throws IllegalStateException when the sequence has no more numbers or the {@link
+     *     HighWaterMark} loaded a negative number
+     * @throws UncheckedIOException when advancing the {@link HighWaterMark} failed
+     */
+    long nextLong();
+
+    /**
+     * @return the ID of {@link #nextLong()}
+     */
+    String nextId();
+  }
+
+  /**
+   * Persists the first number of a {@link Sequence} that has not been reserved yet. A mark must
+   * be stored durably before it returns as numbers below it are handed out right after.
+   */
+  interface HighWaterMark {
+
+    /**
+     * @return the first number that has not been reserved yet, never negative
+     */
+    long load();
+
+    /**
+     * @param mark the new first number that has not been reserved yet, always larger than the
+     *     previous mark
+     */
+    void store(long mark);
+
+    /**
+     * @param start the first number to hand out, zero or positive
+     * @return a mark that is only kept in memory, so numbers restart after a restart
+     * @throws IllegalArgumentException when start is negative
+     */
+    static HighWaterMark inMemory(long start) {
+      return new BlockSequence.MemoryMark(start);
+    }
+
+    /**
+     * The mark is stored as a decimal number in the file. Each update replaces the file
+     * atomically after its content was written to the storage device. The directory is forced to
+     * the storage device after the replacement, so that after a crash the file never has an older
+     * mark than the last one stored (which would hand out numbers twice after the restart). On
+     * Windows directories cannot be forced, there the durability of the replacement is left to
+     * the file system.
+     *
+     * @param file the file to store the mark in, if it does not exist the mark starts with the
+     *     given start number
+     * @param start the first number to hand out when the file does not exist yet, zero or positive
+     * @return a mark stored in the given file
+     * @throws IllegalArgumentException when start is negative
+     */
+    static HighWaterMark file(Path file, long start) {
+      return new BlockSequence.FileMark(file, start);
+    }
   }
 
   /*
@@ -270,6 +1433,14 @@ public interface Coder {
    * <p>The used mode and its encoding are not considered secret. They can be shared and made public
    * without compromising the encoded value or the secret used.
    *
+   * <p>Dense modes (like {@link #DENSE16}, {@link #DENSE32} and {@link #DENSE64}) use tables of 16,
+   * 32 or 64 symbols to encode 4, 5 or 6 bits per symbol. A long then requires at most 16, 13 or 11
+   * characters instead of 20. In return, they are much more likely to contain words and do not
+   * support {@link Coder#withLookupTables(int)}. A single symbol encodes the padding length, with
+   * tables of 16 symbols it can be at most 17 symbols. A single {@link #DENSE16} value that needs 1
+   * or 2 characters (a small number) therefore is only padded to 18 or 19 characters, even when the
+   * minimum length is 19 or 20. Joined values share the padding and are not affected.
+   *
    * @param join character used to join or separate multiple values
    * @param flip character used to indicate a bit flipped value (always in 1st position)
    * @param pad1 character used for a single "filler" character (leftmost; after the flip)
@@ -277,7 +1448,8 @@ public interface Coder {
    * @param tables 3bit encoding tables used; each must have 8 characters unique for the table,
    *     tables are used in order left to right; must be 4-13 tables; characters can reoccur in
    *     other tables but within the first 4 all characters must be unique; no table can contain any
-   *     of the special characters for {@link #join}, {@link #flip}, {@link #pad1} or {@link #padN}
+   *     of the special characters for {@link #join}, {@link #flip}, {@link #pad1} or {@link #padN};
+   *     dense modes instead use 1-13 tables that all have 16, 32 or 64 characters
    */
   record Mode(char join, char flip, char pad1, char padN, List<String> tables) {
     /** Upper case letters and digits only */
@@ -304,31 +1476,94 @@ public interface Coder {
     /** mixed case letters and digits */
     public static final Mode MIXED = new Mode('Q', 'y', '9', '8', MIXED_TABLES);
 
+    /** 4 bits per symbol; digits and lower consonants alternate with upper consonants */
+    public static final Mode DENSE16 =
+        new Mode('Q', 'y', 'z', 'x', List.of("BCDFGHJKLMNPRSTV", "0123456789bcdfgh"));
+
+    /** 5 bits per symbol; upper case letters and digits (the Crockford base 32 alphabet) */
+    public static final Mode DENSE32 =
+        new Mode('U', 'L', 'I', 'O', List.of("0123456789ABCDEFGHJKMNPQRSTVWXYZ"));
+
+    /**
+     * 6 bits per symbol; letters, digits, {@code -} and {@code _} (the URL-safe base 64 alphabet).
+     * The special symbols {@code !} and {@code *} are not unreserved URL characters but can be used
+     * in paths unescaped.
+     */
+    public static final Mode DENSE64 =
+        new Mode(
+            '.',
+            '~',
+            '!',
+            '*',
+            List.of("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_"));
+
     /**
      * @throws IllegalArgumentException when the character configuration is inconsistent, this means
      *     it has too few or too characters, or it uses the same character more than once when it
      *     must be unique/distinct.
      */
     public Mode {
-      if (tables.size() < 4)
+      tables = List.copyOf(tables); // must not change as modes are used as keys
+      if (tables.isEmpty()) throw new IllegalArgumentException("At least 1 bit table is required");
+      int size = tables.get(0).length();
+      if (size != 8 && size != 16 && size != 32 && size != 64)
+        throw new IllegalArgumentException("Each bit table must have 8, 16, 32 or 64 symbols");
+      if (size == 8 && tables.size() < 4)
         throw new IllegalArgumentException("At least 4 bit tables are required");
-      if (tables.stream().anyMatch(t -> t.length() != 8))
-        throw new IllegalArgumentException("Each bit table must have 8 symbols");
-      if (tables.stream().anyMatch(t -> t.chars().distinct().count() != 8))
-        throw new IllegalArgumentException("Each character in a table must be distinct (unique)");
-      if (range(0, 4).mapToObj(tables::get).flatMapToInt(String::chars).distinct().count() != 32)
-        throw new IllegalArgumentException(
-            "Each character in the first 4 tables must be distinct (unique)");
-      if (tables.stream().anyMatch(t -> t.indexOf(join) >= 0))
-        throw new IllegalArgumentException("Table must not contain the join character");
-      if (tables.stream().anyMatch(t -> t.indexOf(flip) >= 0))
-        throw new IllegalArgumentException("Table must not contain the flip character");
-      if (tables.stream().anyMatch(t -> t.indexOf(pad1) >= 0))
-        throw new IllegalArgumentException("Table must not contain the pad1 character");
-      if (tables.stream().anyMatch(t -> t.indexOf(padN) >= 0))
-        throw new IllegalArgumentException("Table must not contain the padN character");
-      if (IntStream.of(join, flip, pad1, padN).distinct().count() != 4)
+      if (tables.size() > 13)
+        throw new IllegalArgumentException("At most 13 bit tables are supported");
+      for (String t : tables)
+        if (t.length() != size)
+          throw new IllegalArgumentException("Each bit table must have %d symbols".formatted(size));
+      for (String t : tables)
+        if (!isDistinct(t))
+          throw new IllegalArgumentException("Each character in a table must be distinct (unique)");
+      // the table of the first symbol encodes 2 bits (dense modes do not use this)
+      int offsetTables = size == 8 ? 4 : 0;
+      for (int i = 1; i < offsetTables; i++)
+        for (int j = 0; j < i; j++)
+          if (!isDistinct(tables.get(i), tables.get(j)))
+            throw new IllegalArgumentException(
+                "Each character in the first 4 tables must be distinct (unique)");
+      checkNotInTables(tables, join, "join");
+      checkNotInTables(tables, flip, "flip");
+      checkNotInTables(tables, pad1, "pad1");
+      checkNotInTables(tables, padN, "padN");
+      if (!isDistinct(String.valueOf(new char[] {join, flip, pad1, padN})))
         throw new IllegalArgumentException("join, flip, pad1, padN must be different characters");
     }
+
+    /**
+     * @return number of bits encoded per symbol, 3 for the standard modes, 4-6 for dense modes
+     */
+    public int bits() {
+      return Integer.numberOfTrailingZeros(tables.get(0).length());
+    }
+
+    /**
+     * @return number of characters of each ID of a {@link Coder#ofFixedLength(long, Mode)} coder,
+     *     20 for the standard modes, 16, 13 or 11 for dense modes
+     */
+    public int fixedLength() {
+      return Lusid.wordLength(bits());
+    }
+
+    private static boolean isDistinct(String chars) {
+      for (int i = 0; i < chars.length(); i++)
+        if (chars.indexOf(chars.charAt(i), i + 1) >= 0) return false;
+      return true;
+    }
+
+    private static boolean isDistinct(String a, String b) {
+      for (int i = 0; i < a.length(); i++) if (b.indexOf(a.charAt(i)) >= 0) return false;
+      return true;
+    }
+
+    private static void checkNotInTables(List<String> tables, char c, String name) {
+      for (String t : tables)
+        if (t.indexOf(c) >= 0)
+          throw new IllegalArgumentException(
+              "Table must not contain the %s character".formatted(name));
+    }
   }
 }
@@ -0,0 +1,72 @@
+package se.jbee.lusid;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Turns a list of values into the list of differences between neighbouring values and back.
+ *
+ * <p>The first value is kept as is, each following value is replaced by its difference to the
+ * value before it. Differences are zig-zag mapped so that small negative differences become small
+ * positive numbers (0, -1, 1, -2, 2 become 0, 1, 2, 3, 4). For sorted or nearby values the
+ * differences need far fewer bits than the values themselves which shortens their encoding.
+ *
+ * <p>Differences are computed with overflow, they wrap around and are restored correctly for any
+ * values.
+ *
+ * @author Jan Bernitt
+ */
+final class DeltaCoding {
+
+  private DeltaCoding() {}
+
+  /**
+   * @param values the values to compute the differences of
+   * @param deltas target array for the differences, at least as long as values
+   */
+  static void deltas(long[] values, long[] deltas) {
+    long prev = 0;
+    for (int i = 0; i < values.length; i++) {
+      long value = values[i];
+      deltas[i] = i == 0 ? value : zigZag(value - prev);
+      prev = value;
+    }
+  }
+
+  /**
+   * Restores the values from their differences in place.
+   *
+   * @param deltas the differences as computed by {@link #deltas(long[], long[])}
+   * @return the given array now containing the values
+   */
+  static long[] values(long[] deltas) {
+    for (int i = 1; i < deltas.length; i++) deltas[i] = deltas[i - 1] + unZigZag(deltas[i]);
+    return deltas;
+  }
+
+  static long zigZag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  static long unZigZag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  /** Restores the values from their differences as they are decoded one by one. */
+  static final class Values implements LongConsumer {
+
+    private final LongConsumer consumer;
+    private boolean first = true;
+    private long prev;
+
+    Values(LongConsumer consumer) {
+      this.consumer = consumer;
+    }
+
+    @Override
+    public void accept(long delta) {
+      prev = first ? delta : prev + unZigZag(delta);
+      first = false;
+      consumer.accept(prev);
+    }
+  }
+}
@@ -0,0 +1,175 @@
+package se.jbee.lusid;
+
+import java.util.Optional;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import se.jbee.lusid.Coder.Mode;
+
+/**
+ * Emits JDK Flight Recorder events when the optional {@code jdk.jfr} module is available.
+ *
+ * <p>All events are disabled by default and have to be enabled in the recording settings, for
+ * example with {@code -XX:StartFlightRecording:+se.jbee.lusid.DecodeFailure#enabled=true}. When
+ * disabled an event costs at most the check if it is enabled. Events never contain a secret, an ID
+ * or a value.
+ *
+ * <p>OBS! Callers only use the static methods which use the event types internally so that the
+ * event types are only loaded if {@code jdk.jfr} is available.
+ *
+ * @author Jan Bernitt
+ */
+final class FlightEvents {
+
+  private FlightEvents() {}
+
+  /**
+   * True, when the optional {@code jdk.jfr} module is available so that events can be emitted.
+   */
+  static final boolean AVAILABLE = isJfrAvailable();
+
+  private static boolean isJfrAvailable() {
+    Optional<Module> jfr = ModuleLayer.boot().findModule("jdk.jfr");
+    return jfr.isPresent() && FlightEvents.class.getModule().canRead(jfr.get());
+  }
+
+  /** The reason decoding an ID failed */
+  enum Failure {
+    /** a symbol is not valid at its position */
+    SYMBOL,
+    /** the first (rightmost) symbol is not valid */
+    OFFSET,
+    /** a padding symbol is not valid at its position */
+    PADDING,
+    /** the ID is empty */
+    EMPTY,
+    /** the ID does not have the fixed length */
+    LENGTH
+  }
+
+  /**
+   * @return the event to pass to {@link #coderCreated(Object, Lusid, int)} after the coder was
+   *     created, or null if events are not available
+   */
+  static Object coderCreating() {
+    if (!AVAILABLE) return null;
+    CoderCreated event = new CoderCreated();
+    event.begin();
+    return event;
+  }
+
+  static void coderCreated(Object event, Lusid coder, int triplets) {
+    if (event == null) return;
+    CoderCreated e = (CoderCreated) event;
+    if (!e.isEnabled()) return;
+    e.end();
+    e.mode = modeName(coder.join(), coder.flip(), coder.pad1(), coder.padN(), coder.tables());
+    e.minLength = coder.minLength();
+    e.triplets = triplets;
+    e.commit();
+  }
+
+  static void decodeFailed(Failure reason) {
+    if (!AVAILABLE) return;
+    DecodeFailure event = new DecodeFailure();
+    if (!event.isEnabled()) return;
+    event.reason = reason.name();
+    event.commit();
+  }
+
+  /**
+   * @return the event to pass to {@link #batchEnd(Object, String, int)} after the batch is done,
+   *     or null if events are not available
+   */
+  static Object batchBegin() {
+    if (!AVAILABLE) return null;
+    BatchOperation event = new BatchOperation();
+    event.begin();
+    return event;
+  }
+
+  static void batchEnd(Object event, String operation, int count) {
+    if (event == null) return;
+    BatchOperation e = (BatchOperation) event;
+    e.end();
+    if (!e.shouldCommit()) return;
+    e.operation = operation;
+    e.count = count;
+    e.commit();
+  }
+
+  private static String modeName(char join, char flip, char pad1, char padN, char[] tables) {
+    String symbols = new String(tables);
+    if (isMode(join, flip, pad1, padN, symbols, Mode.MIXED)) return "MIXED";
+    if (isMode(join, flip, pad1, padN, symbols, Mode.LOWER)) return "LOWER";
+    if (isMode(join, flip, pad1, padN, symbols, Mode.UPPER)) return "UPPER";
+    if (isMode(join, flip, pad1, padN, symbols, Mode.XSAFE)) return "XSAFE";
+    if (isMode(join, flip, pad1, padN, symbols, Mode.SHAPE)) return "SHAPE";
+    if (isMode(join, flip, pad1, padN, symbols, Mode.DENSE16)) return "DENSE16";
+    if (isMode(join, flip, pad1, padN, symbols, Mode.DENSE32)) return "DENSE32";
+    if (isMode(join, flip, pad1, padN, symbols, Mode.DENSE64)) return "DENSE64";
+    return "custom";
+  }
+
+  private static boolean isMode(
+      char join, char flip, char pad1, char padN, String tables, Mode mode) {
+    return join == mode.join()
+        && flip == mode.flip()
+        && pad1 == mode.pad1()
+        && padN == mode.padN()
+        && String.join("", mode.tables()).equals(tables);
+  }
+
+  /*
+  Event Types
+   */
+
+  @Name("se.jbee.lusid.CoderCreated")
+  @Label("Coder Created")
+  @Description("A new coder was created (not returned from the registry)")
+  @Category("Lusid")
+  @Enabled(false)
+  @StackTrace(false)
+  static final class CoderCreated extends Event {
+
+    @Label("Mode")
+    String mode;
+
+    @Label("Minimum Length")
+    int minLength;
+
+    @Label("Lookup Table Triplets")
+    int triplets;
+  }
+
+  @Name("se.jbee.lusid.DecodeFailure")
+  @Label("Decode Failure")
+  @Description("Decoding an ID failed with an IllegalArgumentException")
+  @Category("Lusid")
+  @Enabled(false)
+  static final class DecodeFailure extends Event {
+
+    @Label("Reason")
+    String reason;
+  }
+
+  @Name("se.jbee.lusid.BatchOperation")
+  @Label("Batch Operation")
+  @Description("Encoding or decoding many values at once took longer than the threshold")
+  @Category("Lusid")
+  @Enabled(false)
+  @Threshold("10 ms")
+  static final class BatchOperation extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Values")
+    int count;
+  }
+}
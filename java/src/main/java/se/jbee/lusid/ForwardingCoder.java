@@ -0,0 +1,256 @@
+package se.jbee.lusid;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.OptionalLong;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+
+/**
+ * Base class for {@link Coder} decorators. All methods that a {@link Coder} implementation has to
+ * provide, or usually overrides for better performance, are forwarded to the decorated coder.
+ *
+ * @author Jan Bernitt
+ */
+abstract class ForwardingCoder implements Coder {
+
+  final Coder delegate;
+
+  ForwardingCoder(Coder delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public String encodeLong(long value) {
+    return delegate.encodeLong(value);
+  }
+
+  @Override
+  public long decodeLong(CharSequence id, int from, int to) {
+    return delegate.decodeLong(id, from, to);
+  }
+
+  @Override
+  public OptionalLong tryDecodeLong(CharSequence id, int from, int to) {
+    return delegate.tryDecodeLong(id, from, to);
+  }
+
+  @Override
+  public boolean isValid(CharSequence id, int from, int to) {
+    return delegate.isValid(id, from, to);
+  }
+
+  @Override
+  public String encodeLongs(long... values) {
+    return delegate.encodeLongs(values);
+  }
+
+  @Override
+  public long[] decodeLongs(CharSequence id, int from, int to) {
+    return delegate.decodeLongs(id, from, to);
+  }
+
+  @Override
+  public int decodeLongs(CharSequence id, int from, int to, LongConsumer consumer) {
+    return delegate.decodeLongs(id, from, to, consumer);
+  }
+
+  @Override
+  public PrimitiveIterator.OfLong decodeLongIterator(CharSequence id, int from, int to) {
+    return delegate.decodeLongIterator(id, from, to);
+  }
+
+  @Override
+  public String encodeDeltaLongs(long... values) {
+    return delegate.encodeDeltaLongs(values);
+  }
+
+  @Override
+  public String encodeInts(int... values) {
+    return delegate.encodeInts(values);
+  }
+
+  @Override
+  public int[] decodeInts(String id) {
+    return delegate.decodeInts(id);
+  }
+
+  @Override
+  public String encodeDoubles(double... values) {
+    return delegate.encodeDoubles(values);
+  }
+
+  @Override
+  public double[] decodeDoubles(String id) {
+    return delegate.decodeDoubles(id);
+  }
+
+  @Override
+  public String encodeCompactDoubles(double... values) {
+    return delegate.encodeCompactDoubles(values);
+  }
+
+  @Override
+  public double[] decodeCompactDoubles(String id) {
+    return delegate.decodeCompactDoubles(id);
+  }
+
+  @Override
+  public int encodedUuidLength() {
+    return delegate.encodedUuidLength();
+  }
+
+  @Override
+  public String encodeUuid(long mostSigBits, long leastSigBits) {
+    return delegate.encodeUuid(mostSigBits, leastSigBits);
+  }
+
+  @Override
+  public int encodeUuidInto(long mostSigBits, long leastSigBits, char[] dst, int offset) {
+    return delegate.encodeUuidInto(mostSigBits, leastSigBits, dst, offset);
+  }
+
+  @Override
+  public long decodeUuidMostSigBits(CharSequence id, int from, int to) {
+    return delegate.decodeUuidMostSigBits(id, from, to);
+  }
+
+  @Override
+  public long decodeUuidLeastSigBits(CharSequence id, int from, int to) {
+    return delegate.decodeUuidLeastSigBits(id, from, to);
+  }
+
+  @Override
+  public String encodeName(String value) {
+    return delegate.encodeName(value);
+  }
+
+  @Override
+  public String decodeName(String id) {
+    return delegate.decodeName(id);
+  }
+
+  @Override
+  public String encodeText(String value) {
+    return delegate.encodeText(value);
+  }
+
+  @Override
+  public String decodeText(String id) {
+    return delegate.decodeText(id);
+  }
+
+  @Override
+  public String encodePackedText(String value) {
+    return delegate.encodePackedText(value);
+  }
+
+  @Override
+  public String decodePackedText(String id) {
+    return delegate.decodePackedText(id);
+  }
+
+  @Override
+  public long encodeText(Reader text, Writer id) throws IOException {
+    return delegate.encodeText(text, id);
+  }
+
+  @Override
+  public long decodeText(Reader id, Writer text) throws IOException {
+    return delegate.decodeText(id, text);
+  }
+
+  @Override
+  public long encodeText(ReadableByteChannel text, WritableByteChannel id) throws IOException {
+    return delegate.encodeText(text, id);
+  }
+
+  @Override
+  public long decodeText(ReadableByteChannel id, WritableByteChannel text) throws IOException {
+    return delegate.decodeText(id, text);
+  }
+
+  @Override
+  public int encodedLength(long value) {
+    return delegate.encodedLength(value);
+  }
+
+  @Override
+  public int encodeLongInto(long value, char[] dst, int offset) {
+    return delegate.encodeLongInto(value, dst, offset);
+  }
+
+  @Override
+  public <A extends Appendable> A encodeLongInto(long value, A dst) {
+    return delegate.encodeLongInto(value, dst);
+  }
+
+  @Override
+  public int encodeLongInto(long value, byte[] dst, int offset) {
+    return delegate.encodeLongInto(value, dst, offset);
+  }
+
+  @Override
+  public int encodeLongInto(long value, ByteBuffer dst) {
+    return delegate.encodeLongInto(value, dst);
+  }
+
+  @Override
+  public int encodedLength(long... values) {
+    return delegate.encodedLength(values);
+  }
+
+  @Override
+  public int encodeLongsInto(long[] values, byte[] dst, int offset) {
+    return delegate.encodeLongsInto(values, dst, offset);
+  }
+
+  @Override
+  public int encodeLongsInto(long[] values, ByteBuffer dst) {
+    return delegate.encodeLongsInto(values, dst);
+  }
+
+  @Override
+  public long decodeLong(byte[] id, int from, int to) {
+    return delegate.decodeLong(id, from, to);
+  }
+
+  @Override
+  public long decodeLong(ByteBuffer id, int from, int to) {
+    return delegate.decodeLong(id, from, to);
+  }
+
+  @Override
+  public long[] decodeLongs(byte[] id, int from, int to) {
+    return delegate.decodeLongs(id, from, to);
+  }
+
+  @Override
+  public long[] decodeLongs(ByteBuffer id, int from, int to) {
+    return delegate.decodeLongs(id, from, to);
+  }
+
+  @Override
+  public Column encodeLongColumn(long[] values, int from, int to) {
+    return delegate.encodeLongColumn(values, from, to);
+  }
+
+  @Override
+  public AsciiColumn encodeLongAsciiColumn(long[] values, int from, int to) {
+    return delegate.encodeLongAsciiColumn(values, from, to);
+  }
+
+  @Override
+  public long[] decodeLongColumn(Column column) {
+    return delegate.decodeLongColumn(column);
+  }
+
+  @Override
+  public long[] decodeLongColumn(AsciiColumn column) {
+    return delegate.decodeLongColumn(column);
+  }
+}
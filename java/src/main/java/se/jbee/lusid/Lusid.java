@@ -3,114 +3,712 @@ package se.jbee.lusid;
 import static java.lang.Long.parseLong;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
+import static java.util.Objects.checkFromIndexSize;
+import static java.util.Objects.checkFromToIndex;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
 import static java.nio.charset.StandardCharsets.UTF_8;
-import static java.util.stream.Collectors.joining;
-import static java.util.stream.IntStream.range;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.PrimitiveIterator;
-import java.util.function.LongToIntFunction;
-import java.util.stream.IntStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
 
 /**
  * Implementation of the <i>Locally Unique Short Identifier</i> encoder/decoder algorithm.
  *
+ * <p>In the standard modes each half (32 bits) of a long is encoded right to left, one symbol for
+ * each 3 bits while cycling through the {@link #tables}. The table of the first symbol of a half
+ * encodes 2 more bits. Dense modes (16, 32 or 64 symbols per table) do not use the table offset,
+ * all bits of a symbol are data, and encode a long as a whole (not in halves) so that no symbol is
+ * wasted on the partial bits of each half.
+ *
  * @author Jan Bernitt
  * @param secret the used secret
- * @param minLength the used minimum length
+ * @param minLength the used minimum length, the {@link Mode#fixedLength()} when fixed
+ * @param fixed true, if each long is encoded to exactly {@link Mode#fixedLength()} characters
+ *     without padding or flip marker, see {@link Coder#ofFixedLength(long, Mode)}
  * @param join character used to combine/join/split multiple values
  * @param flip character used to indicate a bit flipped value (encoded as marker + flipped number)
  * @param pad1 character used to fill a single padding character
  * @param padN character used to indicate multiple filler characters
+ * @param bits number of bits encoded per symbol, 3 for the standard modes, 4-6 for dense modes
  * @param tables encoding tables used, all {@link Mode#tables()} are collapsed to a single lookup
  *     table
+ * @param symbols reverse lookup of the {@link #tables} and special symbols used when decoding
+ * @param chunks lookup tables to de/encode multiple triplets with a single lookup, null when each
+ *     triplet is looked up in the {@link #tables} (the default)
  */
-record Lusid(long secret, int minLength, char join, char flip, char pad1, char padN, char[] tables)
+record Lusid(
+    long secret,
+    int minLength,
+    boolean fixed,
+    char join,
+    char flip,
+    char pad1,
+    char padN,
+    int bits,
+    char[] tables,
+    SymbolIndex symbols,
+    ChunkTables chunks)
     implements Coder {
 
   /** The largest positive number that can be expressed in 19 characters. */
-  private static final long MAX_19 = ~((1L << 63) | (1L << 62) | (1L << 61));
+  static final long MAX_19 = ~((1L << 63) | (1L << 62) | (1L << 61));
+
+  /** The maximum number of characters needed to encode any long value (in any mode). */
+  private static final int MAX_LENGTH = 20;
+
+  /**
+   * @return number of bits encoded by the table of the first symbol, only modes with 8 symbols per
+   *     table have the 4 distinct tables this requires
+   */
+  static int offsetBits(int bits) {
+    return bits == 3 ? 2 : 0;
+  }
+
+  /** Number of symbols needed to encode 32 bits in a standard mode */
+  private static final int HALF_LENGTH = 10;
+
+  /**
+   * @return number of symbols needed to encode 64 bits, 20 for the standard modes, 16, 13 or 11 for
+   *     dense modes
+   */
+  static int wordLength(int bits) {
+    return bits == 3 ? 2 * HALF_LENGTH : (64 + bits - 1) / bits;
+  }
+
+  /**
+   * Result of decoding up to 32 bits of an invalid ID when not decoding strictly (valid results are
+   * never negative).
+   */
+  private static final long INVALID = -1L;
+
+  /**
+   * Buffers used when the target or source is not a char array or {@link CharSequence} (to not
+   * allocate one per ID). An ID is fully encoded before it is copied to the target so these are
+   * never used recursively.
+   */
+  private static final class Scratch {
+
+    /** Larger IDs do not keep their scratch array to not hold on to large arrays forever */
+    private static final int MAX_KEPT_LENGTH = 1024;
+
+    char[] chars = new char[MAX_LENGTH];
+    byte[] bytes = new byte[MAX_LENGTH];
+    long[] longs = new long[MAX_LENGTH];
+    final AsciiChars ascii = new AsciiChars();
+
+    /** Set when decoding a dense mode word not strictly failed */
+    boolean invalid;
+
+    char[] chars(int length) {
+      if (length <= chars.length) return chars;
+      if (length > MAX_KEPT_LENGTH) return new char[length];
+      chars = new char[length];
+      return chars;
+    }
+
+    long[] longs(int length) {
+      if (length > longs.length) longs = new long[length];
+      return longs;
+    }
+
+    /**
+     * @return a copy of {@link #longs} with twice the length that replaces it
+     */
+    long[] moreLongs() {
+      longs = Arrays.copyOf(longs, 2 * longs.length);
+      return longs;
+    }
+
+    /** Larger {@link #longs} are only used until they are released to not keep them forever */
+    void releaseLongs() {
+      if (longs.length > MAX_KEPT_LENGTH) longs = new long[MAX_LENGTH];
+    }
+
+    byte[] bytes(int length) {
+      if (length <= bytes.length) return bytes;
+      if (length > MAX_KEPT_LENGTH) return new byte[length];
+      bytes = new byte[length];
+      return bytes;
+    }
+  }
+
+  /**
+   * OBS! Not using {@link ThreadLocal#withInitial} to not pay for bootstrapping a lambda when the
+   * first coder is created (cold start).
+   */
+  private static final ThreadLocal<Scratch> SCRATCH =
+      new ThreadLocal<>() {
+        @Override
+        protected Scratch initialValue() {
+          return new Scratch();
+        }
+      };
+
+  /**
+   * Checking for the optional {@code jdk.incubator.vector} module is deferred until the first
+   * column is encoded as it costs a few milliseconds.
+   */
+  private static final class Vectorization {
+
+    /**
+     * True, when the optional {@code jdk.incubator.vector} module is available (and usable) so that
+     * columns can be encoded using the {@link VectorEncoder}.
+     */
+    static final boolean AVAILABLE = isVectorAvailable();
+
+    private static boolean isVectorAvailable() {
+      Optional<Module> vector = ModuleLayer.boot().findModule("jdk.incubator.vector");
+      return vector.isPresent()
+          && Lusid.class.getModule().canRead(vector.get())
+          && VectorEncoder.isSupported();
+    }
+  }
+
+  /**
+   * @return true, if batches are encoded using the {@link VectorEncoder}
+   */
+  static boolean isVectorized() {
+    return Vectorization.AVAILABLE;
+  }
+
+  /**
+   * Maximum number of coders and modes kept in the registry. Coders for more secrets (e.g. one per
+   * tenant) are still created but are not shared to not hold on to an unbounded number of coders.
+   */
+  private static final int MAX_REGISTERED = 1024;
 
-  static Coder coder(long secret, String secretProperty, int minLength, Mode mode) {
+  /**
+   * Identity of a coder as given by the user (the secret is not enhanced yet). A secret read from a
+   * system property or environment variable is identified by its text (the secret then is 0).
+   *
+   * <p>OBS! Equality is implemented explicitly as the record's generated methods (also for {@link
+   * Mode}) are bootstrapped using method handles which adds tens of milliseconds to the creation
+   * of the first coder (cold start).
+   */
+  private record Key(long secret, String secretText, int minLength, boolean fixed, Mode mode) {
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof Key other
+          && secret == other.secret
+          && Objects.equals(secretText, other.secretText)
+          && minLength == other.minLength
+          && fixed == other.fixed
+          && isEqual(mode, other.mode);
+    }
+
+    @Override
+    public int hashCode() {
+      int hash = Long.hashCode(secret) * 31 + Objects.hashCode(secretText);
+      return ((hash * 31 + minLength) * 31 + (fixed ? 1 : 0)) * 31 + modeHashCode(mode);
+    }
+  }
+
+  private static boolean isEqual(Mode a, Mode b) {
+    return a == b
+        || a.join() == b.join()
+            && a.flip() == b.flip()
+            && a.pad1() == b.pad1()
+            && a.padN() == b.padN()
+            && a.tables().equals(b.tables());
+  }
+
+  private static int modeHashCode(Mode mode) {
+    return ((mode.join() * 31 + mode.flip()) * 31 + mode.pad1()) * 31
+        + mode.padN()
+        + mode.tables().hashCode();
+  }
+
+  /** The data derived from a {@link Mode} that does not depend on the secret or minimum length */
+  private record ModeTables(char[] tables, SymbolIndex symbols) {}
+
+  private static final Map<Key, Coder> CODERS = new ConcurrentHashMap<>();
+  /** Tables by {@link Key} with secret 0 and minimum length 0 (only the mode is relevant) */
+  private static final Map<Key, ModeTables> MODES = new ConcurrentHashMap<>();
+
+  /**
+   * @param fixed true to encode each long to exactly {@link Mode#fixedLength()} characters, the
+   *     minimum length then must be the fixed length
+   */
+  static Coder coder(
+      long secret, String secretProperty, int minLength, boolean fixed, Mode mode) {
     minLength = max(1, min(20, minLength));
-    if (secret == 0L) secret = parseSecretProperty(secretProperty);
-    secret = secretEnhance(secret);
-    char[] tables = mode.tables().stream().limit(13).collect(joining()).toCharArray();
-    return new Lusid(secret, minLength, mode.join(), mode.flip(), mode.pad1(), mode.padN(), tables);
+    if (secret == 0L) {
+      String secretText = secretPropertyText(secretProperty);
+      Key key = new Key(0L, secretText, minLength, fixed, mode);
+      Coder registered = CODERS.get(key);
+      if (registered != null) return registered;
+      // the text is only parsed for the first coder using it
+      return register(CODERS, key, coder(parseLong(secretText), minLength, fixed, mode));
+    }
+    return coder(secret, minLength, fixed, mode);
+  }
+
+  private static Coder coder(long secret, int minLength, boolean fixed, Mode mode) {
+    Key key = new Key(secret, null, minLength, fixed, mode);
+    Coder registered = CODERS.get(key);
+    if (registered != null) return registered;
+    Object event = FlightEvents.coderCreating();
+    Key modeKey = new Key(0L, null, 0, false, mode);
+    ModeTables tables = MODES.get(modeKey);
+    if (tables == null) tables = register(MODES, modeKey, modeTables(mode));
+    Lusid coder =
+        new Lusid(
+            secretEnhance(secret),
+            minLength,
+            fixed,
+            mode.join(),
+            mode.flip(),
+            mode.pad1(),
+            mode.padN(),
+            mode.bits(),
+            tables.tables,
+            tables.symbols,
+            null);
+    FlightEvents.coderCreated(event, coder, 1);
+    return register(CODERS, key, coder);
+  }
+
+  /**
+   * @return the registered value which is either the given value or the value that another thread
+   *     registered concurrently
+   */
+  private static <K, V> V register(Map<K, V> registry, K key, V value) {
+    if (registry.size() >= MAX_REGISTERED) return value;
+    V existing = registry.putIfAbsent(key, value);
+    return existing != null ? existing : value;
   }
 
-  private static long parseSecretProperty(String secretProperty) {
-    String secretStr = System.getProperty(secretProperty, System.getenv(secretProperty));
+  private static ModeTables modeTables(Mode mode) {
+    List<String> modeTables = mode.tables();
+    int tableCount = modeTables.size();
+    int size = 1 << mode.bits();
+    char[] tables = new char[tableCount * size];
+    for (int i = 0; i < tableCount; i++) modeTables.get(i).getChars(0, size, tables, i * size);
+    char join = mode.join(), flip = mode.flip(), pad1 = mode.pad1(), padN = mode.padN();
+    return new ModeTables(tables, new SymbolIndex(join, flip, pad1, padN, tables, size));
+  }
+
+  @Override
+  public Coder withLookupTables(int triplets) {
+    if (triplets < 1 || triplets > 4)
+      throw new IllegalArgumentException("Triplets must be 1-4 but was: " + triplets);
+    if (bits != 3)
+      throw new IllegalStateException(
+          "Lookup tables require a mode with 8 symbols per table but this mode has "
+              + (1 << bits));
+    Object event = FlightEvents.coderCreating();
+    ChunkTables chunks = triplets == 1 ? null : ChunkTables.of(tables, triplets);
+    Lusid coder =
+        new Lusid(
+            secret, minLength, fixed, join, flip, pad1, padN, bits, tables, symbols, chunks);
+    FlightEvents.coderCreated(event, coder, triplets);
+    return coder;
+  }
+
+  /**
+   * The text is read each time as a system property can change, the environment is only read when
+   * the property is not set.
+   */
+  private static String secretPropertyText(String secretProperty) {
+    String secretStr = System.getProperty(secretProperty);
+    if (secretStr == null) secretStr = System.getenv(secretProperty);
     if (secretStr == null || secretStr.isEmpty())
       throw new IllegalArgumentException(
           "Secret must be defined for system property or environment variable named: "
               + secretProperty);
-    return parseLong(secretStr);
+    return secretStr;
+  }
+
+  /** Number of bits of a name unit (a letter) */
+  static final int NAME_UNIT_BITS = 5;
+
+  /** Number of bits of a text unit (a UTF-8 byte) */
+  static final int TEXT_UNIT_BITS = 8;
+
+  /**
+   * @return number of bits of a packed text or UUID unit, which is encoded as a single symbol
+   */
+  private int symbolUnitBits() {
+    return offsetBits(bits) + bits;
+  }
+
+  /**
+   * @param unitBits number of bits of each unit
+   * @return number of symbols used to encode a unit, 1 for names (2 for 16 symbol tables), 2 for
+   *     text
+   */
+  int unitLength(int unitBits) {
+    int offsetBits = offsetBits(bits);
+    return (unitBits - offsetBits + bits - 1) / bits;
+  }
+
+  /**
+   * @return the rotation of the secret from one unit to the next
+   */
+  int unitRotation(int unitLength) {
+    return offsetBits(bits) + bits * unitLength;
   }
 
   @Override
   public String encodeName(String value) {
     if (value.isEmpty()) return "";
     for (int i = 0; i < value.length(); i++) checkNameLetter(value.charAt(i), i);
-    return encodeUnits(1, value.length(), value.chars().map(c -> c - '@'));
+    return encodeUnits(NAME_UNIT_BITS, value.length(), value, null);
   }
 
   @Override
   public String encodeText(String value) {
     if (value.isEmpty()) return "";
-    byte[] bytes = value.getBytes(UTF_8);
-    return encodeUnits(
-        2, bytes.length, range(0, bytes.length).map(i -> Byte.toUnsignedInt(bytes[i])));
+    Scratch scratch = SCRATCH.get();
+    byte[] utf8 = scratch.bytes(3 * value.length());
+    return encodeUnits(TEXT_UNIT_BITS, encodeUTF8(value, utf8), null, utf8);
+  }
+
+  /**
+   * Same as {@link String#getBytes(java.nio.charset.Charset)} for {@code UTF_8} just that the bytes
+   * are written to the given array (so no array is allocated per text).
+   *
+   * @param dst at least 3 times as long as the value (the maximum bytes per char)
+   * @return number of bytes written
+   */
+  static int encodeUTF8(String value, byte[] dst) {
+    int n = 0;
+    int length = value.length();
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(i);
+      if (c < 0x80) {
+        dst[n++] = (byte) c;
+      } else if (c < 0x800) {
+        dst[n++] = (byte) (0xC0 | (c >> 6));
+        dst[n++] = (byte) (0x80 | (c & 0x3F));
+      } else if (Character.isSurrogate(c)) {
+        char low = i + 1 < length ? value.charAt(i + 1) : 0;
+        if (Character.isHighSurrogate(c) && Character.isLowSurrogate(low)) {
+          int cp = Character.toCodePoint(c, low);
+          dst[n++] = (byte) (0xF0 | (cp >> 18));
+          dst[n++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+          dst[n++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+          dst[n++] = (byte) (0x80 | (cp & 0x3F));
+          i++;
+        } else {
+          dst[n++] = '?'; // same replacement as used by String#getBytes
+        }
+      } else {
+        dst[n++] = (byte) (0xE0 | (c >> 12));
+        dst[n++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        dst[n++] = (byte) (0x80 | (c & 0x3F));
+      }
+    }
+    return n;
+  }
+
+  @Override
+  public String encodePackedText(String value) {
+    if (value.isEmpty()) return "";
+    int unitBits = symbolUnitBits();
+    // 3 bytes per char at most, each 8 bits spread to 1.6 units (of 5 bits)
+    byte[] units = SCRATCH.get().bytes((24 * value.length() + unitBits - 1) / unitBits);
+    int unitCount = packedUnits(units, encodeUTF8(value, units), unitBits);
+    return encodeUnits(unitBits, unitCount, null, units);
+  }
+
+  @Override
+  public String decodePackedText(String id) {
+    if (id.isEmpty()) return "";
+    int unitBits = symbolUnitBits();
+    byte[] units = SCRATCH.get().bytes(id.length());
+    int length = unpackedBytes(units, decodeUnits(id, unitBits, null, units), unitBits);
+    return new String(units, 0, length, UTF_8);
+  }
+
+  /*
+  UUIDs
+   */
+
+  /**
+   * @return number of units per 64-bit half of a UUID, 13 units of 5 bits for the standard modes,
+   *     the first only uses the remaining bits (4 of 5 bits)
+   */
+  private int uuidHalfLength() {
+    int unitBits = symbolUnitBits();
+    return (64 + unitBits - 1) / unitBits;
+  }
+
+  @Override
+  public int encodedUuidLength() {
+    return 2 * uuidHalfLength();
+  }
+
+  @Override
+  public String encodeUuid(long mostSigBits, long leastSigBits) {
+    int length = encodedUuidLength();
+    char[] id = SCRATCH.get().chars(length);
+    encodeUuidInto(mostSigBits, leastSigBits, id, 0);
+    return new String(id, 0, length);
+  }
+
+  /**
+   * Each unit is encoded the same as the units of packed text: a single symbol that encodes 5 bits
+   * with the secret rotated from unit to unit. The first 2 bits select the table (as with the first
+   * symbol of any ID), the other 3 the symbol in the table. Dense modes only use the first table,
+   * all bits of a unit select the symbol.
+   */
+  @Override
+  public int encodeUuidInto(long mostSigBits, long leastSigBits, char[] dst, int offset) {
+    int halfLength = uuidHalfLength();
+    checkFromIndexSize(offset, 2 * halfLength, dst.length);
+    encodeUuidHalf(mostSigBits, secret, dst, offset);
+    long rotSec = Long.rotateRight(secret, symbolUnitBits() * halfLength);
+    encodeUuidHalf(leastSigBits, rotSec, dst, offset + halfLength);
+    return 2 * halfLength;
+  }
+
+  private void encodeUuidHalf(long half, long rotSec, char[] id, int offset) {
+    int offsetBits = offsetBits(bits);
+    int offsetMask = (1 << offsetBits) - 1;
+    int mask = (1 << bits) - 1;
+    int unitBits = offsetBits + bits;
+    int halfLength = uuidHalfLength();
+    for (int i = 0; i < halfLength; i++) {
+      int unit = (int) (half >>> (unitBits * (halfLength - 1 - i)));
+      int secUnit = unit ^ (int) rotSec;
+      id[offset + i] = tables[((secUnit & offsetMask) << bits) + ((secUnit >>> offsetBits) & mask)];
+      rotSec = Long.rotateRight(rotSec, unitBits);
+    }
+  }
+
+  @Override
+  public long decodeUuidMostSigBits(CharSequence id, int from, int to) {
+    checkUuidLength(id, from, to);
+    return decodeUuidHalf(id, from, secret);
+  }
+
+  @Override
+  public long decodeUuidLeastSigBits(CharSequence id, int from, int to) {
+    checkUuidLength(id, from, to);
+    int halfLength = uuidHalfLength();
+    long rotSec = Long.rotateRight(secret, symbolUnitBits() * halfLength);
+    return decodeUuidHalf(id, from + halfLength, rotSec);
+  }
+
+  private void checkUuidLength(CharSequence id, int from, int to) {
+    checkFromToIndex(from, to, id.length());
+    int length = encodedUuidLength();
+    if (to - from != length)
+      throw new IllegalArgumentException(
+          "UUID ID must have %d characters but had: %d".formatted(length, to - from));
+  }
+
+  private long decodeUuidHalf(CharSequence id, int offset, long rotSec) {
+    int offsetBits = offsetBits(bits);
+    int unitBits = offsetBits + bits;
+    int unitMask = (1 << unitBits) - 1;
+    int halfLength = uuidHalfLength();
+    // the first unit only has the bits left of the 64 bits, the higher ones are never set
+    int firstBits = 64 - unitBits * (halfLength - 1);
+    long half = 0;
+    for (int i = 0; i < halfLength; i++) {
+      char s = id.charAt(offset + i);
+      int tableNr = offsetBits == 0 ? 0 : symbols.tableOffset(s);
+      if (tableNr < 0) {
+        FlightEvents.decodeFailed(FlightEvents.Failure.OFFSET);
+        throw new IllegalArgumentException(
+            "Unexpected offset: `%s` (at %d)".formatted(s, offset + i));
+      }
+      int index = symbols.tableIndex(tableNr, s);
+      int unit = (((index << offsetBits) | tableNr) ^ (int) rotSec) & unitMask;
+      if (index < 0 || i == 0 && unit >>> firstBits != 0) {
+        FlightEvents.decodeFailed(FlightEvents.Failure.SYMBOL);
+        throw new IllegalArgumentException(
+            "Unexpected symbol: `%s` (at %d)".formatted(s, offset + i));
+      }
+      half = (half << unitBits) | unit;
+      rotSec = Long.rotateRight(rotSec, unitBits);
+    }
+    return half;
   }
 
-  private String encodeUnits(int unitLength, int unitCount, IntStream units) {
+  /**
+   * Spreads the bits of the bytes (highest first) over units of 4-6 bits in place. The last unit is
+   * filled up with zero bits.
+   *
+   * <p>Going backwards each unit is written to an index at or after the bytes it is read from, so
+   * no byte is overwritten before it has been read.
+   *
+   * @param buf the bytes at the start, and afterwards the units at the start
+   * @param unitBits number of bits per unit, 5 for the standard modes
+   * @return the number of units
+   */
+  static int packedUnits(byte[] buf, int byteCount, int unitBits) {
+    int unitCount = (8 * byteCount + unitBits - 1) / unitBits;
+    int mask = (1 << unitBits) - 1;
+    for (int k = unitCount - 1; k >= 0; k--) {
+      int bit = unitBits * k;
+      int j = bit >>> 3;
+      int hi = Byte.toUnsignedInt(buf[j]) << 8;
+      int lo = j + 1 < byteCount ? Byte.toUnsignedInt(buf[j + 1]) : 0;
+      buf[k] = (byte) (((hi | lo) >>> (16 - unitBits - (bit & 7))) & mask);
+    }
+    return unitCount;
+  }
+
+  /**
+   * Reverse of {@link #packedUnits(byte[], int, int)}. Bits of an incomplete last byte are ignored.
+   *
+   * @param buf the units at the start, and afterwards the bytes at the start
+   * @param unitBits number of bits per unit, 5 for the standard modes
+   * @return the number of bytes
+   */
+  static int unpackedBytes(byte[] buf, int unitCount, int unitBits) {
+    int byteCount = unitBits * unitCount / 8;
+    int mask = (1 << unitBits) - 1;
+    for (int j = 0; j < byteCount; j++) {
+      int bit = 8 * j;
+      int k = bit / unitBits;
+      int lo = k + 2 < unitCount ? buf[k + 2] & mask : 0;
+      int window = ((buf[k] & mask) << (2 * unitBits)) | ((buf[k + 1] & mask) << unitBits) | lo;
+      buf[j] = (byte) (window >>> (3 * unitBits - 8 - (bit - unitBits * k)));
+    }
+    return byteCount;
+  }
+
+  /**
+   * Encodes either the letters of a name or the units of a text.
+   *
+   * @param unitBits number of bits of each unit, {@link #NAME_UNIT_BITS}, {@link #TEXT_UNIT_BITS}
+   *     or the bits of a single symbol for packed text
+   * @param name the name to encode with one unit per letter, null when encoding text
+   * @param units the text to encode with one unit per byte (the UTF-8 bytes, or the 5-bit groups of
+   *     packed text), null when encoding a name
+   */
+  String encodeUnits(int unitBits, int unitCount, String name, byte[] units) {
+    int unitLength = unitLength(unitBits);
+    int rotation = unitRotation(unitLength);
     int dataLength = unitLength * unitCount;
     int length = max(min(minLength, dataLength + 9), dataLength);
     int padLength = length - dataLength;
-    char[] id = new char[length];
+    char[] id = SCRATCH.get().chars(length);
     long rotSec = secret;
-    PrimitiveIterator.OfInt iter = units.iterator();
-    encode(iter.nextInt(), (int) rotSec, id, 0, padLength + unitLength, unitLength);
+    encode(unitAt(0, name, units), (int) rotSec, id, 0, padLength + unitLength, unitLength);
     for (int i = 1; i < unitCount; i++) {
-      rotSec = Long.rotateRight(rotSec, 2 + (3 * unitLength));
-      encode(iter.nextInt(), (int) rotSec, id, padLength + (i * unitLength), unitLength, unitLength);
+      rotSec = Long.rotateRight(rotSec, rotation);
+      int unit = unitAt(i, name, units);
+      encode(unit, (int) rotSec, id, padLength + (i * unitLength), unitLength, unitLength);
     }
-    return new String(id);
+    return new String(id, 0, length);
+  }
+
+  private static int unitAt(int i, String name, byte[] units) {
+    return units != null ? Byte.toUnsignedInt(units[i]) : name.charAt(i) - '@';
   }
 
   @Override
   public String decodeName(String id) {
     if (id.isEmpty()) return "";
-    int[] chars = decodeUnits(id, 1, v -> (int) (v + '@'));
-    return new String(chars, 0, chars.length);
+    char[] name = SCRATCH.get().chars(id.length());
+    int length = decodeUnits(id, NAME_UNIT_BITS, name, null);
+    return new String(name, 0, length);
   }
 
   @Override
   public String decodeText(String id) {
     if (id.isEmpty()) return "";
-    int[] bytes = decodeUnits(id, 2, v -> (int) v);
-    byte[] utf8 = new byte[bytes.length];
-    for (int i = 0; i < utf8.length; i++) utf8[i] = (byte) (bytes[i] & 0xFF);
-    return new String(utf8, UTF_8);
+    byte[] utf8 = SCRATCH.get().bytes(id.length() / 2);
+    int length = decodeUnits(id, TEXT_UNIT_BITS, null, utf8);
+    return new String(utf8, 0, length, UTF_8);
   }
 
-  private int[] decodeUnits(String id, int unitLength, LongToIntFunction toCodePoint) {
-    char[] src = id.toCharArray();
-    int padIndex = decodePadIndex(src, 0, src.length);
+  /**
+   * Decodes either the letters of a name or the units of a text.
+   *
+   * @param unitBits number of bits of each unit as used by {@link #encodeUnits(int, int, String,
+   *     byte[])}
+   * @param name target for the letters of a name, null when decoding text
+   * @param units target for the units of a text (one per byte), null when decoding a name
+   * @return number of units decoded
+   */
+  int decodeUnits(String id, int unitBits, char[] name, byte[] units) {
+    int unitLength = unitLength(unitBits);
+    int rotation = unitRotation(unitLength);
+    int padIndex = decodePadIndex(id, 0, id.length(), -1, -1);
     int padLength = 0;
     if (padIndex >= 0) {
-      swap(src, 0, padIndex);
-      padLength = src[0] == pad1 ? 1 : 2 + (decodeNamePadLength(src[1]) ^ ((int) secret & 0b111));
+      // the pad marker was swapped from index 0 to the padIndex
+      if (id.charAt(padIndex) == pad1) {
+        padLength = 1;
+      } else if (id.length() > 2) {
+        int padEncoded = decodeNamePadLength(symbolAt(id, 1, padIndex, 0));
+        padLength = 2 + (padEncoded ^ ((int) secret & ((1 << bits) - 1)));
+      } else {
+        padLength = id.length(); // no room for the pad length and data
+      }
+      // padding is only used with at least 1 unit of data
+      if (padLength >= id.length()) {
+        FlightEvents.decodeFailed(FlightEvents.Failure.PADDING);
+        throw new IllegalArgumentException(
+            "Unexpected padding: `%s` (at %d)".formatted(id.charAt(padIndex), padIndex));
+      }
     }
-    int dataLength = src.length - padLength;
+    int dataLength = id.length() - padLength;
     int unitCount = dataLength / unitLength;
-    int[] value = new int[unitCount];
     long rotSec = secret;
     for (int i = 0; i < unitCount; i++) {
-      long unitValue = decode(src, padLength + (i * unitLength), unitLength, (int) rotSec);
-      value[i] = toCodePoint.applyAsInt(unitValue);
-      rotSec = Long.rotateRight(rotSec, 2 + (3 * unitLength));
+      int unitOffset = padLength + (i * unitLength);
+      long unitValue = decode(id, unitOffset, unitLength, (int) rotSec, padIndex, 0);
+      // the symbols of a unit can have more bits than the unit (in dense modes)
+      if (unitValue >>> unitBits != 0) {
+        FlightEvents.decodeFailed(FlightEvents.Failure.SYMBOL);
+        throw new IllegalArgumentException(
+            "Unexpected symbols: `%s` (at %d)"
+                .formatted(id.substring(unitOffset, unitOffset + unitLength), unitOffset));
+      }
+      if (units != null) {
+        units[i] = (byte) unitValue;
+      } else {
+        name[i] = (char) (unitValue + '@');
+      }
+      rotSec = Long.rotateRight(rotSec, rotation);
     }
-    return value;
+    return unitCount;
+  }
+
+  @Override
+  public long encodeText(Reader text, Writer id) throws IOException {
+    return TextStreams.encode(this, TextStreams.utf8Of(text), id::write);
+  }
+
+  @Override
+  public long decodeText(Reader id, Writer text) throws IOException {
+    return TextStreams.decode(this, id::read, TextStreams.utf8To(text));
+  }
+
+  @Override
+  public long encodeText(ReadableByteChannel text, WritableByteChannel id) throws IOException {
+    checkAscii();
+    return TextStreams.encode(this, TextStreams.bytesOf(text), TextStreams.charsTo(id));
+  }
+
+  @Override
+  public long decodeText(ReadableByteChannel id, WritableByteChannel text) throws IOException {
+    checkAscii();
+    return TextStreams.decode(this, TextStreams.charsOf(id), TextStreams.bytesTo(text));
   }
 
   /**
@@ -118,29 +716,137 @@ record Lusid(long secret, int minLength, char join, char flip, char pad1, char p
    * padding length so all tables need to be searched.
    */
   private int decodeNamePadLength(char padEncoded) {
-    for (int i = 0; i < tables.length; i++) if (tables[i] == padEncoded) return i % 8;
+    int padLength = symbols.firstIndex(padEncoded);
+    if (padLength >= 0) return padLength;
+    FlightEvents.decodeFailed(FlightEvents.Failure.PADDING);
     throw new IllegalArgumentException("Illegal padding length character: " + padEncoded);
   }
 
   @Override
   public String encodeLongs(long... values) {
-    int count = values.length;
+    return encodeLongs(values, values.length);
+  }
+
+  @Override
+  public String encodeInts(int... values) {
+    Scratch scratch = SCRATCH.get();
+    long[] longs = scratch.longs(values.length);
+    try {
+      for (int i = 0; i < values.length; i++) longs[i] = values[i];
+      return encodeLongs(longs, values.length);
+    } finally {
+      scratch.releaseLongs();
+    }
+  }
+
+  @Override
+  public String encodeDoubles(double... values) {
+    Scratch scratch = SCRATCH.get();
+    long[] longs = scratch.longs(values.length);
+    try {
+      for (int i = 0; i < values.length; i++) longs[i] = Double.doubleToRawLongBits(values[i]);
+      return encodeLongs(longs, values.length);
+    } finally {
+      scratch.releaseLongs();
+    }
+  }
+
+  @Override
+  public String encodeCompactDoubles(double... values) {
+    Scratch scratch = SCRATCH.get();
+    long[] longs = scratch.longs(values.length);
+    try {
+      for (int i = 0; i < values.length; i++)
+        longs[i] = Long.reverse(Double.doubleToRawLongBits(values[i]));
+      return encodeLongs(longs, values.length);
+    } finally {
+      scratch.releaseLongs();
+    }
+  }
+
+  @Override
+  public String encodeDeltaLongs(long... values) {
+    Scratch scratch = SCRATCH.get();
+    long[] longs = scratch.longs(values.length);
+    try {
+      DeltaCoding.deltas(values, longs);
+      return encodeLongs(longs, values.length);
+    } finally {
+      scratch.releaseLongs();
+    }
+  }
+
+  /**
+   * @param count number of values to encode (from index zero)
+   */
+  private String encodeLongs(long[] values, int count) {
     if (count == 0) return "";
     if (count == 1) return encodeLong(values[0]);
-    int dataLength = 0;
-    for (long v : values) dataLength += encodingMinLength(v);
-    dataLength += count - 1; // for the join characters
-    int padAvgLength = 0;
-    int padLength0 = 0;
-    if (dataLength < minLength) {
-      padAvgLength = (minLength - dataLength) / count;
-      padLength0 = ((minLength - dataLength) % count) + padAvgLength;
+    Scratch scratch = SCRATCH.get();
+    byte[] minLengths = scratch.bytes(count);
+    int dataLength = joinedDataLength(values, count, minLengths);
+    int length = joinedLength(values, count, dataLength, minLengths);
+    char[] id = scratch.chars(length);
+    encodeLongs(values, count, dataLength, minLengths, id, 0);
+    return new String(id, 0, length);
+  }
+
+  /**
+   * Encodes multiple values joined by the {@link #join} symbol into the given array.
+   *
+   * @param count number of values to encode (from index zero), at least 2
+   * @param dataLength as computed by {@link #joinedDataLength(long[], int, byte[])}
+   * @param minLengths as computed by {@link #joinedDataLength(long[], int, byte[])}
+   * @return the number of characters written
+   */
+  private int encodeLongs(
+      long[] values, int count, int dataLength, byte[] minLengths, char[] id, int at) {
+    int length = 0;
+    for (int i = 0; i < count; i++) {
+      if (i > 0) id[at + length++] = join;
+      int valueMinLength = joinedPadLength(i, count, dataLength) + minLengths[i];
+      length += encodeLong(values[i], valueMinLength, id, at + length);
+    }
+    return length;
+  }
+
+  /**
+   * @return the exact number of characters {@link #encodeLongs(long[], int, int, byte[], char[],
+   *     int)} writes
+   */
+  private int joinedLength(long[] values, int count, int dataLength, byte[] minLengths) {
+    int length = count - 1; // for the join characters
+    for (int i = 0; i < count; i++) {
+      int valueMinLength = joinedPadLength(i, count, dataLength) + minLengths[i];
+      length += encodingLength(values[i], valueMinLength);
+    }
+    return length;
+  }
+
+  /**
+   * @param minLengths filled with the minimum length of each value (so it is computed only once)
+   * @return the sum of the minimum lengths of the values plus the join characters
+   */
+  private int joinedDataLength(long[] values, int count, byte[] minLengths) {
+    int dataLength = count - 1; // for the join characters
+    for (int i = 0; i < count; i++) {
+      int valueMinLength = encodingMinLength(values[i]);
+      minLengths[i] = (byte) valueMinLength;
+      dataLength += valueMinLength;
     }
-    StringBuilder id = new StringBuilder(max(minLength, dataLength));
-    id.append(encodeLong(values[0], padLength0 + encodingMinLength(values[0])));
-    for (int i = 1; i < count; i++)
-      id.append(join).append(encodeLong(values[i], padAvgLength + encodingMinLength(values[i])));
-    return id.toString();
+    return dataLength;
+  }
+
+  /**
+   * When multiple values are joined the padding needed to reach the minimum length is distributed
+   * evenly, the first value also gets the remainder.
+   *
+   * @return the padding of the i-th value joined
+   */
+  private int joinedPadLength(int i, int count, int dataLength) {
+    if (dataLength >= minLength) return 0;
+    int padAvgLength = (minLength - dataLength) / count;
+    return i > 0 ? padAvgLength : padAvgLength + (minLength - dataLength) % count;
   }
 
   @Override
@@ -149,33 +855,158 @@ record Lusid(long secret, int minLength, char join, char flip, char pad1, char p
   }
 
   private String encodeLong(long value, int minLength) {
-    boolean doFlip = isFlipPreferable(value);
+    char[] id = new char[encodingLength(value, minLength)];
+    encodeLong(value, minLength, id, 0);
+    return new String(id);
+  }
+
+  @Override
+  public int encodedLength(long value) {
+    return encodingLength(value, minLength);
+  }
+
+  @Override
+  public int encodeLongInto(long value, char[] dst, int offset) {
+    checkFromIndexSize(offset, encodingLength(value, minLength), dst.length);
+    return encodeLong(value, minLength, dst, offset);
+  }
+
+  @Override
+  public <A extends Appendable> A encodeLongInto(long value, A dst) {
+    char[] id = SCRATCH.get().chars;
+    int length = encodeLong(value, minLength, id, 0);
+    try {
+      if (dst instanceof StringBuilder sb) {
+        sb.append(id, 0, length);
+      } else {
+        for (int i = 0; i < length; i++) dst.append(id[i]);
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+    return dst;
+  }
+
+  /**
+   * @return the exact number of characters {@link #encodeLong(long, int, char[], int)} writes for
+   *     the value and minimum length
+   */
+  private int encodingLength(long value, int minLength) {
+    if (isDense()) return encodingWordLength(value, minLength);
+    int halfLength = HALF_LENGTH;
+    if (fixed) return 2 * halfLength;
+    boolean doFlip = isFlipPreferable(value, maxFlipped());
+    if (doFlip) value = ~value;
+    int highValue = highInt(value);
+    int dataLength =
+        minLength <= halfLength && highValue == 0
+            ? dataLength(lowInt(value))
+            : dataLength(highValue) + halfLength;
+    int length = max(minLength, dataLength);
+    if (doFlip && length > dataLength) length--;
+    return (doFlip ? 1 : 0) + length;
+  }
+
+  /**
+   * Encodes the value into the given array starting at the given index.
+   *
+   * @return number of characters written
+   */
+  private int encodeLong(long value, int minLength, char[] id, int at) {
+    if (isDense()) return encodeWord(value, minLength, id, at);
+    int halfLength = HALF_LENGTH;
+    if (fixed) {
+      // both halves use all symbols so there never is padding or a flip marker
+      encode(highInt(value), highInt(secret), id, at, halfLength, halfLength);
+      encode(lowInt(value), lowInt(secret), id, at + halfLength, halfLength, halfLength);
+      return 2 * halfLength;
+    }
+    return encodeHalves(value, minLength, id, at, null, 0, 0);
+  }
+
+  /**
+   * Encodes a value of a standard mode (not {@link #fixed}) in two 32-bit halves: the flip
+   * decision, the length, the position of each half, the padding and the flip marker. The {@link
+   * VectorEncoder} only computes the data symbols, so that any ID has the same layout no matter how
+   * its symbols were looked up.
+   *
+   * @param indexes the index in the {@link #tables} of each data symbol of the value after the flip
+   *     decision; symbol i (right to left) of the low half at {@code index0 + i * stride}, of the
+   *     high half at {@code index0 + (10 + i) * stride}; null to look up the symbols here
+   * @return number of characters written
+   */
+  int encodeHalves(
+      long value, int minLength, char[] id, int at, long[] indexes, int index0, int stride) {
+    int halfLength = HALF_LENGTH;
+    boolean doFlip = isFlipPreferable(value, maxFlipped());
     if (doFlip) value = ~value;
     int lowValue = lowInt(value);
     int highValue = highInt(value);
-    int offset = doFlip ? 1 : 0;
-    char[] id;
-    if (minLength <= 10 && highValue == 0) {
-      int dataLength = encodingDataLength(lowValue);
+    int offset = at + (doFlip ? 1 : 0);
+    int end;
+    if (minLength <= halfLength && highValue == 0) {
+      int dataLength = dataLength(lowValue);
       int length = max(minLength, dataLength);
       int padLength = max(0, length - dataLength);
       if (doFlip && padLength > 0) length--;
-      id = new char[offset + length];
-      encode(lowValue, lowInt(secret), id, offset, length, dataLength);
+      end = offset + length;
+      encodeHalf(lowValue, lowInt(secret), id, offset, length, dataLength, indexes, index0, stride);
     } else {
-      int dataLength = encodingDataLength(highValue) + 10;
+      int dataLength = dataLength(highValue) + halfLength;
       int length = max(minLength, dataLength);
       int padLength = max(0, length - dataLength);
       if (doFlip && padLength > 0) length--;
-      id = new char[offset + length];
-      encode(lowValue, lowInt(secret), id, id.length - 10, 10, encodingDataLength(lowValue));
-      encode(highValue, highInt(secret), id, offset, length - 10, encodingDataLength(highValue));
+      end = offset + length;
+      int lowLength = halfLength;
+      encodeHalf(
+          lowValue,
+          lowInt(secret),
+          id,
+          end - lowLength,
+          lowLength,
+          dataLength(lowValue),
+          indexes,
+          index0,
+          stride);
+      encodeHalf(
+          highValue,
+          highInt(secret),
+          id,
+          offset,
+          length - lowLength,
+          dataLength(highValue),
+          indexes,
+          index0 + halfLength * stride,
+          stride);
     }
     if (doFlip) {
-      id[0] = flip;
-      swap(id, 0, Long.bitCount(value) % id.length);
+      id[at] = flip;
+      swap(id, at, at + Long.bitCount(value) % (end - at));
     }
-    return new String(id);
+    return end - at;
+  }
+
+  /**
+   * Same as {@link #encode(int, int, char[], int, int, int)} just that the data symbols are taken
+   * from the precomputed indexes unless they are null.
+   */
+  private void encodeHalf(
+      int value,
+      int secret,
+      char[] id,
+      int offset,
+      int length,
+      int dataLength,
+      long[] indexes,
+      int index0,
+      int stride) {
+    if (indexes == null) {
+      encode(value, secret, id, offset, length, dataLength);
+      return;
+    }
+    int idIndex = offset + length - 1;
+    for (int i = 0; i < dataLength; i++) id[idIndex--] = tables[(int) indexes[index0 + i * stride]];
+    if (length > dataLength) encodePadding(value ^ secret, secret, id, offset, length, dataLength);
   }
 
   /**
@@ -185,70 +1016,701 @@ record Lusid(long secret, int minLength, char join, char flip, char pad1, char p
    *
    * <p>OBS! bit-flip is used over negation because there is a flipped value for any bit combination
    * but there is not a positive number for the largest negative number.
+   *
+   * @param maxFlipped the largest flipped value that is shorter than the value when encoded
    */
-  private static boolean isFlipPreferable(long value) {
+  private static boolean isFlipPreferable(long value, long maxFlipped) {
     if (value >= 0) return false;
     long flipped = ~value;
-    return flipped <= MAX_19;
+    return flipped <= maxFlipped;
+  }
+
+  /**
+   * @return the largest positive number that can be expressed in 1 character less than the maximum
+   *     length, {@link #MAX_19} for the standard modes
+   */
+  private long maxFlipped() {
+    return isDense() ? (1L << (bits * (wordLength(bits) - 1))) - 1 : MAX_19;
+  }
+
+  /**
+   * @return true, if this coder uses a dense mode that encodes a long as a whole 64-bit word
+   */
+  private boolean isDense() {
+    return offsetBits(bits) == 0;
+  }
+
+  /*
+  Dense Words
+   */
+
+  /**
+   * @return the minimum number of symbols required to encode all bits of the value in a dense mode
+   */
+  private int wordDataLength(long value) {
+    return max(1, (64 - Long.numberOfLeadingZeros(value) + bits - 1) / bits);
+  }
+
+  /**
+   * The pad length symbol encodes the length minus 2, so padding can be at most 2 longer than the
+   * number of symbols in a table. This only limits {@link Mode#DENSE16} IDs of the smallest values
+   * to 18 characters when the minimum length is 19 or 20.
+   *
+   * @return the maximum number of padding symbols of a value encoded in a dense mode
+   */
+  private int maxWordPadLength() {
+    return (1 << bits) + 1;
+  }
+
+  /**
+   * @return the exact number of characters {@link #encodeWord(long, int, char[], int)} writes for
+   *     the value and minimum length
+   */
+  private int encodingWordLength(long value, int minLength) {
+    int wordLength = wordLength(bits);
+    if (fixed) return wordLength;
+    boolean doFlip = isFlipPreferable(value, maxFlipped());
+    if (doFlip) value = ~value;
+    int start = doFlip ? 1 : 0;
+    int dataLength = wordDataLength(value);
+    return start + dataLength + min(max(0, minLength - start - dataLength), maxWordPadLength());
+  }
+
+  /**
+   * Same as {@link #encodeLong(long, int, char[], int)} for dense modes. All 64 bits are encoded
+   * right to left as a whole, the flip marker and padding are the same as for a standard mode half.
+   *
+   * @return number of characters written
+   */
+  private int encodeWord(long value, int minLength, char[] id, int at) {
+    int wordLength = wordLength(bits);
+    if (fixed) {
+      encodeWord(value, id, at, wordLength, wordLength);
+      return wordLength;
+    }
+    boolean doFlip = isFlipPreferable(value, maxFlipped());
+    if (doFlip) value = ~value;
+    int start = doFlip ? 1 : 0;
+    int dataLength = wordDataLength(value);
+    int length = dataLength + min(max(0, minLength - start - dataLength), maxWordPadLength());
+    encodeWord(value, id, at + start, length, dataLength);
+    if (doFlip) {
+      id[at] = flip;
+      swap(id, at, at + Long.bitCount(value) % (start + length));
+    }
+    return start + length;
+  }
+
+  private void encodeWord(long value, char[] id, int offset, int length, int dataLength) {
+    long secVal = value ^ secret;
+    int tableCount = tables.length >> bits;
+    int mask = (1 << bits) - 1;
+    int idIndex = offset + length - 1;
+    for (int i = 0; i < dataLength; i++)
+      id[idIndex--] = tables[((i % tableCount) << bits) + ((int) (secVal >>> (bits * i)) & mask)];
+    if (length > dataLength)
+      encodePadding((int) secVal, (int) secret, id, offset, length, dataLength);
+  }
+
+  /**
+   * Decodes all 64 bits of a value of a dense mode not using the flip marker.
+   *
+   * @param moved index of a symbol that has been moved to this index from the origin index
+   * @param origin index a symbol has been moved from to the moved index
+   * @param strict true to throw an {@link IllegalArgumentException} for an invalid ID, false to set
+   *     {@link Scratch#invalid} instead
+   */
+  private long decodeWord(
+      CharSequence id, int offset, int length, int moved, int origin, boolean strict) {
+    int padIndex = decodeLongPadIndex(id, offset, length, moved, origin);
+    int padOrigin = offset;
+    if (padIndex >= 0) {
+      int padLength =
+          decodePadLength(id, offset, length, (int) secret, moved, origin, padIndex, 0, strict);
+      if (padLength < 0) return invalidWord();
+      offset += padLength;
+      length -= padLength;
+    }
+    // a flip marker alone has no data symbols
+    if (length < 1 || length > wordLength(bits)) {
+      if (!strict) return invalidWord();
+      FlightEvents.decodeFailed(FlightEvents.Failure.LENGTH);
+      throw new IllegalArgumentException(
+          "ID must have 1-%d data symbols but had: %d".formatted(wordLength(bits), length));
+    }
+    int tableCount = tables.length >> bits;
+    int mask = (1 << bits) - 1;
+    long value = 0;
+    for (int i = 0; i < length; i++) {
+      int shift = bits * (length - 1 - i);
+      int index = offset + i;
+      char s = symbolAt(id, index == padIndex ? padOrigin : index, moved, origin);
+      int symbolEncoded = decodeTableIndex((length - 1 - i) % tableCount, s, strict);
+      if (symbolEncoded < 0) return invalidWord();
+      long symbolBits = ((secret >>> shift) & mask) ^ symbolEncoded;
+      // the highest symbol can have bits beyond the 64 bits of a long
+      if (shift + bits > 64 && symbolBits >>> (64 - shift) != 0) {
+        if (!strict) return invalidWord();
+        FlightEvents.decodeFailed(FlightEvents.Failure.SYMBOL);
+        throw new IllegalArgumentException(
+            "Unexpected symbol: `%s` (at %d)".formatted(s, index));
+      }
+      value |= symbolBits << shift;
+    }
+    return value;
+  }
+
+  private static long invalidWord() {
+    SCRATCH.get().invalid = true;
+    return 0L;
+  }
+
+  /**
+   * Same as {@link #decodeWord(CharSequence, int, int, int, int, boolean)} just that an invalid ID
+   * results in an empty result.
+   */
+  private OptionalLong tryDecodeWord(
+      CharSequence id, int offset, int length, int moved, int origin, boolean flipped) {
+    Scratch scratch = SCRATCH.get();
+    scratch.invalid = false;
+    long value = decodeWord(id, offset, length, moved, origin, false);
+    if (scratch.invalid) return OptionalLong.empty();
+    return OptionalLong.of(flipped ? ~value : value);
   }
 
   @Override
-  public long[] decodeLongs(String id) {
-    if (id.isEmpty()) return new long[0];
-    if (id.indexOf(join) < 0) return new long[] {decodeLong(id)};
-    int count = 1 + (int) id.chars().filter(c -> c == join).count();
-    long[] values = new long[count];
-    int start = 0;
-    char[] chars = id.toCharArray();
-    for (int i = 0; i < count; i++) {
-      int end = id.indexOf(join, start);
-      values[i] = decodeLong(chars, start, (end < 0 ? chars.length : end) - start);
+  public long[] decodeLongs(CharSequence id, int from, int to) {
+    Scratch scratch = SCRATCH.get();
+    try {
+      int count = decodeLongs(id, from, to, scratch);
+      return Arrays.copyOf(scratch.longs, count);
+    } finally {
+      scratch.releaseLongs();
+    }
+  }
+
+  @Override
+  public int[] decodeInts(String id) {
+    Scratch scratch = SCRATCH.get();
+    try {
+      int count = decodeLongs(id, 0, id.length(), scratch);
+      long[] longs = scratch.longs;
+      int[] values = new int[count];
+      for (int i = 0; i < count; i++) values[i] = (int) longs[i];
+      return values;
+    } finally {
+      scratch.releaseLongs();
+    }
+  }
+
+  @Override
+  public double[] decodeDoubles(String id) {
+    Scratch scratch = SCRATCH.get();
+    try {
+      int count = decodeLongs(id, 0, id.length(), scratch);
+      long[] longs = scratch.longs;
+      double[] values = new double[count];
+      for (int i = 0; i < count; i++) values[i] = Double.longBitsToDouble(longs[i]);
+      return values;
+    } finally {
+      scratch.releaseLongs();
+    }
+  }
+
+  @Override
+  public double[] decodeCompactDoubles(String id) {
+    Scratch scratch = SCRATCH.get();
+    try {
+      int count = decodeLongs(id, 0, id.length(), scratch);
+      long[] longs = scratch.longs;
+      double[] values = new double[count];
+      for (int i = 0; i < count; i++) values[i] = Double.longBitsToDouble(Long.reverse(longs[i]));
+      return values;
+    } finally {
+      scratch.releaseLongs();
+    }
+  }
+
+  /**
+   * Decodes the joined values in a single pass into {@link Scratch#longs} (which is replaced when
+   * it is too small).
+   *
+   * @return the number of values decoded
+   */
+  private int decodeLongs(CharSequence id, int from, int to, Scratch scratch) {
+    checkFromToIndex(from, to, id.length());
+    if (from == to) return 0;
+    long[] values = scratch.longs;
+    int count = 0;
+    int start = from;
+    for (int i = from; i < to; i++)
+      if (id.charAt(i) == join) {
+        if (count == values.length) values = scratch.moreLongs();
+        values[count++] = decodeLong(id, start, i);
+        start = i + 1;
+      }
+    if (count == values.length) values = scratch.moreLongs();
+    values[count++] = decodeLong(id, start, to);
+    return count;
+  }
+
+  @Override
+  public int decodeLongs(CharSequence id, int from, int to, LongConsumer consumer) {
+    checkFromToIndex(from, to, id.length());
+    if (from == to) return 0;
+    int count = 1;
+    int start = from;
+    for (int i = from; i < to; i++)
+      if (id.charAt(i) == join) {
+        consumer.accept(decodeLong(id, start, i));
+        start = i + 1;
+        count++;
+      }
+    consumer.accept(decodeLong(id, start, to));
+    return count;
+  }
+
+  @Override
+  public PrimitiveIterator.OfLong decodeLongIterator(CharSequence id, int from, int to) {
+    checkFromToIndex(from, to, id.length());
+    return new LongIterator(id, from == to ? to + 1 : from, to);
+  }
+
+  /** Decodes the values joined in an ID one by one */
+  private final class LongIterator implements PrimitiveIterator.OfLong {
+
+    private final CharSequence id;
+    private final int to;
+
+    /** start of the next value, after to when done */
+    private int start;
+
+    LongIterator(CharSequence id, int start, int to) {
+      this.id = id;
+      this.start = start;
+      this.to = to;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return start <= to;
+    }
+
+    @Override
+    public long nextLong() {
+      if (start > to) throw new NoSuchElementException();
+      int end = start;
+      while (end < to && id.charAt(end) != join) end++;
+      long value = decodeLong(id, start, end);
       start = end + 1;
+      return value;
+    }
+  }
+
+  /*
+  ASCII bytes
+   */
+
+  @Override
+  public int encodeLongInto(long value, byte[] dst, int offset) {
+    checkAscii();
+    int length = encodingLength(value, minLength);
+    checkFromIndexSize(offset, length, dst.length);
+    char[] id = SCRATCH.get().chars;
+    encodeLong(value, minLength, id, 0);
+    for (int i = 0; i < length; i++) dst[offset + i] = (byte) id[i];
+    return length;
+  }
+
+  @Override
+  public int encodeLongInto(long value, ByteBuffer dst) {
+    checkAscii();
+    int length = encodingLength(value, minLength);
+    if (dst.remaining() < length) throw new BufferOverflowException();
+    char[] id = SCRATCH.get().chars;
+    encodeLong(value, minLength, id, 0);
+    for (int i = 0; i < length; i++) dst.put((byte) id[i]);
+    return length;
+  }
+
+  @Override
+  public int encodedLength(long... values) {
+    int count = values.length;
+    if (count == 0) return 0;
+    if (count == 1) return encodingLength(values[0], minLength);
+    byte[] minLengths = SCRATCH.get().bytes(count);
+    return joinedLength(values, count, joinedDataLength(values, count, minLengths), minLengths);
+  }
+
+  @Override
+  public int encodeLongsInto(long[] values, byte[] dst, int offset) {
+    checkAscii();
+    int count = values.length;
+    if (count <= 1) {
+      if (count == 1) return encodeLongInto(values[0], dst, offset);
+      checkFromIndexSize(offset, 0, dst.length);
+      return 0;
     }
+    Scratch scratch = SCRATCH.get();
+    byte[] minLengths = scratch.bytes(count);
+    int dataLength = joinedDataLength(values, count, minLengths);
+    int length = joinedLength(values, count, dataLength, minLengths);
+    checkFromIndexSize(offset, length, dst.length);
+    char[] id = scratch.chars(length);
+    encodeLongs(values, count, dataLength, minLengths, id, 0);
+    for (int i = 0; i < length; i++) dst[offset + i] = (byte) id[i];
+    return length;
+  }
+
+  @Override
+  public int encodeLongsInto(long[] values, ByteBuffer dst) {
+    checkAscii();
+    int count = values.length;
+    if (count <= 1) return count == 0 ? 0 : encodeLongInto(values[0], dst);
+    Scratch scratch = SCRATCH.get();
+    byte[] minLengths = scratch.bytes(count);
+    int dataLength = joinedDataLength(values, count, minLengths);
+    int length = joinedLength(values, count, dataLength, minLengths);
+    if (dst.remaining() < length) throw new BufferOverflowException();
+    char[] id = scratch.chars(length);
+    encodeLongs(values, count, dataLength, minLengths, id, 0);
+    for (int i = 0; i < length; i++) dst.put((byte) id[i]);
+    return length;
+  }
+
+  @Override
+  public long decodeLong(byte[] id, int from, int to) {
+    checkAscii();
+    AsciiChars chars = SCRATCH.get().ascii;
+    try {
+      return decodeLong(chars.of(id), from, to);
+    } finally {
+      chars.clear();
+    }
+  }
+
+  @Override
+  public long decodeLong(ByteBuffer id, int from, int to) {
+    checkAscii();
+    AsciiChars chars = SCRATCH.get().ascii;
+    try {
+      return decodeLong(chars.of(id), from, to);
+    } finally {
+      chars.clear();
+    }
+  }
+
+  @Override
+  public long[] decodeLongs(byte[] id, int from, int to) {
+    checkAscii();
+    AsciiChars chars = SCRATCH.get().ascii;
+    try {
+      return decodeLongs(chars.of(id), from, to);
+    } finally {
+      chars.clear();
+    }
+  }
+
+  @Override
+  public long[] decodeLongs(ByteBuffer id, int from, int to) {
+    checkAscii();
+    AsciiChars chars = SCRATCH.get().ascii;
+    try {
+      return decodeLongs(chars.of(id), from, to);
+    } finally {
+      chars.clear();
+    }
+  }
+
+  /*
+  Columns
+   */
+
+  @Override
+  public Column encodeLongColumn(long[] values, int from, int to) {
+    Object event = FlightEvents.batchBegin();
+    int[] offsets = encodeColumnOffsets(values, from, to);
+    char[] symbols = new char[offsets[offsets.length - 1]];
+    if (Vectorization.AVAILABLE && bits == 3 && !fixed) {
+      VectorEncoder.encodeLongs(this, values, from, to, symbols, offsets);
+    } else {
+      for (int i = 0; i < offsets.length - 1; i++)
+        encodeLong(values[from + i], minLength, symbols, offsets[i]);
+    }
+    FlightEvents.batchEnd(event, "encodeLongColumn", to - from);
+    return new Column(symbols, offsets);
+  }
+
+  @Override
+  public AsciiColumn encodeLongAsciiColumn(long[] values, int from, int to) {
+    checkAscii();
+    Object event = FlightEvents.batchBegin();
+    int[] offsets = encodeColumnOffsets(values, from, to);
+    byte[] symbols = new byte[offsets[offsets.length - 1]];
+    char[] id = SCRATCH.get().chars;
+    for (int i = 0; i < offsets.length - 1; i++) {
+      int length = encodeLong(values[from + i], minLength, id, 0);
+      int offset = offsets[i];
+      for (int j = 0; j < length; j++) symbols[offset + j] = (byte) id[j];
+    }
+    FlightEvents.batchEnd(event, "encodeLongAsciiColumn", to - from);
+    return new AsciiColumn(symbols, offsets);
+  }
+
+  /**
+   * As the length of each ID can be computed cheaply the offsets are computed first so that the
+   * IDs can be encoded directly into an array of the exact total length.
+   */
+  private int[] encodeColumnOffsets(long[] values, int from, int to) {
+    checkFromToIndex(from, to, values.length);
+    int count = to - from;
+    int[] offsets = new int[count + 1];
+    for (int i = 0; i < count; i++)
+      offsets[i + 1] = offsets[i] + encodingLength(values[from + i], minLength);
+    return offsets;
+  }
+
+  /**
+   * The symbols are copied into a single {@link String} once. This is faster than decoding from a
+   * {@link CharSequence} view on the array as decoding from {@link String}s is the most common case
+   * the decoding is optimized for.
+   */
+  @Override
+  public long[] decodeLongColumn(Column column) {
+    return decodeColumn(new String(column.symbols()), column.offsets(), "decodeLongColumn");
+  }
+
+  @Override
+  public long[] decodeLongColumn(AsciiColumn column) {
+    checkAscii();
+    String symbols = new String(column.symbols(), ISO_8859_1);
+    return decodeColumn(symbols, column.offsets(), "decodeLongAsciiColumn");
+  }
+
+  private long[] decodeColumn(CharSequence symbols, int[] offsets, String operation) {
+    Object event = FlightEvents.batchBegin();
+    long[] values = new long[offsets.length - 1];
+    for (int i = 0; i < values.length; i++)
+      values[i] = decodeLong(symbols, offsets[i], offsets[i + 1]);
+    FlightEvents.batchEnd(event, operation, values.length);
     return values;
   }
 
+  private void checkAscii() {
+    if (!symbols.isAscii())
+      throw new UnsupportedOperationException(
+          "Byte encoding requires a mode that only uses ASCII characters");
+  }
+
+  @Override
+  public long decodeLong(CharSequence id, int from, int to) {
+    checkFromToIndex(from, to, id.length());
+    if (from == to) {
+      FlightEvents.decodeFailed(FlightEvents.Failure.EMPTY);
+      throw new IllegalArgumentException("ID must not be empty");
+    }
+    int length = to - from;
+    if (fixed) {
+      if (length != minLength) {
+        FlightEvents.decodeFailed(FlightEvents.Failure.LENGTH);
+        throw new IllegalArgumentException(
+            "ID must have %d characters but had: %d".formatted(minLength, length));
+      }
+      return decode(id, from, length, -1, -1);
+    }
+    int flipIndex = decodeFlipIndex(id, from, length);
+    if (flipIndex < 0) return decode(id, from, length, -1, -1);
+    // the flip marker was swapped from index from to the flipIndex
+    return ~decode(id, from + 1, length - 1, flipIndex, from);
+  }
+
+  @Override
+  public OptionalLong tryDecodeLong(CharSequence id, int from, int to) {
+    checkFromToIndex(from, to, id.length());
+    if (from == to) return OptionalLong.empty();
+    int length = to - from;
+    if (fixed)
+      return length == minLength
+          ? tryDecode(id, from, length, -1, -1, false)
+          : OptionalLong.empty();
+    int flipIndex = decodeFlipIndex(id, from, length);
+    if (flipIndex < 0) return tryDecode(id, from, length, -1, -1, false);
+    return tryDecode(id, from + 1, length - 1, flipIndex, from, true);
+  }
+
+  /**
+   * Checks the same as {@link #tryDecodeLong(CharSequence, int, int)} without computing the value:
+   * the length, the padding, the flip marker and that each symbol is in the table for its position.
+   */
   @Override
-  public long decodeLong(String id) {
-    return decodeLong(id.toCharArray(), 0, id.length());
+  public boolean isValid(CharSequence id, int from, int to) {
+    checkFromToIndex(from, to, id.length());
+    if (from == to) return false;
+    int length = to - from;
+    if (fixed) return length == minLength && isValid(id, from, length, -1, -1);
+    int flipIndex = decodeFlipIndex(id, from, length);
+    if (flipIndex < 0) return isValid(id, from, length, -1, -1);
+    return isValid(id, from + 1, length - 1, flipIndex, from);
+  }
+
+  private boolean isValid(CharSequence id, int offset, int length, int moved, int origin) {
+    if (isDense()) {
+      Scratch scratch = SCRATCH.get();
+      scratch.invalid = false;
+      decodeWord(id, offset, length, moved, origin, false);
+      return !scratch.invalid;
+    }
+    int halfLength = HALF_LENGTH;
+    if (length > halfLength) {
+      int highLength = length - halfLength;
+      if (!isValidHalf(id, offset, highLength, highInt(secret), moved, origin)) return false;
+      offset += highLength;
+      length = halfLength;
+    }
+    return isValidHalf(id, offset, length, lowInt(secret), moved, origin);
   }
 
-  private long decodeLong(char[] id, int offset, int length) {
-    int flipIndex = decodeFlipIndex(id, offset, length);
-    if (flipIndex < 0) return decode(id, offset, length);
-    swap(id, offset, flipIndex);
-    return ~decode(id, offset + 1, length - 1);
+  /**
+   * Same checks as {@link #decode(CharSequence, int, int, int, int, int, int, boolean)} when not
+   * strict.
+   */
+  private boolean isValidHalf(
+      CharSequence id, int offset, int length, int secret, int moved, int origin) {
+    int padIndex = decodeLongPadIndex(id, offset, length, moved, origin);
+    int tableNr0 = decodeTableOffset(id, offset, length, padIndex, moved, origin, false);
+    if (tableNr0 < 0) return false;
+    int padOrigin = offset;
+    if (padIndex >= 0) {
+      int padLength =
+          decodePadLength(id, offset, length, secret, moved, origin, padIndex, tableNr0, false);
+      if (padLength < 0) return false;
+      offset += padLength;
+      length -= padLength;
+    }
+    int tableCount = tables.length >> bits;
+    int mask = (1 << bits) - 1;
+    int offsetBits = offsetBits(bits);
+    for (int i = 0; i < length; i++) {
+      int index = offset + i;
+      char s = symbolAt(id, index == padIndex ? padOrigin : index, moved, origin);
+      int symbolEncoded = symbols.tableIndex((tableNr0 + length - 1 - i) % tableCount, s);
+      if (symbolEncoded < 0) return false;
+      // the bits of a symbol must not end up beyond the 32 bits of a half
+      int shift = offsetBits + bits * (length - 1 - i);
+      long symbolBits = ((secret >>> shift) & mask) ^ symbolEncoded;
+      if (shift < 64 && (symbolBits << shift) >>> 32 != 0) return false;
+    }
+    return true;
   }
 
-  private long decode(char[] id, int offset, int length) {
-    if (length <= 10) return decode(id, offset, length, lowInt(secret));
-    int highLength = length - 10;
-    long high = decode(id, offset, highLength, highInt(secret));
-    long low = decode(id, offset + highLength, 10, lowInt(secret));
+  /**
+   * Same as {@link #decode(CharSequence, int, int, int, int)} just that invalid symbols result in
+   * an empty result.
+   */
+  private OptionalLong tryDecode(
+      CharSequence id, int offset, int length, int moved, int origin, boolean flipped) {
+    if (isDense()) return tryDecodeWord(id, offset, length, moved, origin, flipped);
+    long high = 0;
+    int halfLength = HALF_LENGTH;
+    if (length > halfLength) {
+      int highLength = length - halfLength;
+      int padIndex = decodeLongPadIndex(id, offset, highLength, moved, origin);
+      high = decode(id, offset, highLength, highInt(secret), moved, origin, padIndex, false);
+      if (high == INVALID) return OptionalLong.empty();
+      offset += highLength;
+      length = halfLength;
+    }
+    int padIndex = decodeLongPadIndex(id, offset, length, moved, origin);
+    long low = decode(id, offset, length, lowInt(secret), moved, origin, padIndex, false);
+    if (low == INVALID) return OptionalLong.empty();
+    long value = (high << 32) | low;
+    return OptionalLong.of(flipped ? ~value : value);
+  }
+
+  /**
+   * Decodes a value not using the flip marker.
+   *
+   * @param moved index of a symbol that has been moved to this index from the origin index
+   * @param origin index a symbol has been moved from to the moved index
+   */
+  private long decode(CharSequence id, int offset, int length, int moved, int origin) {
+    if (isDense()) return decodeWord(id, offset, length, moved, origin, true);
+    long high = 0;
+    int halfLength = HALF_LENGTH;
+    if (length > halfLength) {
+      int highLength = length - halfLength;
+      int padIndex = decodeLongPadIndex(id, offset, highLength, moved, origin);
+      high = decode(id, offset, highLength, highInt(secret), moved, origin, padIndex, true);
+      offset += highLength;
+      length = halfLength;
+    }
+    int padIndex = decodeLongPadIndex(id, offset, length, moved, origin);
+    long low = decode(id, offset, length, lowInt(secret), moved, origin, padIndex, true);
     return (high << 32) | low;
   }
 
-  private void encode(int value, int secret, char[] id, int offset, int length, int dataLength) {
-    int padLength = max(0, length - dataLength);
+  void encode(int value, int secret, char[] id, int offset, int length, int dataLength) {
     final int secVal = value ^ secret;
-    int tableNr = secVal & 0b11; // lowest 2 bits are start table offset
-    int tableCount = tables.length / 8;
+    int offsetBits = offsetBits(bits);
+    int tableNr = secVal & ((1 << offsetBits) - 1); // lowest 2 bits are start table offset
+    int tableCount = tables.length >> bits;
+    int mask = (1 << bits) - 1;
     int idIndex = offset + length - 1;
     // encode data backed characters
-    for (int i = 0; i < dataLength; i++)
-      id[idIndex--] = tables[8 * (tableNr++ % tableCount) + ((secVal >>> (2 + (3 * i))) & 0b111)];
-    if (padLength == 0) return;
-    // encode padding
+    if (chunks != null) {
+      encodeChunks(secVal, id, idIndex, dataLength);
+    } else {
+      for (int i = 0; i < dataLength; i++) {
+        int symbol = (secVal >>> (offsetBits + bits * i)) & mask;
+        id[idIndex--] = tables[((tableNr++ % tableCount) << bits) + symbol];
+      }
+    }
+    if (length > dataLength) encodePadding(secVal, secret, id, offset, length, dataLength);
+  }
+
+  /**
+   * Same as encoding the data symbols one by one just that each lookup encodes the symbols for the
+   * next {@link ChunkTables#triplets} triplets.
+   */
+  private void encodeChunks(int secVal, char[] id, int idIndex, int dataLength) {
+    int triplets = chunks.triplets;
+    int chunkBits = 3 * triplets;
+    int mask = chunks.mask;
+    int tableCount = chunks.tableCount;
+    char[] encode = chunks.encode;
+    int tableNr = secVal & 0b11;
+    for (int i = 0; i < dataLength; i += triplets) {
+      int chunk = (tableNr << chunkBits) + ((secVal >>> (2 + (3 * i))) & mask);
+      int n = min(triplets, dataLength - i);
+      for (int j = 0; j < n; j++) id[idIndex--] = encode[chunk * triplets + j];
+      tableNr += triplets;
+      if (tableNr >= tableCount) tableNr -= tableCount;
+    }
+  }
+
+  /**
+   * Encodes the padding of up to 32 bits of a value which data symbols already have been encoded
+   * into the last dataLength characters of the given range.
+   *
+   * @param secVal the value XOR the secret
+   */
+  void encodePadding(int secVal, int secret, char[] id, int offset, int length, int dataLength) {
+    int padLength = length - dataLength;
+    int offsetBits = offsetBits(bits);
+    int tableNr = (secVal & ((1 << offsetBits) - 1)) + dataLength;
+    int tableCount = tables.length >> bits;
+    int mask = (1 << bits) - 1;
+    int idIndex = offset + padLength - 1;
     if (padLength == 1) {
       id[offset] = pad1;
     } else {
       for (int i = 0; i < padLength - 2; i++) {
-        int padVal = secVal >>> (2 + (3 * i) % dataLength);
-        id[idIndex--] = tables[8 * (tableNr++ % tableCount) + (padVal & 0b111)];
+        int padVal = secVal >>> (offsetBits + (bits * i) % dataLength);
+        id[idIndex--] = tables[((tableNr++ % tableCount) << bits) + (padVal & mask)];
       }
-      int padSecret = secret & 0b111;
+      int padSecret = secret & mask;
       // 2: the pad indicator and the pad length
-      id[offset + 1] = tables[8 * (tableNr % tableCount) + (padSecret ^ (padLength - 2))];
+      id[offset + 1] = tables[((tableNr % tableCount) << bits) + (padSecret ^ (padLength - 2))];
       id[offset] = padN;
     }
     // swap pad marker to a different position
@@ -257,99 +1719,240 @@ record Lusid(long secret, int minLength, char join, char flip, char pad1, char p
   }
 
   /** The minimum length required for data + flip symbols */
-  private static int encodingMinLength(long value) {
-    if (isFlipPreferable(value)) return 1 + encodingMinLength(~value);
-    int l = encodingDataLength(lowInt(value));
+  private int encodingMinLength(long value) {
+    if (isFlipPreferable(value, maxFlipped())) return 1 + encodingMinLength(~value);
+    if (isDense()) return wordDataLength(value);
+    int l = dataLength(lowInt(value));
     if (highInt(value) == 0) return l;
-    return encodingDataLength(highInt(value)) + l;
+    return dataLength(highInt(value)) + l;
+  }
+
+  /** The minimum length required to encode the value in this coder's mode */
+  private int dataLength(int value) {
+    return encodingDataLength(value, offsetBits(bits), bits);
   }
 
-  /** The minimum length required to encode the value */
-  private static int encodingDataLength(int value) {
+  private static int encodingDataLength(int value, int offsetBits, int bits) {
     int zeroBits = Integer.numberOfLeadingZeros(value);
-    int dataBits = 32 - zeroBits - 2;
-    int dataLength = dataBits / 3;
-    if (dataBits % 3 > 0) dataLength++;
+    int dataBits = 32 - zeroBits - offsetBits;
+    int dataLength = dataBits / bits;
+    if (dataBits % bits > 0) dataLength++;
     return max(1, dataLength);
   }
 
-  private long decode(char[] id, int offset, int length, int secret) {
-    int tableNr0;
-    int tableCount = tables.length / 8;
+  /**
+   * Decodes up to 32 bits of a value.
+   *
+   * <p>Instead of modifying the input to undo the swaps done during encoding the decoding reads
+   * each symbol from the index it has been swapped to. The padding marker swap is undone locally, a
+   * swap undone by the caller (flip marker, or name padding) is described by the moved and origin
+   * index.
+   */
+  long decode(
+      CharSequence id, int offset, int length, int secret, int moved, int origin) {
+    int padIndex = decodePadIndex(id, offset, length, moved, origin);
+    return decode(id, offset, length, secret, moved, origin, padIndex, true);
+  }
 
-    // was there padding?
-    int padIndex = decodePadIndex(id, offset, length);
+  /**
+   * @param padIndex index the pad marker was swapped to (from the offset), -1 if there is no
+   *     padding
+   * @param strict true to throw an {@link IllegalArgumentException} for an invalid symbol, false to
+   *     return {@link #INVALID} instead
+   * @return the decoded value, or {@link #INVALID} when not strict and a symbol is invalid
+   */
+  private long decode(
+      CharSequence id,
+      int offset,
+      int length,
+      int secret,
+      int moved,
+      int origin,
+      int padIndex,
+      boolean strict) {
+    int tableCount = tables.length >> bits;
+    int mask = (1 << bits) - 1;
+    int offsetBits = offsetBits(bits);
+    // was there padding? (then the pad marker was swapped from padOrigin to padIndex)
+    int padOrigin = offset;
+    // offset of the left most symbol must be found
+    int tableNr0 = decodeTableOffset(id, offset, length, padIndex, moved, origin, strict);
+    if (tableNr0 < 0) return INVALID;
     if (padIndex >= 0) {
-      // un-swap
-      swap(id, offset, padIndex);
-
-      // offset of the left most symbol must be found
-      tableNr0 = decodeTableOffset(id, offset, length);
-
-      // pad length?
-      if (pad1 == id[offset]) {
-        offset++;
-        length--;
-      } else {
-        int padSecret = secret & 0b111;
-        int padEncoded =
-            decodeTableIndex(tables, ((tableNr0 + length - 2) % tableCount), id[offset + 1]);
-        int padLength = (padSecret ^ padEncoded) + 2; // 2: the pad indicator and the pad length
-        offset += padLength;
-        length -= padLength;
-      }
-    } else {
-      tableNr0 = decodeTableOffset(id, offset, length);
+      int padLength =
+          decodePadLength(id, offset, length, secret, moved, origin, padIndex, tableNr0, strict);
+      if (padLength < 0) return INVALID;
+      offset += padLength;
+      length -= padLength;
     }
     // decoding the data symbols
     // OBS! must be long because we might set the highest int bit, and we don't want negative
     // extension
     long value = 0;
-    for (int i = 0; i < length; i++) {
-      if (i > 0) value <<= 3;
-      int tripletSecret = (secret >>> (2 + 3 * (length - 1 - i))) & 0b111;
-      int tripletEncoded =
-          decodeTableIndex(tables, ((tableNr0 + length - 1 - i) % tableCount), id[offset + i]);
-      value |= tripletSecret ^ tripletEncoded;
+    int i = 0;
+    if (chunks != null && chunks.decode != null) {
+      // with an odd length the leftmost symbol is decoded alone, the rest in pairs
+      for (; i < length % 2; i++) {
+        int tripletSecret = (secret >>> (2 + 3 * (length - 1 - i))) & 0b111;
+        char s = symbolAt(id, offset + i == padIndex ? padOrigin : offset + i, moved, origin);
+        int tripletEncoded = decodeTableIndex((tableNr0 + length - 1 - i) % tableCount, s, strict);
+        if (tripletEncoded < 0) return INVALID;
+        value = tripletSecret ^ tripletEncoded;
+      }
+      for (; i < length; i += 2) {
+        int pairSecret = (secret >>> (2 + 3 * (length - 2 - i))) & 0b111111;
+        int index1 = offset + i;
+        int index2 = index1 + 1;
+        char s1 = symbolAt(id, index1 == padIndex ? padOrigin : index1, moved, origin);
+        char s2 = symbolAt(id, index2 == padIndex ? padOrigin : index2, moved, origin);
+        int tableNo = (tableNr0 + length - 2 - i) % tableCount;
+        int pairEncoded = decodePair(tableNo, s1, s2, strict);
+        if (pairEncoded < 0) return INVALID;
+        value = (value << 6) | (pairSecret ^ pairEncoded);
+      }
+    }
+    for (; i < length; i++) {
+      if (i > 0) value <<= bits;
+      int symbolSecret = (secret >>> (offsetBits + bits * (length - 1 - i))) & mask;
+      int index = offset + i;
+      char s = symbolAt(id, index == padIndex ? padOrigin : index, moved, origin);
+      int symbolEncoded = decodeTableIndex((tableNr0 + length - 1 - i) % tableCount, s, strict);
+      if (symbolEncoded < 0) return INVALID;
+      value |= symbolSecret ^ symbolEncoded;
     }
     // restoring lowest 2bits from table offset
-    value <<= 2;
-    value |= (tableNr0 ^ secret) & 0b11;
+    value <<= offsetBits;
+    value |= (tableNr0 ^ secret) & ((1 << offsetBits) - 1);
+    // the symbols can have more than 32 bits (in dense modes, or when there are too many)
+    if (value >>> 32 != 0) {
+      if (!strict) return INVALID;
+      FlightEvents.decodeFailed(FlightEvents.Failure.SYMBOL);
+      throw new IllegalArgumentException(
+          "Unexpected symbols: `%s` (at %d)"
+              .formatted(id.subSequence(offset, offset + length), offset));
+    }
     return value;
   }
 
+  /**
+   * @param padIndex index the pad marker was swapped to (from the offset)
+   * @param tableNr0 the table used first when encoding
+   * @return the number of padding symbols including the pad marker, -1 when not strict and the
+   *     padding is invalid
+   */
+  private int decodePadLength(
+      CharSequence id,
+      int offset,
+      int length,
+      int secret,
+      int moved,
+      int origin,
+      int padIndex,
+      int tableNr0,
+      boolean strict) {
+    char padMarker = symbolAt(id, padIndex, moved, origin);
+    int padLength = 1;
+    if (pad1 != padMarker) {
+      // the padN marker is followed by the pad length and at least 1 data symbol
+      padLength = length;
+      if (length > 2) {
+        int padSecret = secret & ((1 << bits) - 1);
+        int padLengthIndex = offset + 1 == padIndex ? offset : offset + 1;
+        char padLengthEncoded = symbolAt(id, padLengthIndex, moved, origin);
+        int padTableNo = (tableNr0 + length - 2) % (tables.length >> bits);
+        int padEncoded = decodeTableIndex(padTableNo, padLengthEncoded, false);
+        if (padEncoded < 0) {
+          if (!strict) return -1;
+          FlightEvents.decodeFailed(FlightEvents.Failure.PADDING);
+          throw new IllegalArgumentException(
+              "Unexpected padding length: `%s` (at %d)"
+                  .formatted(padLengthEncoded, padLengthIndex));
+        }
+        padLength = (padSecret ^ padEncoded) + 2; // 2: the pad indicator and the pad length
+      }
+    }
+    if (padLength < length) return padLength;
+    if (!strict) return -1;
+    FlightEvents.decodeFailed(FlightEvents.Failure.PADDING);
+    throw new IllegalArgumentException(
+        "Unexpected padding: `%s` (at %d)".formatted(padMarker, padIndex));
+  }
+
   /**
    * @return the table used first when encoding
    */
-  private int decodeTableOffset(char[] id, int offset, int length) {
+  private int decodeTableOffset(
+      CharSequence id,
+      int offset,
+      int length,
+      int padIndex,
+      int moved,
+      int origin,
+      boolean strict) {
+    // without data symbols the table offset is read from outside the range (invalid)
+    if (offsetBits(bits) == 0 && length > 0) return 0;
     int i0 = offset + length - 1;
-    char s0 = id[i0];
-    for (int i = 0; i < 32; i++) if (tables[i] == s0) return i / 8;
-    throw new IllegalArgumentException(
-        "Unexpected offset: `%s` (at %d in %s)".formatted(s0, i0, new String(id)));
+    char s0 = symbolAt(id, i0 == padIndex ? offset : i0, moved, origin);
+    int tableNr0 = symbols.tableOffset(s0);
+    if (tableNr0 >= 0 || !strict) return tableNr0;
+    FlightEvents.decodeFailed(FlightEvents.Failure.OFFSET);
+    throw new IllegalArgumentException("Unexpected offset: `%s` (at %d)".formatted(s0, i0));
   }
 
-  private int decodePadIndex(char[] id, int offset, int length) {
-    for (int i = 0; i < length; i++) if (isPadSymbol(id[offset + i])) return offset + i;
+  private int decodePadIndex(CharSequence id, int offset, int length, int moved, int origin) {
+    for (int i = 0; i < length; i++)
+      if (isPadSymbol(symbolAt(id, offset + i, moved, origin))) return offset + i;
     return -1;
   }
 
-  private int decodeFlipIndex(char[] id, int offset, int length) {
-    for (int i = 0; i < length; i++) if (id[offset + i] == flip) return offset + i;
+  /**
+   * @return the pad marker index of a 32-bit half of a long, a {@link #fixed} length ID never has
+   *     padding so there is no need to search for it
+   */
+  private int decodeLongPadIndex(CharSequence id, int offset, int length, int moved, int origin) {
+    return fixed ? -1 : decodePadIndex(id, offset, length, moved, origin);
+  }
+
+  private int decodeFlipIndex(CharSequence id, int offset, int length) {
+    for (int i = 0; i < length; i++) if (id.charAt(offset + i) == flip) return offset + i;
     return -1;
   }
 
-  private static int decodeTableIndex(char[] table, int tableNo, char s) {
-    for (int i = 0; i < 8; i++) if (table[8 * tableNo + i] == s) return i;
+  /**
+   * @return the symbol at the index as if the symbol moved from origin to moved index would have
+   *     been swapped back
+   */
+  private static char symbolAt(CharSequence id, int index, int moved, int origin) {
+    return id.charAt(index == moved ? origin : index);
+  }
+
+  private int decodeTableIndex(int tableNo, char s, boolean strict) {
+    int index = symbols.tableIndex(tableNo, s);
+    if (index >= 0 || !strict) return index;
+    FlightEvents.decodeFailed(FlightEvents.Failure.SYMBOL);
     throw new IllegalArgumentException(
-        "Unexpected symbol: `%s` (expected one of %s)".formatted(s, new String(table)));
+        "Unexpected symbol: `%s` (expected one of %s)".formatted(s, new String(tables)));
+  }
+
+  /**
+   * @param tableNo the table of the second (right) symbol, the first (left) symbol is from the
+   *     following table
+   * @return the 6 bits encoded by the symbol pair
+   */
+  private int decodePair(int tableNo, char s1, char s2, boolean strict) {
+    int bits = chunks.decodePair(tableNo, s1, s2);
+    if (bits >= 0 || !strict) return bits;
+    // one of them is invalid, decoding them one by one throws the appropriate exception
+    int tableCount = tables.length / 8;
+    return decodeTableIndex((tableNo + 1) % tableCount, s1, true) << 3
+        | decodeTableIndex(tableNo, s2, true);
   }
 
   private boolean isPadSymbol(char s) {
-    return pad1 == s || padN == s;
+    return symbols.isPad(s);
   }
 
-  private void swap(char[] id, int i1, int i2) {
+  static void swap(char[] id, int i1, int i2) {
     char tmp = id[i1];
     id[i1] = id[i2];
     id[i2] = tmp;
@@ -380,11 +1983,11 @@ record Lusid(long secret, int minLength, char join, char flip, char pad1, char p
     return filledSecret;
   }
 
-  private static int lowInt(long value) {
+  static int lowInt(long value) {
     return (int) value;
   }
 
-  private static int highInt(long value) {
+  static int highInt(long value) {
     return (int) (value >>> 32);
   }
 
@@ -0,0 +1,552 @@
+package se.jbee.lusid;
+
+import static java.lang.Math.min;
+
+import java.util.NoSuchElementException;
+import java.util.OptionalLong;
+import java.util.PrimitiveIterator;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+
+/**
+ * A {@link Coder} decorator that meters the calls of each {@link Coder.Operation}.
+ *
+ * <p>All counters are {@link LongAdder}s which only use a single field while uncontended and
+ * stripe the count over multiple cells when updated concurrently. Methods are metered around the
+ * call to the decorated coder so that methods based on a metered method (like {@link
+ * #encodeInt(int)} based on {@link #encodeLong(long)}) are not counted twice.
+ *
+ * @author Jan Bernitt
+ */
+final class MeteredCoder extends ForwardingCoder implements Coder.Metered {
+
+  /** IDs of this length or longer are counted together in the last bucket */
+  static final int LENGTH_BUCKETS = 33;
+
+  /** Calls taking 2^39ns (~9min) or longer are counted together in the last bucket */
+  static final int LATENCY_BUCKETS = 40;
+
+  private final Meter[] meters;
+  private final boolean latency;
+
+  MeteredCoder(Coder delegate, boolean latency) {
+    this(delegate, latency, meters(latency));
+  }
+
+  private MeteredCoder(Coder delegate, boolean latency, Meter[] meters) {
+    super(delegate);
+    this.latency = latency;
+    this.meters = meters;
+  }
+
+  private static Meter[] meters(boolean latency) {
+    Meter[] meters = new Meter[Operation.values().length];
+    for (int i = 0; i < meters.length; i++) meters[i] = new Meter(latency);
+    return meters;
+  }
+
+  @Override
+  public Metered withLookupTables(int triplets) {
+    return new MeteredCoder(delegate.withLookupTables(triplets), latency, meters);
+  }
+
+  @Override
+  public MeterStats stats(Operation op) {
+    return meters[op.ordinal()].stats();
+  }
+
+  /*
+  Metered operations
+   */
+
+  @Override
+  public String encodeLong(long value) {
+    long start = start();
+    try {
+      return encoded(Operation.ENCODE_LONG, delegate.encodeLong(value), start);
+    } catch (RuntimeException ex) {
+      throw failed(Operation.ENCODE_LONG, ex, start);
+    }
+  }
+
+  @Override
+  public long decodeLong(CharSequence id, int from, int to) {
+    long start = start();
+    try {
+      long value = delegate.decodeLong(id, from, to);
+      decoded(Operation.DECODE_LONG, to - from, start);
+      return value;
+    } catch (RuntimeException ex) {
+      throw failed(Operation.DECODE_LONG, ex, start);
+    }
+  }
+
+  @Override
+  public OptionalLong tryDecodeLong(CharSequence id, int from, int to) {
+    long start = start();
+    OptionalLong value;
+    try {
+      value = delegate.tryDecodeLong(id, from, to);
+    } catch (RuntimeException ex) {
+      throw failed(Operation.DECODE_LONG, ex, start);
+    }
+    if (value.isPresent()) {
+      decoded(Operation.DECODE_LONG, to - from, start);
+    } else {
+      failed(Operation.DECODE_LONG, null, start);
+    }
+    return value;
+  }
+
+  @Override
+  public String encodeInt(int value) {
+    long start = start();
+    try {
+      return encoded(Operation.ENCODE_INT, delegate.encodeInt(value), start);
+    } catch (RuntimeException ex) {
+      throw failed(Operation.ENCODE_INT, ex, start);
+    }
+  }
+
+  @Override
+  public int decodeInt(CharSequence id, int from, int to) {
+    long start = start();
+    try {
+      int value = delegate.decodeInt(id, from, to);
+      decoded(Operation.DECODE_INT, to - from, start);
+      return value;
+    } catch (RuntimeException ex) {
+      throw failed(Operation.DECODE_INT, ex, start);
+    }
+  }
+
+  @Override
+  public String encodeFloat(float value) {
+    long start = start();
+    try {
+      return encoded(Operation.ENCODE_FLOAT, delegate.encodeFloat(value), start);
+    } catch (RuntimeException ex) {
+      throw failed(Operation.ENCODE_FLOAT, ex, start);
+    }
+  }
+
+  @Override
+  public float decodeFloat(CharSequence id, int from, int to) {
+    long start = start();
+    try {
+      float value = delegate.decodeFloat(id, from, to);
+      decoded(Operation.DECODE_FLOAT, to - from, start);
+      return value;
+    } catch (RuntimeException ex) {
+      throw failed(Operation.DECODE_FLOAT, ex, start);
+    }
+  }
+
+  @Override
+  public String encodeDouble(double value) {
+    long start = start();
+    try {
+      return encoded(Operation.ENCODE_DOUBLE, delegate.encodeDouble(value), start);
+    } catch (RuntimeException ex) {
+      throw failed(Operation.ENCODE_DOUBLE, ex, start);
+    }
+  }
+
+  @Override
+  public double decodeDouble(CharSequence id, int from, int to) {
+    long start = start();
+    try {
+      double value = delegate.decodeDouble(id, from, to);
+      decoded(Operation.DECODE_DOUBLE, to - from, start);
+      return value;
+    } catch (RuntimeException ex) {
+      throw failed(Operation.DECODE_DOUBLE, ex, start);
+    }
+  }
+
+  @Override
+  public String encodeCompactDouble(double value) {
+    long start = start();
+    try {
+      return encoded(Operation.ENCODE_DOUBLE, delegate.encodeCompactDouble(value), start);
+    } catch (RuntimeException ex) {
+      throw failed(Operation.ENCODE_DOUBLE, ex, start);
+    }
+  }
+
+  @Override
+  public double decodeCompactDouble(CharSequence id, int from, int to) {
+    long start = start();
+    try {
+      double value = delegate.decodeCompactDouble(id, from, to);
+      decoded(Operation.DECODE_DOUBLE, to - from, start);
+      return value;
+    } catch (RuntimeException ex) {
+      throw failed(Operation.DECODE_DOUBLE, ex, start);
+    }
+  }
+
+  @Override
+  public String encodeCompactFloat(float value) {
+    long start = start();
+    try {
+      return encoded(Operation.ENCODE_FLOAT, delegate.encodeCompactFloat(value), start);
+    } catch (RuntimeException ex) {
+      throw failed(Operation.ENCODE_FLOAT, ex, start);
+    }
+  }
+
+  @Override
+  public float decodeCompactFloat(CharSequence id, int from, int to) {
+    long start = start();
+    try {
+      float value = delegate.decodeCompactFloat(id, from, to);
+      decoded(Operation.DECODE_FLOAT, to - from, start);
+      return value;
+    } catch (RuntimeException ex) {
+      throw failed(Operation.DECODE_FLOAT, ex, start);
+    }
+  }
+
+  @Override
+  public String encodeLongs(long... values) {
+    long start = start();
+    try {
+      return encoded(Operation.ENCODE_LONGS, delegate.encodeLongs(values), start);
+    } catch (RuntimeException ex) {
+      throw failed(Operation.ENCODE_LONGS, ex, start);
+    }
+  }
+
+  @Override
+  public long[] decodeLongs(CharSequence id, int from, int to) {
+    long start = start();
+    try {
+      long[] values = delegate.decodeLongs(id, from, to);
+      decoded(Operation.DECODE_LONGS, to - from, start);
+      return values;
+    } catch (RuntimeException ex) {
+      throw failed(Operation.DECODE_LONGS, ex, start);
+    }
+  }
+
+  @Override
+  public int decodeLongs(CharSequence id, int from, int to, LongConsumer consumer) {
+    long start = start();
+    try {
+      int count = delegate.decodeLongs(id, from, to, consumer);
+      decoded(Operation.DECODE_LONGS, to - from, start);
+      return count;
+    } catch (RuntimeException ex) {
+      throw failed(Operation.DECODE_LONGS, ex, start);
+    }
+  }
+
+  /**
+   * The values are decoded lazily so the call is counted once the iterator is exhausted or fails.
+   * An iterator that is abandoned before that is not counted.
+   */
+  @Override
+  public PrimitiveIterator.OfLong decodeLongIterator(CharSequence id, int from, int to) {
+    long start = start();
+    PrimitiveIterator.OfLong values;
+    try {
+      values = delegate.decodeLongIterator(id, from, to);
+    } catch (RuntimeException ex) {
+      throw failed(Operation.DECODE_LONGS, ex, start);
+    }
+    return new PrimitiveIterator.OfLong() {
+      private boolean recorded;
+
+      @Override
+      public boolean hasNext() {
+        boolean hasNext = values.hasNext();
+        if (!hasNext && !recorded) {
+          recorded = true;
+          decoded(Operation.DECODE_LONGS, to - from, start);
+        }
+        return hasNext;
+      }
+
+      @Override
+      public long nextLong() {
+        try {
+          return values.nextLong();
+        } catch (NoSuchElementException ex) {
+          // reading past the end without asking hasNext() first, the decoding itself succeeded
+          if (!recorded) {
+            recorded = true;
+            decoded(Operation.DECODE_LONGS, to - from, start);
+          }
+          throw ex;
+        } catch (RuntimeException ex) {
+          if (recorded) throw ex;
+          recorded = true;
+          throw failed(Operation.DECODE_LONGS, ex, start);
+        }
+      }
+    };
+  }
+
+  @Override
+  public String encodeDeltaLongs(long... values) {
+    long start = start();
+    try {
+      return encoded(Operation.ENCODE_LONGS, delegate.encodeDeltaLongs(values), start);
+    } catch (RuntimeException ex) {
+      throw failed(Operation.ENCODE_LONGS, ex, start);
+    }
+  }
+
+  @Override
+  public String encodeInts(int... values) {
+    long start = start();
+    try {
+      return encoded(Operation.ENCODE_LONGS, delegate.encodeInts(values), start);
+    } catch (RuntimeException ex) {
+      throw failed(Operation.ENCODE_LONGS, ex, start);
+    }
+  }
+
+  @Override
+  public int[] decodeInts(String id) {
+    long start = start();
+    try {
+      int[] values = delegate.decodeInts(id);
+      decoded(Operation.DECODE_LONGS, id.length(), start);
+      return values;
+    } catch (RuntimeException ex) {
+      throw failed(Operation.DECODE_LONGS, ex, start);
+    }
+  }
+
+  @Override
+  public String encodeDoubles(double... values) {
+    long start = start();
+    try {
+      return encoded(Operation.ENCODE_LONGS, delegate.encodeDoubles(values), start);
+    } catch (RuntimeException ex) {
+      throw failed(Operation.ENCODE_LONGS, ex, start);
+    }
+  }
+
+  @Override
+  public double[] decodeDoubles(String id) {
+    long start = start();
+    try {
+      double[] values = delegate.decodeDoubles(id);
+      decoded(Operation.DECODE_LONGS, id.length(), start);
+      return values;
+    } catch (RuntimeException ex) {
+      throw failed(Operation.DECODE_LONGS, ex, start);
+    }
+  }
+
+  @Override
+  public String encodeCompactDoubles(double... values) {
+    long start = start();
+    try {
+      return encoded(Operation.ENCODE_LONGS, delegate.encodeCompactDoubles(values), start);
+    } catch (RuntimeException ex) {
+      throw failed(Operation.ENCODE_LONGS, ex, start);
+    }
+  }
+
+  @Override
+  public double[] decodeCompactDoubles(String id) {
+    long start = start();
+    try {
+      double[] values = delegate.decodeCompactDoubles(id);
+      decoded(Operation.DECODE_LONGS, id.length(), start);
+      return values;
+    } catch (RuntimeException ex) {
+      throw failed(Operation.DECODE_LONGS, ex, start);
+    }
+  }
+
+  @Override
+  public String encodeUuid(long mostSigBits, long leastSigBits) {
+    long start = start();
+    try {
+      return encoded(Operation.ENCODE_UUID, delegate.encodeUuid(mostSigBits, leastSigBits), start);
+    } catch (RuntimeException ex) {
+      throw failed(Operation.ENCODE_UUID, ex, start);
+    }
+  }
+
+  @Override
+  public UUID decodeUuid(CharSequence id, int from, int to) {
+    long start = start();
+    try {
+      UUID value = delegate.decodeUuid(id, from, to);
+      decoded(Operation.DECODE_UUID, to - from, start);
+      return value;
+    } catch (RuntimeException ex) {
+      throw failed(Operation.DECODE_UUID, ex, start);
+    }
+  }
+
+  @Override
+  public long decodeUuidMostSigBits(CharSequence id, int from, int to) {
+    long start = start();
+    try {
+      long bits = delegate.decodeUuidMostSigBits(id, from, to);
+      decoded(Operation.DECODE_UUID, to - from, start);
+      return bits;
+    } catch (RuntimeException ex) {
+      throw failed(Operation.DECODE_UUID, ex, start);
+    }
+  }
+
+  @Override
+  public long decodeUuidLeastSigBits(CharSequence id, int from, int to) {
+    long start = start();
+    try {
+      long bits = delegate.decodeUuidLeastSigBits(id, from, to);
+      decoded(Operation.DECODE_UUID, to - from, start);
+      return bits;
+    } catch (RuntimeException ex) {
+      throw failed(Operation.DECODE_UUID, ex, start);
+    }
+  }
+
+  @Override
+  public String encodeName(String value) {
+    long start = start();
+    try {
+      return encoded(Operation.ENCODE_NAME, delegate.encodeName(value), start);
+    } catch (RuntimeException ex) {
+      throw failed(Operation.ENCODE_NAME, ex, start);
+    }
+  }
+
+  @Override
+  public String decodeName(String id) {
+    long start = start();
+    try {
+      String name = delegate.decodeName(id);
+      decoded(Operation.DECODE_NAME, id.length(), start);
+      return name;
+    } catch (RuntimeException ex) {
+      throw failed(Operation.DECODE_NAME, ex, start);
+    }
+  }
+
+  @Override
+  public String encodeText(String value) {
+    long start = start();
+    try {
+      return encoded(Operation.ENCODE_TEXT, delegate.encodeText(value), start);
+    } catch (RuntimeException ex) {
+      throw failed(Operation.ENCODE_TEXT, ex, start);
+    }
+  }
+
+  @Override
+  public String decodeText(String id) {
+    long start = start();
+    try {
+      String text = delegate.decodeText(id);
+      decoded(Operation.DECODE_TEXT, id.length(), start);
+      return text;
+    } catch (RuntimeException ex) {
+      throw failed(Operation.DECODE_TEXT, ex, start);
+    }
+  }
+
+  @Override
+  public String encodePackedText(String value) {
+    long start = start();
+    try {
+      return encoded(Operation.ENCODE_TEXT, delegate.encodePackedText(value), start);
+    } catch (RuntimeException ex) {
+      throw failed(Operation.ENCODE_TEXT, ex, start);
+    }
+  }
+
+  @Override
+  public String decodePackedText(String id) {
+    long start = start();
+    try {
+      String text = delegate.decodePackedText(id);
+      decoded(Operation.DECODE_TEXT, id.length(), start);
+      return text;
+    } catch (RuntimeException ex) {
+      throw failed(Operation.DECODE_TEXT, ex, start);
+    }
+  }
+
+  /*
+  Recording
+   */
+
+  private long start() {
+    return latency ? System.nanoTime() : 0L;
+  }
+
+  private String encoded(Operation op, String id, long start) {
+    meters[op.ordinal()].record(id.length(), start);
+    return id;
+  }
+
+  private void decoded(Operation op, int length, long start) {
+    meters[op.ordinal()].record(length, start);
+  }
+
+  private RuntimeException failed(Operation op, RuntimeException ex, long start) {
+    meters[op.ordinal()].fail(start);
+    return ex;
+  }
+
+  /** The counters of a single {@link Operation} */
+  private static final class Meter {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder[] lengths = adders(LENGTH_BUCKETS);
+
+    /** null if latency is not measured */
+    private final LongAdder[] latencies;
+
+    Meter(boolean latency) {
+      this.latencies = latency ? adders(LATENCY_BUCKETS) : null;
+    }
+
+    private static LongAdder[] adders(int n) {
+      LongAdder[] adders = new LongAdder[n];
+      for (int i = 0; i < n; i++) adders[i] = new LongAdder();
+      return adders;
+    }
+
+    void record(int length, long start) {
+      count.increment();
+      lengths[min(length, LENGTH_BUCKETS - 1)].increment();
+      recordLatency(start);
+    }
+
+    void fail(long start) {
+      count.increment();
+      failures.increment();
+      recordLatency(start);
+    }
+
+    private void recordLatency(long start) {
+      if (latencies == null) return;
+      long nanos = System.nanoTime() - start;
+      int bucket = 64 - Long.numberOfLeadingZeros(nanos);
+      latencies[min(bucket, LATENCY_BUCKETS - 1)].increment();
+    }
+
+    MeterStats stats() {
+      return new MeterStats(count.sum(), failures.sum(), sums(lengths), sums(latencies));
+    }
+
+    private static long[] sums(LongAdder[] adders) {
+      if (adders == null) return new long[0];
+      long[] sums = new long[adders.length];
+      for (int i = 0; i < sums.length; i++) sums[i] = adders[i].sum();
+      return sums;
+    }
+  }
+}
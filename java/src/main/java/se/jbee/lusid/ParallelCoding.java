@@ -0,0 +1,116 @@
+package se.jbee.lusid;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Encodes or decodes many individual values in parallel.
+ *
+ * <p>As a {@link Coder} is immutable the work can be split into independent ranges of the input. On
+ * a {@link ForkJoinPool} ranges are split recursively until they are no larger than the threshold.
+ * For any other {@link Executor} the input is cut into ranges of the threshold size upfront and
+ * the calling thread waits for all of them to complete.
+ *
+ * @author Jan Bernitt
+ */
+final class ParallelCoding {
+
+  private ParallelCoding() {}
+
+  /** Processes the values from index (inclusive) to index (exclusive) */
+  @FunctionalInterface
+  interface RangeAction {
+
+    void run(int from, int to);
+  }
+
+  static String[] encodeLongs(Coder coder, long[] values, Executor executor, int threshold) {
+    Object event = FlightEvents.batchBegin();
+    String[] ids = new String[values.length];
+    run(
+        values.length,
+        executor,
+        threshold,
+        (from, to) -> {
+          for (int i = from; i < to; i++) ids[i] = coder.encodeLong(values[i]);
+        });
+    FlightEvents.batchEnd(event, "encodeLongEach", values.length);
+    return ids;
+  }
+
+  static long[] decodeLongs(Coder coder, String[] ids, Executor executor, int threshold) {
+    Object event = FlightEvents.batchBegin();
+    long[] values = new long[ids.length];
+    run(
+        ids.length,
+        executor,
+        threshold,
+        (from, to) -> {
+          for (int i = from; i < to; i++) values[i] = coder.decodeLong(ids[i]);
+        });
+    FlightEvents.batchEnd(event, "decodeLongEach", ids.length);
+    return values;
+  }
+
+  /**
+   * Runs the action for all indexes from 0 to length. Inputs not larger than the threshold are
+   * processed sequentially in the calling thread.
+   */
+  static void run(int length, Executor executor, int threshold, RangeAction action) {
+    if (threshold < 1) throw new IllegalArgumentException("Threshold must be positive");
+    if (length <= threshold) {
+      action.run(0, length);
+      return;
+    }
+    if (executor instanceof ForkJoinPool pool) {
+      pool.invoke(new RangeTask(0, length, threshold, action));
+      return;
+    }
+    List<CompletableFuture<Void>> tasks = new ArrayList<>(length / threshold + 1);
+    for (int from = 0; from < length; from += threshold) {
+      int start = from;
+      int end = Math.min(length, from + threshold);
+      tasks.add(CompletableFuture.runAsync(() -> action.run(start, end), executor));
+    }
+    try {
+      CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).join();
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof RuntimeException cause) throw cause;
+      throw ex;
+    }
+  }
+
+  private static final class RangeTask extends RecursiveAction {
+
+    @Serial private static final long serialVersionUID = 1L;
+
+    private final int from;
+    private final int to;
+    private final int threshold;
+    private final transient RangeAction action;
+
+    RangeTask(int from, int to, int threshold, RangeAction action) {
+      this.from = from;
+      this.to = to;
+      this.threshold = threshold;
+      this.action = action;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= threshold) {
+        action.run(from, to);
+        return;
+      }
+      int mid = (from + to) >>> 1;
+      invokeAll(
+          new RangeTask(from, mid, threshold, action), new RangeTask(mid, to, threshold, action));
+    }
+  }
+}
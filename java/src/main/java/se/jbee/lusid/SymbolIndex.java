@@ -0,0 +1,120 @@
+package se.jbee.lusid;
+
+import java.util.Arrays;
+
+/**
+ * A reverse lookup from a symbol (character) to its meaning for a particular {@link Coder.Mode}.
+ *
+ * <p>All lookups are a single array access relative to the lowest symbol used by the mode. For the
+ * standard modes all symbols are ASCII so the index is just a few hundred bytes in size. Modes
+ * using symbols far apart in the character range pay with a larger index (at most 64k per table).
+ *
+ * @author Jan Bernitt
+ */
+final class SymbolIndex {
+
+  /** The symbol kinds of symbols that are not table symbols */
+  static final int NONE = 0, JOIN = 1, FLIP = 2, PAD1 = 3, PADN = 4;
+
+  /** lowest symbol used by the mode, all lookups are relative to this */
+  private final char base;
+
+  /** number of characters from {@link #base} to the highest symbol used (inclusive) */
+  private final int range;
+
+  /** {@code [tableNo * range + (s - base)]} = index in table (0-7, 0-63 for dense modes) or -1 */
+  private final byte[] indexes;
+
+  /** {@code [s - base]} = the table number (0-3) for symbols of the first 4 tables or -1 */
+  private final byte[] offsets;
+
+  /** {@code [s - base]} = index (0-7, 0-63 for dense modes) of the first occurrence or -1 */
+  private final byte[] firsts;
+
+  /** {@code [s - base]} = one of {@link #JOIN}, {@link #FLIP}, {@link #PAD1}, {@link #PADN} */
+  private final byte[] kinds;
+
+  /**
+   * @param tables all tables of the mode concatenated
+   * @param tableSize number of symbols in each table, 8 except for dense modes
+   */
+  SymbolIndex(char join, char flip, char pad1, char padN, char[] tables, int tableSize) {
+    char min = (char) Math.min(Math.min(join, flip), Math.min(pad1, padN));
+    char max = (char) Math.max(Math.max(join, flip), Math.max(pad1, padN));
+    for (char s : tables) {
+      if (s < min) min = s;
+      if (s > max) max = s;
+    }
+    this.base = min;
+    this.range = max - min + 1;
+    int tableCount = tables.length / tableSize;
+    this.indexes = new byte[tableCount * range];
+    this.offsets = new byte[range];
+    this.firsts = new byte[range];
+    this.kinds = new byte[range];
+    Arrays.fill(indexes, (byte) -1);
+    Arrays.fill(offsets, (byte) -1);
+    Arrays.fill(firsts, (byte) -1);
+    for (int i = tables.length - 1; i >= 0; i--) {
+      int s = tables[i] - base;
+      int tableNo = i / tableSize;
+      indexes[tableNo * range + s] = (byte) (i % tableSize);
+      if (tableNo < 4) offsets[s] = (byte) tableNo;
+      firsts[s] = (byte) (i % tableSize); // iterating backwards so the first occurrence is set last
+    }
+    kinds[join - base] = JOIN;
+    kinds[flip - base] = FLIP;
+    kinds[pad1 - base] = PAD1;
+    kinds[padN - base] = PADN;
+  }
+
+  /**
+   * @return the index (0-7, 0-63 for dense modes) of the symbol in the given table or -1 if the
+   *     symbol is not in that table
+   */
+  int tableIndex(int tableNo, char s) {
+    int i = (char) (s - base);
+    return i < range ? indexes[tableNo * range + i] : -1;
+  }
+
+  /**
+   * @return the table number (0-3) the symbol belongs to when it is used as the first (rightmost)
+   *     symbol or -1 if the symbol is not in any of the first 4 tables
+   */
+  int tableOffset(char s) {
+    int i = (char) (s - base);
+    return i < range ? offsets[i] : -1;
+  }
+
+  /**
+   * @return the index (0-7) of the first occurrence of the symbol in any of the tables or -1 if the
+   *     symbol is not used in any table
+   */
+  int firstIndex(char s) {
+    int i = (char) (s - base);
+    return i < range ? firsts[i] : -1;
+  }
+
+  /**
+   * @return the kind of special symbol or {@link #NONE} for table symbols or unknown symbols
+   */
+  int kind(char s) {
+    int i = (char) (s - base);
+    return i < range ? kinds[i] : NONE;
+  }
+
+  /**
+   * @return true if the symbol is either {@link #PAD1} or {@link #PADN} (which are the highest
+   *     kinds)
+   */
+  boolean isPad(char s) {
+    return kind(s) >= PAD1;
+  }
+
+  /**
+   * @return true if all symbols (table and special symbols) are ASCII characters
+   */
+  boolean isAscii() {
+    return base + range <= 128;
+  }
+}
@@ -0,0 +1,309 @@
+package se.jbee.lusid;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Encodes or decodes text in chunks with the same result as {@link Coder#encodeText(String)} and
+ * {@link Coder#decodeText(String)}.
+ *
+ * <p>Each byte of the text is a unit of 2 symbols encoded with a secret that is rotated from unit
+ * to unit. Only the first unit of short IDs has padding. An ID with padding is never longer than
+ * the minimum length, so the start of the input is read first to know if the ID has padding. If
+ * not, all units are independent and can be processed chunk by chunk only carrying over the rotated
+ * secret. Memory use therefore is constant for any length of input.
+ *
+ * @author Jan Bernitt
+ */
+final class TextStreams {
+
+  private TextStreams() {}
+
+  /** Number of text bytes processed per chunk */
+  static final int CHUNK_SIZE = 8192;
+
+  /** Each unit is a byte of the text encoded as 2 symbols (in any mode) */
+  private static final int UNIT_LENGTH = 2;
+
+  /** A source of text bytes, like {@link ReadableByteChannel} */
+  @FunctionalInterface
+  interface ByteSource {
+
+    /**
+     * @return number of bytes read or -1 at the end of the input
+     */
+    int read(byte[] dst, int offset, int length) throws IOException;
+  }
+
+  /** A target for text bytes, like {@link WritableByteChannel} */
+  @FunctionalInterface
+  interface ByteSink {
+
+    void write(byte[] src, int offset, int length) throws IOException;
+
+    /** Called once after all bytes have been written */
+    default void end() throws IOException {}
+  }
+
+  /** A source of ID symbols, like {@link Reader} */
+  @FunctionalInterface
+  interface CharSource {
+
+    /**
+     * @return number of characters read or -1 at the end of the input
+     */
+    int read(char[] dst, int offset, int length) throws IOException;
+  }
+
+  /** A target for ID symbols, like {@link Writer} */
+  @FunctionalInterface
+  interface CharSink {
+
+    void write(char[] src, int offset, int length) throws IOException;
+  }
+
+  /**
+   * @return number of symbols written
+   */
+  static long encode(Lusid coder, ByteSource in, CharSink out) throws IOException {
+    byte[] text = new byte[CHUNK_SIZE];
+    char[] id = new char[UNIT_LENGTH * CHUNK_SIZE];
+    // from this many units on there is no padding
+    int unpaddedCount = (coder.minLength() + UNIT_LENGTH - 1) / UNIT_LENGTH;
+    int n = readAtLeast(in, text, unpaddedCount);
+    if (n == 0) return 0;
+    if (n < unpaddedCount) {
+      String head = coder.encodeUnits(Lusid.TEXT_UNIT_BITS, n, null, text);
+      head.getChars(0, head.length(), id, 0);
+      out.write(id, 0, head.length());
+      return head.length();
+    }
+    // the rotation of the secret from one unit to the next
+    int rotation = coder.unitRotation(UNIT_LENGTH);
+    long rotSec = coder.secret();
+    long written = 0;
+    while (n >= 0) {
+      for (int i = 0; i < n; i++) {
+        int unit = Byte.toUnsignedInt(text[i]);
+        coder.encode(unit, (int) rotSec, id, i * UNIT_LENGTH, UNIT_LENGTH, UNIT_LENGTH);
+        rotSec = Long.rotateRight(rotSec, rotation);
+      }
+      out.write(id, 0, n * UNIT_LENGTH);
+      written += n * UNIT_LENGTH;
+      n = in.read(text, 0, text.length);
+    }
+    return written;
+  }
+
+  /**
+   * @return number of text bytes written
+   */
+  static long decode(Lusid coder, CharSource in, ByteSink out) throws IOException {
+    char[] id = new char[UNIT_LENGTH * CHUNK_SIZE];
+    byte[] text = new byte[CHUNK_SIZE];
+    // an ID with padding is at most minimum length long
+    int maxPaddedLength = coder.minLength();
+    int n = readAtLeast(in, id, maxPaddedLength + 1);
+    if (n <= maxPaddedLength) {
+      String head = new String(id, 0, n);
+      int length = n == 0 ? 0 : coder.decodeUnits(head, Lusid.TEXT_UNIT_BITS, null, text);
+      out.write(text, 0, length);
+      out.end();
+      return length;
+    }
+    CharSequence symbols = CharBuffer.wrap(id);
+    SymbolIndex index = coder.symbols();
+    int rotation = coder.unitRotation(UNIT_LENGTH);
+    long rotSec = coder.secret();
+    long written = 0;
+    long offset = 0; // of the chunk in the ID
+    while (true) {
+      int units = n / UNIT_LENGTH;
+      for (int i = 0; i < units; i++) {
+        int unitOffset = i * UNIT_LENGTH;
+        for (int j = unitOffset; j < unitOffset + UNIT_LENGTH; j++)
+          if (index.isPad(id[j])) {
+            FlightEvents.decodeFailed(FlightEvents.Failure.PADDING);
+            throw new IllegalArgumentException(
+                "Unexpected padding: `%s` (at %d)".formatted(id[j], offset + j));
+          }
+        long unit = coder.decode(symbols, unitOffset, UNIT_LENGTH, (int) rotSec, -1, -1);
+        // the 2 symbols can have more than 8 bits (in dense modes)
+        if (unit >>> 8 != 0) {
+          FlightEvents.decodeFailed(FlightEvents.Failure.SYMBOL);
+          throw new IllegalArgumentException(
+              "Unexpected symbols: `%s` (at %d)"
+                  .formatted(new String(id, unitOffset, UNIT_LENGTH), offset + unitOffset));
+        }
+        text[i] = (byte) unit;
+        rotSec = Long.rotateRight(rotSec, rotation);
+      }
+      out.write(text, 0, units);
+      written += units;
+      // an incomplete unit is carried over to the next chunk
+      int rest = n - units * UNIT_LENGTH;
+      if (rest > 0) System.arraycopy(id, units * UNIT_LENGTH, id, 0, rest);
+      offset += units * UNIT_LENGTH;
+      int read = in.read(id, rest, id.length - rest);
+      // like decodeText an incomplete unit at the end is ignored
+      if (read < 0) break;
+      n = rest + read;
+    }
+    out.end();
+    return written;
+  }
+
+  private static int readAtLeast(ByteSource in, byte[] dst, int min) throws IOException {
+    int n = 0;
+    while (n < min) {
+      int read = in.read(dst, n, dst.length - n);
+      if (read < 0) return n;
+      n += read;
+    }
+    return n;
+  }
+
+  private static int readAtLeast(CharSource in, char[] dst, int min) throws IOException {
+    int n = 0;
+    while (n < min) {
+      int read = in.read(dst, n, dst.length - n);
+      if (read < 0) return n;
+      n += read;
+    }
+    return n;
+  }
+
+  /*
+  Adapters
+   */
+
+  static ByteSource bytesOf(ReadableByteChannel in) {
+    return (dst, offset, length) -> in.read(ByteBuffer.wrap(dst, offset, length));
+  }
+
+  static ByteSink bytesTo(WritableByteChannel out) {
+    return (src, offset, length) -> writeFully(out, ByteBuffer.wrap(src, offset, length));
+  }
+
+  /** Reads ASCII symbols from a channel */
+  static CharSource charsOf(ReadableByteChannel in) {
+    ByteBuffer ascii = ByteBuffer.allocate(UNIT_LENGTH * CHUNK_SIZE);
+    return (dst, offset, length) -> {
+      ascii.clear().limit(Math.min(length, ascii.capacity()));
+      int n = in.read(ascii);
+      byte[] bytes = ascii.array();
+      for (int i = 0; i < n; i++) dst[offset + i] = (char) (bytes[i] & 0xFF);
+      return n;
+    };
+  }
+
+  /** Writes symbols as ASCII to a channel */
+  static CharSink charsTo(WritableByteChannel out) {
+    ByteBuffer ascii = ByteBuffer.allocate(UNIT_LENGTH * CHUNK_SIZE);
+    return (src, offset, length) -> {
+      for (int from = offset; from < offset + length; from += ascii.capacity()) {
+        int n = Math.min(offset + length - from, ascii.capacity());
+        byte[] bytes = ascii.array();
+        for (int i = 0; i < n; i++) bytes[i] = (byte) src[from + i];
+        writeFully(out, ascii.clear().limit(n));
+      }
+    };
+  }
+
+  private static void writeFully(WritableByteChannel out, ByteBuffer src) throws IOException {
+    while (src.hasRemaining()) out.write(src);
+  }
+
+  /**
+   * Reads the text as UTF-8 bytes. Malformed characters are replaced the same way as {@link
+   * String#getBytes(java.nio.charset.Charset)} does.
+   *
+   * <p>OBS! A read must have room for at least 4 bytes (one character).
+   */
+  static ByteSource utf8Of(Reader in) {
+    return new ByteSource() {
+      final CharsetEncoder encoder =
+          UTF_8
+              .newEncoder()
+              .onMalformedInput(CodingErrorAction.REPLACE)
+              .onUnmappableCharacter(CodingErrorAction.REPLACE);
+      final CharBuffer chars = CharBuffer.allocate(CHUNK_SIZE).flip();
+      boolean endOfInput;
+      boolean flushed;
+
+      @Override
+      public int read(byte[] dst, int offset, int length) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(dst, offset, length);
+        while (bytes.position() == offset) {
+          if (flushed) return -1;
+          CoderResult res = encoder.encode(chars, bytes, endOfInput);
+          if (res.isOverflow()) break;
+          if (endOfInput) {
+            if (encoder.flush(bytes).isOverflow()) break;
+            flushed = true;
+          } else {
+            chars.compact();
+            endOfInput = in.read(chars) < 0;
+            chars.flip();
+          }
+        }
+        return bytes.position() - offset;
+      }
+    };
+  }
+
+  /**
+   * Writes the UTF-8 bytes as text. Malformed input is replaced the same way as {@link
+   * String#String(byte[], java.nio.charset.Charset)} does.
+   */
+  static ByteSink utf8To(Writer out) {
+    return new ByteSink() {
+      final CharsetDecoder decoder =
+          UTF_8
+              .newDecoder()
+              .onMalformedInput(CodingErrorAction.REPLACE)
+              .onUnmappableCharacter(CodingErrorAction.REPLACE);
+      // room for a chunk and the incomplete character from the previous chunk
+      final ByteBuffer bytes = ByteBuffer.allocate(CHUNK_SIZE + 4);
+      final CharBuffer chars = CharBuffer.allocate(CHUNK_SIZE);
+
+      @Override
+      public void write(byte[] src, int offset, int length) throws IOException {
+        for (int from = offset; from < offset + length; from += CHUNK_SIZE) {
+          bytes.put(src, from, Math.min(CHUNK_SIZE, offset + length - from)).flip();
+          decode(false);
+          bytes.compact();
+          drain();
+        }
+      }
+
+      @Override
+      public void end() throws IOException {
+        bytes.flip();
+        decode(true);
+        while (decoder.flush(chars).isOverflow()) drain();
+        drain();
+      }
+
+      private void decode(boolean endOfInput) throws IOException {
+        while (decoder.decode(bytes, chars, endOfInput).isOverflow()) drain();
+      }
+
+      private void drain() throws IOException {
+        out.write(chars.array(), 0, chars.position());
+        chars.clear();
+      }
+    };
+  }
+}
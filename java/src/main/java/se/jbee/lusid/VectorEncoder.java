@@ -0,0 +1,108 @@
+package se.jbee.lusid;
+
+import static se.jbee.lusid.Lusid.highInt;
+import static se.jbee.lusid.Lusid.lowInt;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Encodes a batch of values using the (incubating) vector API.
+ *
+ * <p>The bulk of the work when encoding is to find the symbol for each 3-bit triplet of data which
+ * requires a shift, a mask and a modulo to find the table used for the triplet. These are computed
+ * for as many values at once as there are lanes. Both 32-bit halves of a value are computed
+ * independent of the length their encoding has. The symbol indexes are then used to assemble the
+ * IDs one by one as the layout of each ID (its length, padding and markers) varies too much to be
+ * done in lanes, see {@link Lusid#encodeHalves(long, int, char[], int, long[], int, int)}.
+ *
+ * <p>OBS! This class must only be loaded when the {@code jdk.incubator.vector} module is available
+ * as it is an optional dependency.
+ *
+ * @author Jan Bernitt
+ */
+final class VectorEncoder {
+
+  private VectorEncoder() {}
+
+  private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+  /** Number of triplets in a 32-bit half of a value */
+  private static final int TRIPLETS = 10;
+
+  /**
+   * @return true, if the platform supports more than one long lane so that using vectors can be
+   *     faster than a scalar loop
+   */
+  static boolean isSupported() {
+    return SPECIES.length() > 1;
+  }
+
+  /**
+   * Encodes the values from index (inclusive) to index (exclusive) into the symbols array at the
+   * given offsets.
+   *
+   * @param offsets the start index in symbols for each value, the length of each ID is the
+   *     difference to the next offset
+   */
+  static void encodeLongs(
+      Lusid coder, long[] values, int from, int to, char[] symbols, int[] offsets) {
+    int lanes = SPECIES.length();
+    int tableCount = coder.tables().length / 8;
+    // start index in tables of the triplet at position i for first table t at t * TRIPLETS + i
+    long[] starts = new long[4 * TRIPLETS];
+    for (int t = 0; t < 4; t++)
+      for (int i = 0; i < TRIPLETS; i++) starts[t * TRIPLETS + i] = 8L * ((t + i) % tableCount);
+    long lowSecret = Integer.toUnsignedLong(lowInt(coder.secret()));
+    long highSecret = Integer.toUnsignedLong(highInt(coder.secret()));
+    // index in tables of triplet i of lane l at (i * lanes) + l, high half after the low half
+    long[] indexes = new long[2 * TRIPLETS * lanes];
+    boolean highUnused = coder.minLength() <= 10;
+    int i = from;
+    for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += lanes) {
+      LongVector value = LongVector.fromArray(SPECIES, values, i);
+      LongVector flipped = value.not();
+      VectorMask<Long> doFlip =
+          value.lt(0L).and(flipped.compare(VectorOperators.LE, Lusid.MAX_19));
+      value = value.blend(flipped, doFlip);
+      LongVector low = value.and(0xFFFF_FFFFL).lanewise(VectorOperators.XOR, lowSecret);
+      LongVector high = value.lanewise(VectorOperators.LSHR, 32);
+      tableIndexes(low, starts, indexes, 0);
+      // short IDs (the common case) do not encode the high half at all
+      if (!highUnused || !high.eq(0L).allTrue())
+        tableIndexes(
+            high.lanewise(VectorOperators.XOR, highSecret), starts, indexes, TRIPLETS * lanes);
+      for (int l = 0; l < lanes; l++)
+        coder.encodeHalves(
+            values[i + l], coder.minLength(), symbols, offsets[i - from + l], indexes, l, lanes);
+    }
+    for (; i < to; i++) coder.encodeLongInto(values[i], symbols, offsets[i - from]);
+  }
+
+  /**
+   * Computes the index in the tables for each of the triplets of up to 32-bits in each lane.
+   *
+   * @param secVal the value XOR secret (unsigned 32-bit in each lane)
+   */
+  private static void tableIndexes(LongVector secVal, long[] starts, long[] indexes, int offset) {
+    LongVector tableNr0 = secVal.and(0b11L);
+    VectorMask<Long> t1 = tableNr0.eq(1L);
+    VectorMask<Long> t2 = tableNr0.eq(2L);
+    VectorMask<Long> t3 = tableNr0.eq(3L);
+    int lanes = SPECIES.length();
+    for (int i = 0; i < TRIPLETS; i++) {
+      LongVector start =
+          LongVector.broadcast(SPECIES, starts[i])
+              .blend(starts[TRIPLETS + i], t1)
+              .blend(starts[2 * TRIPLETS + i], t2)
+              .blend(starts[3 * TRIPLETS + i], t3);
+      secVal
+          .lanewise(VectorOperators.LSHR, 2 + (3 * i))
+          .and(0b111L)
+          .add(start)
+          .intoArray(indexes, offset + (i * lanes));
+    }
+  }
+}
@@ -1,5 +1,7 @@
 package se.jbee.lusid;
 
+import java.util.Arrays;
+import java.util.Random;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.IntStream;
 import org.openjdk.jmh.annotations.Benchmark;
@@ -9,6 +11,10 @@ import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OperationsPerInvocation;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.infra.Blackhole;
 
@@ -48,12 +54,37 @@ public class CoderAvgBenchmark {
   private static final String[] FLOAT_IDS =
       IntStream.range(LOW_VAL, HIGH_VAL).mapToObj(MIXED::encodeFloat).toArray(String[]::new);
 
+  private static final String[] COMPACT_DOUBLE_IDS =
+      IntStream.range(LOW_VAL, HIGH_VAL)
+          .mapToObj(MIXED::encodeCompactDouble)
+          .toArray(String[]::new);
+
   @Benchmark
   @OperationsPerInvocation(LOOP_COUNT)
   public void encodeLong(Blackhole bh) {
     for (int i = LOW_VAL; i < HIGH_VAL; i++) bh.consume(MIXED.encodeLong(i));
   }
 
+  /**
+   * Encoding into a reused array does not allocate (run with {@code -prof gc} to confirm).
+   */
+  @Benchmark
+  @OperationsPerInvocation(LOOP_COUNT)
+  public void encodeLongIntoArray(Blackhole bh) {
+    char[] buf = new char[20];
+    for (int i = LOW_VAL; i < HIGH_VAL; i++) bh.consume(MIXED.encodeLongInto(i, buf, 0));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOP_COUNT)
+  public void encodeLongIntoBuilder(Blackhole bh) {
+    StringBuilder buf = new StringBuilder(20);
+    for (int i = LOW_VAL; i < HIGH_VAL; i++) {
+      buf.setLength(0);
+      bh.consume(MIXED.encodeLongInto(i, buf));
+    }
+  }
+
   @Benchmark
   @OperationsPerInvocation(LOOP_COUNT)
   public void decodeLong(Blackhole bh) {
@@ -102,6 +133,18 @@ public class CoderAvgBenchmark {
     for (int i = LOW_VAL; i < HIGH_VAL; i++) bh.consume(MIXED.decodeDouble(MIXED.encodeDouble(i)));
   }
 
+  @Benchmark
+  @OperationsPerInvocation(LOOP_COUNT)
+  public void encodeCompactDouble(Blackhole bh) {
+    for (int i = LOW_VAL; i < HIGH_VAL; i++) bh.consume(MIXED.encodeCompactDouble(i));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOP_COUNT)
+  public void decodeCompactDouble(Blackhole bh) {
+    for (String id : COMPACT_DOUBLE_IDS) bh.consume(MIXED.decodeCompactDouble(id));
+  }
+
   @Benchmark
   @OperationsPerInvocation(LOOP_COUNT)
   public void encodeFloat(Blackhole bh) {
@@ -120,6 +163,106 @@ public class CoderAvgBenchmark {
     for (int i = LOW_VAL; i < HIGH_VAL; i++) bh.consume(MIXED.decodeFloat(MIXED.encodeFloat(i)));
   }
 
+  /** Number of different names and texts used (they are much slower to encode than numbers) */
+  public static final int UNIT_COUNT = 1000;
+
+  /** Names of 3 to 16 letters as they would occur for enum constants or keys */
+  private static final String[] NAMES = randomStrings("ABCDEFGHIJKLMNOPQRSTUVWXYZ_", 3, 16);
+
+  /** Texts of 3 to 24 characters with about every 4th being a multibyte UTF-8 character */
+  private static final String[] TEXTS = randomStrings("abcdefghijk-lmnop 0123456789äöüéß€", 3, 24);
+
+  private static final String[] NAME_IDS =
+      Arrays.stream(NAMES).map(MIXED::encodeName).toArray(String[]::new);
+
+  private static final String[] TEXT_IDS =
+      Arrays.stream(TEXTS).map(MIXED::encodeText).toArray(String[]::new);
+
+  private static final String[] PACKED_TEXT_IDS =
+      Arrays.stream(TEXTS).map(MIXED::encodePackedText).toArray(String[]::new);
+
+  private static String[] randomStrings(String letters, int minLength, int maxLength) {
+    Random rnd = new Random(42);
+    String[] res = new String[UNIT_COUNT];
+    for (int i = 0; i < res.length; i++) {
+      char[] str = new char[minLength + rnd.nextInt(maxLength - minLength + 1)];
+      for (int j = 0; j < str.length; j++) str[j] = letters.charAt(rnd.nextInt(letters.length()));
+      res[i] = new String(str);
+    }
+    return res;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(UNIT_COUNT)
+  public void encodeName(Blackhole bh) {
+    for (String name : NAMES) bh.consume(MIXED.encodeName(name));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(UNIT_COUNT)
+  public void decodeName(Blackhole bh) {
+    for (String id : NAME_IDS) bh.consume(MIXED.decodeName(id));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(UNIT_COUNT)
+  public void encodeText(Blackhole bh) {
+    for (String text : TEXTS) bh.consume(MIXED.encodeText(text));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(UNIT_COUNT)
+  public void decodeText(Blackhole bh) {
+    for (String id : TEXT_IDS) bh.consume(MIXED.decodeText(id));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(UNIT_COUNT)
+  public void encodePackedText(Blackhole bh) {
+    for (String text : TEXTS) bh.consume(MIXED.encodePackedText(text));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(UNIT_COUNT)
+  public void decodePackedText(Blackhole bh) {
+    for (String id : PACKED_TEXT_IDS) bh.consume(MIXED.decodePackedText(id));
+  }
+
+  /** Encoded IDs for each of the standard {@link Coder.Mode}s (symbol lookup differs per mode) */
+  @State(Scope.Benchmark)
+  public static class ModeIds {
+
+    @Param({"MIXED", "UPPER", "LOWER", "XSAFE", "SHAPE"})
+    String mode;
+
+    Coder coder;
+    String[] ids;
+
+    @Setup
+    public void setup() {
+      coder = Coder.of(42, 8, mode(mode));
+      ids = IntStream.range(LOW_VAL, HIGH_VAL).mapToObj(coder::encodeLong).toArray(String[]::new);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOP_COUNT)
+  public void decodeLongMode(ModeIds state, Blackhole bh) {
+    Coder coder = state.coder;
+    for (String id : state.ids) bh.consume(coder.decodeLong(id));
+  }
+
+  static Coder.Mode mode(String name) {
+    return switch (name) {
+      case "MIXED" -> Coder.Mode.MIXED;
+      case "UPPER" -> Coder.Mode.UPPER;
+      case "LOWER" -> Coder.Mode.LOWER;
+      case "XSAFE" -> Coder.Mode.XSAFE;
+      case "SHAPE" -> Coder.Mode.SHAPE;
+      default -> throw new IllegalArgumentException(name);
+    };
+  }
+
   public static void main(String[] args) throws Exception {
     org.openjdk.jmh.Main.main(args);
   }
@@ -0,0 +1,121 @@
+package se.jbee.lusid;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares encoding and decoding with the plain {@link Coder} against the caching coders for keys
+ * following a Zipf distribution (a few keys are encoded most of the time) and a uniform
+ * distribution (every key is as likely) over one million keys. IDs to decode are distinct {@link
+ * String} instances (as they would be when parsed from requests).
+ *
+ * @author Jan Bernitt
+ */
+@Fork(value = 1, warmups = 1)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Threads(4)
+public class CoderCachedBenchmark {
+
+  private static final Coder MIXED = Coder.of(42, 8);
+
+  public static final int KEY_COUNT = 1_000_000;
+  public static final int LOOP_COUNT = 100_000;
+
+  @Param({"zipf", "uniform"})
+  String distribution;
+
+  @Param({"4096", "65536"})
+  int capacity;
+
+  private long[] keys;
+  private String[] ids;
+  private Coder.Cached cached;
+  private Coder.Cached dense;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Random rnd = new Random(42);
+    keys = new long[LOOP_COUNT];
+    if (distribution.equals("zipf")) {
+      double[] cdf = zipfCdf(KEY_COUNT, 1d);
+      for (int i = 0; i < keys.length; i++) {
+        int rank = Arrays.binarySearch(cdf, rnd.nextDouble());
+        keys[i] = rank < 0 ? -rank - 1 : rank;
+      }
+    } else {
+      for (int i = 0; i < keys.length; i++) keys[i] = rnd.nextInt(KEY_COUNT);
+    }
+    ids = new String[keys.length];
+    for (int i = 0; i < keys.length; i++) ids[i] = new String(MIXED.encodeLong(keys[i]));
+    cached = Coder.cached(MIXED, capacity, capacity);
+    dense = Coder.cachedDense(MIXED, KEY_COUNT);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    System.out.printf(
+        "%ncached: %.2f (decode %.2f), dense: %.2f hit ratio%n",
+        cached.encodeStats().hitRatio(),
+        cached.decodeStats().hitRatio(),
+        dense.encodeStats().hitRatio());
+  }
+
+  private static double[] zipfCdf(int n, double s) {
+    double[] cdf = new double[n];
+    double sum = 0;
+    for (int k = 1; k <= n; k++) cdf[k - 1] = sum += 1d / Math.pow(k, s);
+    for (int i = 0; i < n; i++) cdf[i] /= sum;
+    return cdf;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOP_COUNT)
+  public void encodeLongPlain(Blackhole bh) {
+    for (long key : keys) bh.consume(MIXED.encodeLong(key));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOP_COUNT)
+  public void encodeLongCached(Blackhole bh) {
+    for (long key : keys) bh.consume(cached.encodeLong(key));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOP_COUNT)
+  public void encodeLongCachedDense(Blackhole bh) {
+    for (long key : keys) bh.consume(dense.encodeLong(key));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOP_COUNT)
+  public void decodeLongPlain(Blackhole bh) {
+    for (String id : ids) bh.consume(MIXED.decodeLong(id));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOP_COUNT)
+  public void decodeLongCached(Blackhole bh) {
+    for (String id : ids) bh.consume(cached.decodeLong(id));
+  }
+}
@@ -0,0 +1,85 @@
+package se.jbee.lusid;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares encoding and decoding a batch of values one by one (to {@link String}s) with the packed
+ * {@link Coder.Column} batch API.
+ *
+ * @author Jan Bernitt
+ */
+@Fork(value = 1, warmups = 1)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CoderColumnBenchmark {
+
+  private static final Coder MIXED = Coder.of(42, 8);
+
+  public static final int LOOP_COUNT = 1_000_000;
+
+  private static final long[] VALUES = LongStream.range(0, LOOP_COUNT).toArray();
+
+  private static final String[] IDS =
+      LongStream.of(VALUES).mapToObj(MIXED::encodeLong).toArray(String[]::new);
+
+  private static final Coder.Column COLUMN = MIXED.encodeLongColumn(VALUES, 0, LOOP_COUNT);
+
+  private static final Coder.AsciiColumn ASCII_COLUMN =
+      MIXED.encodeLongAsciiColumn(VALUES, 0, LOOP_COUNT);
+
+  @Benchmark
+  @OperationsPerInvocation(LOOP_COUNT)
+  public String[] encodeLongLoop() {
+    String[] ids = new String[VALUES.length];
+    for (int i = 0; i < ids.length; i++) ids[i] = MIXED.encodeLong(VALUES[i]);
+    return ids;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOP_COUNT)
+  public Coder.Column encodeLongColumn() {
+    return MIXED.encodeLongColumn(VALUES, 0, VALUES.length);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOP_COUNT)
+  public Coder.AsciiColumn encodeLongAsciiColumn() {
+    return MIXED.encodeLongAsciiColumn(VALUES, 0, VALUES.length);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOP_COUNT)
+  public long[] decodeLongLoop() {
+    long[] values = new long[IDS.length];
+    for (int i = 0; i < values.length; i++) values[i] = MIXED.decodeLong(IDS[i]);
+    return values;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOP_COUNT)
+  public long[] decodeLongColumn() {
+    return MIXED.decodeLongColumn(COLUMN);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOP_COUNT)
+  public long[] decodeLongAsciiColumn() {
+    return MIXED.decodeLongColumn(ASCII_COLUMN);
+  }
+
+  public static void main(String[] args) throws Exception {
+    org.openjdk.jmh.Main.main(args);
+  }
+}
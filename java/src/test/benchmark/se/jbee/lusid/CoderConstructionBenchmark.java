@@ -0,0 +1,78 @@
+package se.jbee.lusid;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time it takes to create a {@link Coder}, once for the very first use in a fresh JVM
+ * (cold start) and once in steady state after many coders have been created before.
+ *
+ * @author Jan Bernitt
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class CoderConstructionBenchmark {
+
+  private static final List<String> TABLES =
+      List.of("BCDFGJKL", "mnpstvxz", "bcdfgjkl", "MNPSTVXZ", "aeiouhrw", "01234567", "AEIOUHRW");
+
+  private long secret = 1;
+
+  /** The very first coder created in a JVM */
+  @Benchmark
+  @Fork(20)
+  @Warmup(iterations = 0)
+  @Measurement(iterations = 1)
+  public Coder firstUse() {
+    return Coder.of(42L, 8);
+  }
+
+  /** Same as {@link #firstUse()} but also creating (and validating) the mode */
+  @Benchmark
+  @Fork(20)
+  @Warmup(iterations = 0)
+  @Measurement(iterations = 1)
+  public Coder firstUseNewMode() {
+    return Coder.of(42L, 8, new Coder.Mode('Q', 'y', '9', '8', TABLES));
+  }
+
+  /** Creating the same coder again */
+  @Benchmark
+  @Fork(1)
+  @Warmup(iterations = 10_000)
+  @Measurement(iterations = 10_000)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public Coder steadyStateSame() {
+    return Coder.of(42L, 8);
+  }
+
+  /** Creating a coder for a new secret (like for a new tenant) */
+  @Benchmark
+  @Fork(1)
+  @Warmup(iterations = 10_000)
+  @Measurement(iterations = 10_000)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public Coder steadyStateNewSecret() {
+    return Coder.of(secret++, 8);
+  }
+
+  /** Creating a coder and a new but equal mode */
+  @Benchmark
+  @Fork(1)
+  @Warmup(iterations = 10_000)
+  @Measurement(iterations = 10_000)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public Coder steadyStateNewMode() {
+    return Coder.of(42L, 8, new Coder.Mode('Q', 'y', '9', '8', TABLES));
+  }
+}
@@ -0,0 +1,84 @@
+package se.jbee.lusid;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares encoding and decoding IDs of sorted keys as they would occur for a page or selection
+ * of database rows using {@link Coder#encodeLongs(long...)} and {@link
+ * Coder#encodeDeltaLongs(long...)}.
+ *
+ * <p>The keys are in the millions with gaps of 1-100 between them. The length of both IDs is
+ * printed at setup.
+ *
+ * @author Jan Bernitt
+ */
+@Fork(value = 1, warmups = 1)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class CoderDeltaLongsBenchmark {
+
+  private static final Coder MIXED = Coder.of(42, 8);
+
+  @Param({"10", "100", "1000"})
+  int keys;
+
+  long[] values;
+  String id;
+  String deltaId;
+
+  @Setup
+  public void setup() {
+    Random rnd = new Random(42);
+    values = new long[keys];
+    long key = 1_000_000L + rnd.nextInt(10_000_000);
+    for (int i = 0; i < keys; i++) values[i] = key += 1 + rnd.nextInt(100);
+    id = MIXED.encodeLongs(values);
+    deltaId = MIXED.encodeDeltaLongs(values);
+    System.out.printf("%nLength: joined %d, delta %d%n", id.length(), deltaId.length());
+  }
+
+  @Benchmark
+  public String encodeLongs() {
+    return MIXED.encodeLongs(values);
+  }
+
+  @Benchmark
+  public String encodeDeltaLongs() {
+    return MIXED.encodeDeltaLongs(values);
+  }
+
+  @Benchmark
+  public long[] decodeLongs() {
+    return MIXED.decodeLongs(id);
+  }
+
+  @Benchmark
+  public long[] decodeDeltaLongs() {
+    return MIXED.decodeDeltaLongs(deltaId);
+  }
+
+  @Benchmark
+  public int decodeDeltaLongsConsumer(Blackhole bh) {
+    return MIXED.decodeDeltaLongs(deltaId, 0, deltaId.length(), bh::consume);
+  }
+
+  public static void main(String[] args) throws Exception {
+    org.openjdk.jmh.Main.main(args);
+  }
+}
@@ -0,0 +1,78 @@
+package se.jbee.lusid;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares encoding and decoding with the 3 bit {@link Coder.Mode#MIXED} against the dense modes
+ * using 4, 5 or 6 bits per symbol for random values of random magnitude (minimum length 1).
+ *
+ * <p>The average and maximum ID length for the values is printed at setup.
+ *
+ * @author Jan Bernitt
+ */
+@Fork(value = 1, warmups = 1)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class CoderDenseBenchmark {
+
+  public static final int LOOP_COUNT = 10_000;
+
+  @Param({"MIXED", "DENSE16", "DENSE32", "DENSE64"})
+  String mode;
+
+  private Coder coder;
+  private long[] values;
+  private String[] ids;
+  private char[] buf;
+
+  @Setup
+  public void setup() throws ReflectiveOperationException {
+    Coder.Mode m = (Coder.Mode) Coder.Mode.class.getField(mode).get(null);
+    coder = Coder.of(42, 1, m);
+    Random rnd = new Random(42);
+    values =
+        LongStream.generate(() -> rnd.nextLong() >> rnd.nextInt(64)).limit(LOOP_COUNT).toArray();
+    ids = LongStream.of(values).mapToObj(coder::encodeLong).toArray(String[]::new);
+    buf = new char[20];
+    int max = 0;
+    long sum = 0;
+    for (String id : ids) {
+      max = Math.max(max, id.length());
+      sum += id.length();
+    }
+    System.out.printf("%nLength: avg %.2f, max %d%n", (double) sum / ids.length, max);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOP_COUNT)
+  public int encodeLongIntoArray() {
+    int length = 0;
+    for (long value : values) length += coder.encodeLongInto(value, buf, 0);
+    return length;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOP_COUNT)
+  public long decodeLong() {
+    long sum = 0;
+    for (String id : ids) sum += coder.decodeLong(id);
+    return sum;
+  }
+}
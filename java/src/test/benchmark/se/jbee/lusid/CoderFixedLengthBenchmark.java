@@ -0,0 +1,74 @@
+package se.jbee.lusid;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares encoding and decoding IDs of a coder with a minimum length of 20 against the IDs of a
+ * {@link Coder#ofFixedLength(long, Coder.Mode)} coder (both always 20 characters) for random values
+ * of random magnitude.
+ *
+ * <p>Decoding a fixed length ID does not search for the flip and pad markers.
+ *
+ * @author Jan Bernitt
+ */
+@Fork(value = 1, warmups = 1)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class CoderFixedLengthBenchmark {
+
+  public static final int LOOP_COUNT = 10_000;
+
+  @Param({"PADDED", "FIXED"})
+  String layout;
+
+  private Coder coder;
+  private long[] values;
+  private String[] ids;
+  private char[] buf;
+
+  @Setup
+  public void setup() {
+    coder =
+        layout.equals("FIXED")
+            ? Coder.ofFixedLength(42, Coder.Mode.MIXED)
+            : Coder.of(42, 20, Coder.Mode.MIXED);
+    Random rnd = new Random(42);
+    values =
+        LongStream.generate(() -> rnd.nextLong() >> rnd.nextInt(64)).limit(LOOP_COUNT).toArray();
+    ids = LongStream.of(values).mapToObj(coder::encodeLong).toArray(String[]::new);
+    buf = new char[20];
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOP_COUNT)
+  public int encodeLongIntoArray() {
+    int length = 0;
+    for (long value : values) length += coder.encodeLongInto(value, buf, 0);
+    return length;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOP_COUNT)
+  public long decodeLong() {
+    long sum = 0;
+    for (String id : ids) sum += coder.decodeLong(id);
+    return sum;
+  }
+}
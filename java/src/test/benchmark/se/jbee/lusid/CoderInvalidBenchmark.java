@@ -0,0 +1,91 @@
+package se.jbee.lusid;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures decoding input where 90% of the IDs are invalid, as it would be the case for a public
+ * endpoint that is probed with garbage. Half of the invalid IDs are random text, the other half are
+ * valid IDs with a single symbol changed.
+ *
+ * @author Jan Bernitt
+ */
+@Fork(value = 1, warmups = 1)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CoderInvalidBenchmark {
+
+  private static final Coder MIXED = Coder.of(42, 8);
+
+  public static final int ID_COUNT = 10_000;
+
+  private static final String[] IDS = mostlyInvalidIds(new Random(42));
+
+  private static String[] mostlyInvalidIds(Random rnd) {
+    String garbage = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789-_./%";
+    String[] ids = new String[ID_COUNT];
+    for (int i = 0; i < ids.length; i++) {
+      String id = MIXED.encodeLong(rnd.nextInt(10_000_000));
+      if (i % 10 != 0) {
+        do {
+          char[] invalid = id.toCharArray();
+          if (i % 2 == 0) {
+            invalid = new char[1 + rnd.nextInt(12)];
+            for (int j = 0; j < invalid.length; j++)
+              invalid[j] = garbage.charAt(rnd.nextInt(garbage.length()));
+          } else {
+            invalid[rnd.nextInt(invalid.length)] = garbage.charAt(rnd.nextInt(garbage.length()));
+          }
+          id = new String(invalid);
+        } while (MIXED.isValid(id));
+      }
+      ids[i] = id;
+    }
+    return ids;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ID_COUNT)
+  public void decodeLongCatch(Blackhole bh) {
+    for (String id : IDS) {
+      try {
+        bh.consume(MIXED.decodeLong(id));
+      } catch (IllegalArgumentException ex) {
+        bh.consume(ex);
+      }
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ID_COUNT)
+  public void tryDecodeLong(Blackhole bh) {
+    for (String id : IDS) bh.consume(MIXED.tryDecodeLong(id));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ID_COUNT)
+  public void tryDecodeLongOrElse(Blackhole bh) {
+    for (String id : IDS) bh.consume(MIXED.tryDecodeLong(id).orElse(-1L));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ID_COUNT)
+  public void isValid(Blackhole bh) {
+    for (String id : IDS) bh.consume(MIXED.isValid(id));
+  }
+
+  public static void main(String[] args) throws Exception {
+    org.openjdk.jmh.Main.main(args);
+  }
+}
@@ -0,0 +1,100 @@
+package se.jbee.lusid;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures encoding and decoding IDs of multiple joined values ({@link Coder#encodeLongs(long...)})
+ * with different numbers of components. Decoding is done into an array, a consumer and a lazy
+ * stream.
+ *
+ * @author Jan Bernitt
+ */
+@Fork(value = 1, warmups = 1)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class CoderLongsBenchmark {
+
+  private static final Coder MIXED = Coder.of(42, 8);
+
+  @Param({"2", "10", "100", "500"})
+  int components;
+
+  long[] values;
+  int[] ints;
+  double[] doubles;
+  String id;
+  String intsId;
+  String doublesId;
+
+  @Setup
+  public void setup() {
+    Random rnd = new Random(42);
+    // mostly small values as they would occur for database IDs
+    values = rnd.longs(components, 0, 10_000_000).toArray();
+    ints = rnd.ints(components).toArray();
+    doubles = rnd.doubles(components).toArray();
+    id = MIXED.encodeLongs(values);
+    intsId = MIXED.encodeInts(ints);
+    doublesId = MIXED.encodeDoubles(doubles);
+  }
+
+  @Benchmark
+  public String encodeLongs() {
+    return MIXED.encodeLongs(values);
+  }
+
+  @Benchmark
+  public String encodeInts() {
+    return MIXED.encodeInts(ints);
+  }
+
+  @Benchmark
+  public String encodeDoubles() {
+    return MIXED.encodeDoubles(doubles);
+  }
+
+  @Benchmark
+  public int[] decodeInts() {
+    return MIXED.decodeInts(intsId);
+  }
+
+  @Benchmark
+  public double[] decodeDoubles() {
+    return MIXED.decodeDoubles(doublesId);
+  }
+
+  @Benchmark
+  public long[] decodeLongs() {
+    return MIXED.decodeLongs(id);
+  }
+
+  @Benchmark
+  public int decodeLongsConsumer(Blackhole bh) {
+    return MIXED.decodeLongs(id, 0, id.length(), bh::consume);
+  }
+
+  @Benchmark
+  public long decodeLongStream() {
+    return MIXED.decodeLongStream(id, 0, id.length()).sum();
+  }
+
+  public static void main(String[] args) throws Exception {
+    org.openjdk.jmh.Main.main(args);
+  }
+}
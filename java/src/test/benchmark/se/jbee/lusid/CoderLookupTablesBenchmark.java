@@ -0,0 +1,75 @@
+package se.jbee.lusid;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares encoding and decoding with and without {@link Coder#withLookupTables(int)} for
+ * different number of triplets per lookup (1 being no lookup tables) using IDs of 20 characters
+ * (random values, minimum length 20) where most time is spent on the data symbols.
+ *
+ * <p>Footprint of the shared tables for {@link Coder.Mode#MIXED} is printed at setup.
+ *
+ * @author Jan Bernitt
+ */
+@Fork(value = 1, warmups = 1)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class CoderLookupTablesBenchmark {
+
+  public static final int LOOP_COUNT = 10_000;
+
+  @Param({"1", "2", "3", "4"})
+  int triplets;
+
+  private Coder coder;
+  private long[] values;
+  private String[] ids;
+  private char[] buf;
+
+  @Setup
+  public void setup() {
+    coder = Coder.of(42, 20).withLookupTables(triplets);
+    Random rnd = new Random(42);
+    values = LongStream.generate(rnd::nextLong).limit(LOOP_COUNT).toArray();
+    ids = LongStream.of(values).mapToObj(coder::encodeLong).toArray(String[]::new);
+    buf = new char[20];
+    ChunkTables chunks = ((Lusid) coder).chunks();
+    if (chunks != null)
+      System.out.printf(
+          "%nTables: encode %d bytes, decode %d bytes%n",
+          chunks.encode.length * 2, chunks.decode == null ? 0 : chunks.decode.length);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOP_COUNT)
+  public int encodeLongIntoArray() {
+    int length = 0;
+    for (long value : values) length += coder.encodeLongInto(value, buf, 0);
+    return length;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOP_COUNT)
+  public long decodeLong() {
+    long sum = 0;
+    for (String id : ids) sum += coder.decodeLong(id);
+    return sum;
+  }
+}
@@ -0,0 +1,75 @@
+package se.jbee.lusid;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the overhead of metering ({@link Coder#metered(Coder, boolean)}) compared to the plain
+ * {@link Coder} when encoding and decoding from multiple threads (sharing the meters).
+ *
+ * @author Jan Bernitt
+ */
+@Fork(value = 1, warmups = 1)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Threads(4)
+public class CoderMeteredBenchmark {
+
+  private static final Coder MIXED = Coder.of(42, 8);
+
+  public static final int LOOP_COUNT = 10_000;
+
+  /** plain: not metered, counts: metered without latency, latency: metered with latency */
+  @Param({"plain", "counts", "latency"})
+  String metering;
+
+  private Coder coder;
+  private long[] values;
+  private String[] ids;
+
+  @Setup
+  public void setup() {
+    coder =
+        switch (metering) {
+          case "counts" -> Coder.metered(MIXED, false);
+          case "latency" -> Coder.metered(MIXED, true);
+          default -> MIXED;
+        };
+    values = new Random(42).longs(LOOP_COUNT, 0, 10_000_000).toArray();
+    ids = new String[LOOP_COUNT];
+    for (int i = 0; i < LOOP_COUNT; i++) ids[i] = MIXED.encodeLong(values[i]);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOP_COUNT)
+  public void encodeLong(Blackhole bh) {
+    for (long value : values) bh.consume(coder.encodeLong(value));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOP_COUNT)
+  public void decodeLong(Blackhole bh) {
+    for (String id : ids) bh.consume(coder.decodeLong(id));
+  }
+
+  public static void main(String[] args) throws Exception {
+    org.openjdk.jmh.Main.main(args);
+  }
+}
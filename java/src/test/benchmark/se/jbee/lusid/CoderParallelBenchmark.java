@@ -0,0 +1,81 @@
+package se.jbee.lusid;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Shows how {@link Coder#encodeLongEach(long[], java.util.concurrent.Executor, int)} and {@link
+ * Coder#decodeLongEach(String[], java.util.concurrent.Executor, int)} scale with the number of
+ * threads for different input sizes. Threads 0 is the sequential baseline loop.
+ *
+ * <p>Note that the scaling curve only makes sense when run on a machine with at least as many
+ * cores as the highest thread count.
+ *
+ * @author Jan Bernitt
+ */
+@Fork(value = 1, warmups = 1)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class CoderParallelBenchmark {
+
+  private static final Coder MIXED = Coder.of(42, 8);
+
+  @Param({"1000", "100000", "1000000"})
+  int size;
+
+  @Param({"0", "1", "2", "4", "8"})
+  int threads;
+
+  private long[] values;
+  private String[] ids;
+  private ForkJoinPool pool;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    values = LongStream.range(0, size).map(v -> v * 7919L).toArray();
+    ids = LongStream.of(values).mapToObj(MIXED::encodeLong).toArray(String[]::new);
+    pool = threads == 0 ? null : new ForkJoinPool(threads);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    if (pool != null) pool.shutdown();
+  }
+
+  @Benchmark
+  public String[] encodeLongEach() {
+    if (pool == null) {
+      String[] res = new String[values.length];
+      for (int i = 0; i < res.length; i++) res[i] = MIXED.encodeLong(values[i]);
+      return res;
+    }
+    return MIXED.encodeLongEach(values, pool, Coder.PARALLEL_THRESHOLD);
+  }
+
+  @Benchmark
+  public long[] decodeLongEach() {
+    if (pool == null) {
+      long[] res = new long[ids.length];
+      for (int i = 0; i < res.length; i++) res[i] = MIXED.decodeLong(ids[i]);
+      return res;
+    }
+    return MIXED.decodeLongEach(ids, pool, Coder.PARALLEL_THRESHOLD);
+  }
+}
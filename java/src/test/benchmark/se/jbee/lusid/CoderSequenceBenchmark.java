@@ -0,0 +1,88 @@
+package se.jbee.lusid;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares minting new IDs using a {@link Coder#sequence(Coder, Coder.HighWaterMark, int)} against
+ * a shared {@link AtomicLong} for 1 to 64 threads.
+ *
+ * @author Jan Bernitt
+ */
+@Fork(value = 1, warmups = 1)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class CoderSequenceBenchmark {
+
+  private static final Coder MIXED = Coder.of(42, 8);
+
+  private final AtomicLong counter = new AtomicLong();
+
+  private final Coder.Sequence sequence =
+      Coder.sequence(MIXED, Coder.HighWaterMark.inMemory(0L), 1024);
+
+  @Benchmark
+  @Threads(1)
+  public String atomic_01() {
+    return MIXED.encodeLong(counter.getAndIncrement());
+  }
+
+  @Benchmark
+  @Threads(4)
+  public String atomic_04() {
+    return MIXED.encodeLong(counter.getAndIncrement());
+  }
+
+  @Benchmark
+  @Threads(16)
+  public String atomic_16() {
+    return MIXED.encodeLong(counter.getAndIncrement());
+  }
+
+  @Benchmark
+  @Threads(64)
+  public String atomic_64() {
+    return MIXED.encodeLong(counter.getAndIncrement());
+  }
+
+  @Benchmark
+  @Threads(1)
+  public String sequence_01() {
+    return sequence.nextId();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public String sequence_04() {
+    return sequence.nextId();
+  }
+
+  @Benchmark
+  @Threads(16)
+  public String sequence_16() {
+    return sequence.nextId();
+  }
+
+  @Benchmark
+  @Threads(64)
+  public String sequence_64() {
+    return sequence.nextId();
+  }
+
+  public static void main(String[] args) throws Exception {
+    org.openjdk.jmh.Main.main(args);
+  }
+}
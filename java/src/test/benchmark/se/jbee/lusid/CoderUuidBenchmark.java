@@ -0,0 +1,104 @@
+package se.jbee.lusid;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares encoding and decoding {@link UUID}s with {@link Coder#encodeUuid(UUID)} (always 26
+ * characters) against {@link UUID#toString()} (always 36 characters) and against encoding both
+ * halves with {@link Coder#encodeLongs(long...)} (up to 41 characters).
+ *
+ * @author Jan Bernitt
+ */
+@Fork(value = 1, warmups = 1)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CoderUuidBenchmark {
+
+  private static final Coder MIXED = Coder.of(42, 8);
+
+  public static final int UUID_COUNT = 1000;
+
+  private static final UUID[] UUIDS = randomUuids(new Random(42));
+
+  private static final String[] IDS = new String[UUID_COUNT];
+  private static final String[] STRINGS = new String[UUID_COUNT];
+  private static final String[] JOINED = new String[UUID_COUNT];
+
+  static {
+    for (int i = 0; i < UUID_COUNT; i++) {
+      UUID uuid = UUIDS[i];
+      IDS[i] = MIXED.encodeUuid(uuid);
+      STRINGS[i] = uuid.toString();
+      JOINED[i] =
+          MIXED.encodeLongs(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+  }
+
+  private static UUID[] randomUuids(Random rnd) {
+    UUID[] uuids = new UUID[UUID_COUNT];
+    for (int i = 0; i < UUID_COUNT; i++) {
+      // version 4 (random) UUIDs
+      long msb = (rnd.nextLong() & ~0xF000L) | 0x4000L;
+      long lsb = (rnd.nextLong() & ~(0b11L << 62)) | (0b10L << 62);
+      uuids[i] = new UUID(msb, lsb);
+    }
+    return uuids;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(UUID_COUNT)
+  public void encodeUuid(Blackhole bh) {
+    for (UUID uuid : UUIDS) bh.consume(MIXED.encodeUuid(uuid));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(UUID_COUNT)
+  public void encodeUuidLongs(Blackhole bh) {
+    for (UUID uuid : UUIDS)
+      bh.consume(MIXED.encodeLongs(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(UUID_COUNT)
+  public void toStringUuid(Blackhole bh) {
+    for (UUID uuid : UUIDS) bh.consume(uuid.toString());
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(UUID_COUNT)
+  public void decodeUuid(Blackhole bh) {
+    for (String id : IDS) bh.consume(MIXED.decodeUuid(id));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(UUID_COUNT)
+  public void decodeUuidLongs(Blackhole bh) {
+    for (String id : JOINED) {
+      long[] bits = MIXED.decodeLongs(id);
+      bh.consume(new UUID(bits[0], bits[1]));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(UUID_COUNT)
+  public void fromStringUuid(Blackhole bh) {
+    for (String str : STRINGS) bh.consume(UUID.fromString(str));
+  }
+
+  public static void main(String[] args) throws Exception {
+    org.openjdk.jmh.Main.main(args);
+  }
+}
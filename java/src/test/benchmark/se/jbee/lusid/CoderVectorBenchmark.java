@@ -0,0 +1,69 @@
+package se.jbee.lusid;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the scalar batch loop used to encode a {@link Coder.Column} with the {@link
+ * VectorEncoder}. Needs to run with {@code --add-modules jdk.incubator.vector}.
+ *
+ * @author Jan Bernitt
+ */
+@Fork(value = 1, warmups = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class CoderVectorBenchmark {
+
+  private static final Lusid MIXED = (Lusid) Coder.of(42, 8);
+
+  public static final int LOOP_COUNT = 100_000;
+
+  /** Sequential values are short IDs with padding, random values are long IDs and often flipped */
+  @Param({"sequential", "random"})
+  String values;
+
+  private long[] input;
+  private int[] offsets;
+  private char[] symbols;
+
+  @Setup
+  public void setup() {
+    Random rnd = new Random(42);
+    input =
+        values.equals("random")
+            ? LongStream.generate(rnd::nextLong).limit(LOOP_COUNT).toArray()
+            : LongStream.range(0, LOOP_COUNT).toArray();
+    offsets = MIXED.encodeLongColumn(input, 0, LOOP_COUNT).offsets();
+    symbols = new char[offsets[LOOP_COUNT]];
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOP_COUNT)
+  public char[] encodeLongScalar() {
+    for (int i = 0; i < LOOP_COUNT; i++) MIXED.encodeLongInto(input[i], symbols, offsets[i]);
+    return symbols;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOP_COUNT)
+  public char[] encodeLongVector() {
+    VectorEncoder.encodeLongs(MIXED, input, 0, LOOP_COUNT, symbols, offsets);
+    return symbols;
+  }
+}
@@ -4,6 +4,9 @@ import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.util.List;
+import java.util.Random;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
@@ -48,6 +51,33 @@ class CoderArrayTest {
     assertEncodesInMax(83, 111d, 222d, 333d, 444d);
   }
 
+  @Test
+  void testLongs_EncodedLength() {
+    Random rnd = new Random(42);
+    for (int minLength = 1; minLength <= 20; minLength++) {
+      Coder coder = Coder.of(42L, minLength);
+      for (int n = 0; n < 1000; n++) {
+        // mix of small, large and negative values so both padding and flipping occur
+        long[] values = new long[rnd.nextInt(5)];
+        for (int i = 0; i < values.length; i++) values[i] = rnd.nextLong() >> rnd.nextInt(64);
+        String id = coder.encodeLongs(values);
+        assertEquals(id.length(), coder.encodedLength(values));
+        assertArrayEquals(values, coder.decodeLongs(id));
+      }
+    }
+  }
+
+  @Test
+  void testIntsAndDoubles_SameAsLongs() {
+    Coder coder = Coder.of(42L, 12);
+    int[] ints = new Random(42).ints(50).toArray();
+    long[] intBits = IntStream.of(ints).asLongStream().toArray();
+    assertEquals(coder.encodeLongs(intBits), coder.encodeInts(ints));
+    double[] doubles = new Random(42).doubles(50).toArray();
+    long[] doubleBits = DoubleStream.of(doubles).mapToLong(Double::doubleToRawLongBits).toArray();
+    assertEquals(coder.encodeLongs(doubleBits), coder.encodeDoubles(doubles));
+  }
+
   private static void assertEncodesInMax(int maxLength, long... actualValues) {
     MODES.forEach(mode -> assertEncodesInMax(mode, maxLength, actualValues));
   }
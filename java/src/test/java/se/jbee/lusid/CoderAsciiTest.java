@@ -0,0 +1,165 @@
+package se.jbee.lusid;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import se.jbee.lusid.Coder.Mode;
+
+/**
+ * Tests the ASCII byte de/encoding methods like {@link Coder#encodeLongInto(long, byte[], int)}
+ * and {@link Coder#decodeLong(ByteBuffer, int, int)}.
+ */
+class CoderAsciiTest {
+
+  private static final List<Mode> MODES =
+      List.of(Mode.MIXED, Mode.LOWER, Mode.UPPER, Mode.XSAFE, Mode.SHAPE);
+
+  private static final long[] VALUES = {
+    0, 1, -1, 42, -42, 1234567, -1234567, 123456789012L, Long.MAX_VALUE, Long.MIN_VALUE
+  };
+
+  @Test
+  void testLong_ByteArray() {
+    for (Mode mode : MODES)
+      for (int minLength : new int[] {1, 8, 20}) {
+        Coder coder = Coder.of(67L, minLength, mode);
+        byte[] buf = new byte[24];
+        for (long value : VALUES) {
+          byte[] expected = coder.encodeLong(value).getBytes(US_ASCII);
+          int length = coder.encodeLongInto(value, buf, 2);
+          assertEquals(expected.length, length);
+          assertArrayEquals(expected, Arrays.copyOfRange(buf, 2, 2 + length));
+          assertEquals(value, coder.decodeLong(buf, 2, 2 + length));
+        }
+      }
+  }
+
+  @Test
+  void testLong_ByteBuffer() {
+    Coder coder = Coder.of(67L, 8);
+    for (ByteBuffer buf : buffers(64)) {
+      for (long value : VALUES) {
+        buf.clear().put((byte) '/');
+        int length = coder.encodeLongInto(value, buf);
+        assertEquals(1 + length, buf.position());
+        assertEquals(coder.encodeLong(value), US_ASCII.decode(buf.flip().position(1)).toString());
+        assertEquals(value, coder.decodeLong(buf, 1, 1 + length));
+      }
+    }
+  }
+
+  @Test
+  void testLongs_ByteArray() {
+    for (Mode mode : MODES) {
+      Coder coder = Coder.of(67L, 12, mode);
+      byte[] expected = coder.encodeLongs(VALUES).getBytes(US_ASCII);
+      assertEquals(expected.length, coder.encodedLength(VALUES));
+      byte[] buf = new byte[expected.length + 1];
+      assertEquals(expected.length, coder.encodeLongsInto(VALUES, buf, 1));
+      assertArrayEquals(expected, Arrays.copyOfRange(buf, 1, buf.length));
+      assertArrayEquals(VALUES, coder.decodeLongs(buf, 1, buf.length));
+    }
+  }
+
+  @Test
+  void testLongs_ByteBuffer() {
+    Coder coder = Coder.of(67L, 12);
+    String expected = coder.encodeLongs(VALUES);
+    for (ByteBuffer buf : buffers(256)) {
+      assertEquals(expected.length(), coder.encodeLongsInto(VALUES, buf));
+      assertEquals(expected, US_ASCII.decode(buf.flip()).toString());
+      assertArrayEquals(VALUES, coder.decodeLongs(buf, 0, expected.length()));
+    }
+  }
+
+  @Test
+  void testEncodeInto_Overflow() {
+    Coder coder = Coder.of(67L, 8);
+    assertThrows(IndexOutOfBoundsException.class, () -> coder.encodeLongInto(1L, new byte[7], 0));
+    assertThrows(
+        BufferOverflowException.class, () -> coder.encodeLongInto(1L, ByteBuffer.allocate(7)));
+  }
+
+  @Test
+  void testDecode_NonAsciiByte() {
+    Coder coder = Coder.of(67L, 8);
+    byte[] id = coder.encodeLong(42L).getBytes(US_ASCII);
+    id[id.length - 1] = (byte) 0xC3;
+    assertThrows(IllegalArgumentException.class, () -> coder.decodeLong(id, 0, id.length));
+  }
+
+  @Test
+  void testDecode_MessageOnlyFromRange() {
+    Coder coder = Coder.of(67L, 8);
+    byte[] secret = "Authorization: Bearer 0123456789;".getBytes(US_ASCII);
+    String symbols = String.join("", Mode.MIXED.tables()) + "#";
+    Random rnd = new Random(42);
+    for (int i = 0; i < 1000; i++) {
+      byte[] id = new byte[1 + rnd.nextInt(20)];
+      for (int j = 0; j < id.length; j++)
+        id[j] = (byte) symbols.charAt(rnd.nextInt(symbols.length()));
+      int from = secret.length;
+      int to = from + id.length;
+      byte[] request = new byte[to + secret.length];
+      System.arraycopy(secret, 0, request, 0, from);
+      System.arraycopy(id, 0, request, from, id.length);
+      System.arraycopy(secret, 0, request, to, secret.length);
+      assertMessageOnlyFromRange(() -> coder.decodeLong(request, from, to));
+      for (ByteBuffer buf : buffers(request.length)) {
+        buf.put(request).flip();
+        assertMessageOnlyFromRange(() -> coder.decodeLong(buf, from, to));
+      }
+    }
+  }
+
+  private static void assertMessageOnlyFromRange(Executable decode) {
+    try {
+      decode.execute();
+    } catch (IllegalArgumentException ex) {
+      assertFalse(ex.getMessage().contains("Bearer"), ex.getMessage());
+    } catch (Throwable ex) {
+      fail(ex);
+    }
+  }
+
+  @Test
+  void testAsciiChars_SubSequence() {
+    byte[] bytes = "abcdefgh".getBytes(US_ASCII);
+    assertEquals("cde", new AsciiChars().of(bytes).subSequence(2, 5).toString());
+    for (ByteBuffer buf : buffers(bytes.length)) {
+      buf.put(bytes).flip();
+      assertEquals("cde", new AsciiChars().of(buf).subSequence(2, 5).toString());
+    }
+    assertThrows(
+        IndexOutOfBoundsException.class, () -> new AsciiChars().of(bytes).subSequence(5, 9));
+  }
+
+  @Test
+  void testNonAsciiMode() {
+    Mode umlauts =
+        new Mode('Q', 'y', '9', '8', List.of("BCDFGJKL", "mnpstvxz", "bcdfgjkl", "ÄÖÜäöüàé"));
+    Coder coder = Coder.of(67L, 8, umlauts);
+    assertEquals(42L, coder.decodeLong(coder.encodeLong(42L)));
+    assertThrows(
+        UnsupportedOperationException.class, () -> coder.encodeLongInto(42L, new byte[20], 0));
+    assertThrows(UnsupportedOperationException.class, () -> coder.decodeLong(new byte[8], 0, 8));
+  }
+
+  private static List<ByteBuffer> buffers(int capacity) {
+    return List.of(
+        ByteBuffer.allocate(capacity),
+        ByteBuffer.allocateDirect(capacity),
+        ByteBuffer.allocate(capacity + 3).position(3).slice());
+  }
+}
@@ -0,0 +1,115 @@
+package se.jbee.lusid;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import se.jbee.lusid.Coder.Mode;
+
+/**
+ * Tests the {@link Coder#encodedLength(long)} and {@link Coder#encodeLongInto(long, char[], int)}
+ * family of methods that encode into caller supplied buffers.
+ */
+class CoderBufferTest {
+
+  private static final List<Mode> MODES =
+      List.of(Mode.MIXED, Mode.LOWER, Mode.UPPER, Mode.XSAFE, Mode.SHAPE);
+
+  private static final long[] VALUES = {
+    0, 1, -1, 42, -42, 1234567, -1234567, Integer.MIN_VALUE, 123456789012L, -123456789012L,
+    Long.MAX_VALUE, Long.MIN_VALUE, ~(1L << 61)
+  };
+
+  @Test
+  void testEncodedLength() {
+    for (Mode mode : MODES)
+      for (int minLength = 1; minLength <= 20; minLength++) {
+        Coder coder = Coder.of(67L, minLength, mode);
+        for (long value : VALUES) {
+          assertEquals(coder.encodeLong(value).length(), coder.encodedLength(value));
+          assertEquals(coder.encodeDouble(value).length(), coder.encodedLength((double) value));
+          assertEquals(coder.encodeFloat(value).length(), coder.encodedLength((float) value));
+        }
+      }
+  }
+
+  @Test
+  void testEncodeLongInto_Array() {
+    for (int minLength = 1; minLength <= 20; minLength++) {
+      Coder coder = Coder.of(67L, minLength);
+      char[] dst = new char[25];
+      for (long value : VALUES) {
+        String expected = coder.encodeLong(value);
+        assertEquals(expected.length(), coder.encodeLongInto(value, dst, 3));
+        assertEquals(expected, new String(dst, 3, expected.length()));
+      }
+    }
+  }
+
+  @Test
+  void testEncodeInto_Array() {
+    Coder coder = Coder.of(67L, 8);
+    char[] dst = new char[20];
+    assertEquals(coder.encodeInt(-13), new String(dst, 0, coder.encodeIntInto(-13, dst, 0)));
+    assertEquals(coder.encodeDouble(.5d), new String(dst, 0, coder.encodeDoubleInto(.5d, dst, 0)));
+    assertEquals(coder.encodeFloat(3.3f), new String(dst, 0, coder.encodeFloatInto(3.3f, dst, 0)));
+  }
+
+  @Test
+  void testEncodeLongInto_ArrayTooSmall() {
+    Coder coder = Coder.of(67L, 8);
+    assertThrows(IndexOutOfBoundsException.class, () -> coder.encodeLongInto(1L, new char[10], 3));
+  }
+
+  @Test
+  void testEncodeLongInto_Appendable() {
+    Coder coder = Coder.of(67L, 6);
+    StringBuilder expected = new StringBuilder();
+    StringBuilder sb = new StringBuilder();
+    StringWriter out = new StringWriter();
+    for (long value : VALUES) {
+      expected.append(coder.encodeLong(value)).append(',');
+      coder.encodeLongInto(value, sb).append(',');
+      coder.encodeLongInto(value, out).append(',');
+    }
+    assertEquals(expected.toString(), sb.toString());
+    assertEquals(expected.toString(), out.toString());
+  }
+
+  @Test
+  void testEncodeInto_Appendable() {
+    Coder coder = Coder.of(67L, 6);
+    assertEquals(coder.encodeInt(7), coder.encodeIntInto(7, new StringBuilder()).toString());
+    assertEquals(coder.encodeDouble(7d), coder.encodeDoubleInto(7d, new StringWriter()).toString());
+    assertEquals(coder.encodeFloat(7f), coder.encodeFloatInto(7f, new StringBuilder()).toString());
+  }
+
+  @Test
+  void testEncodeLongInto_AllocationFree() {
+    Coder coder = Coder.of(67L, 8);
+    char[] dst = new char[20];
+    StringBuilder sb = new StringBuilder(20);
+    long sum = encodeAll(coder, dst, sb); // warm up
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    int rounds = 10_000;
+    long before = threads.getCurrentThreadAllocatedBytes();
+    for (int i = 0; i < rounds; i++) sum += encodeAll(coder, dst, sb);
+    long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+    assertEquals(0L, allocated / (rounds * VALUES.length * 2L), "bytes allocated per encode");
+    assertEquals((rounds + 1) * encodeAll(coder, dst, sb), sum);
+  }
+
+  private static long encodeAll(Coder coder, char[] dst, StringBuilder sb) {
+    long length = 0;
+    for (long value : VALUES) {
+      length += coder.encodeLongInto(value, dst, 0);
+      sb.setLength(0);
+      length += coder.encodeLongInto(value, sb).length();
+    }
+    return length;
+  }
+}
@@ -0,0 +1,158 @@
+package se.jbee.lusid;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import se.jbee.lusid.Coder.CacheStats;
+import se.jbee.lusid.Coder.Cached;
+
+/** Tests the caching {@link Coder}s created by {@link Coder#cached(Coder, int, int)}. */
+class CoderCachedTest {
+
+  private static final Coder CODER = Coder.of(67L, 8);
+
+  @Test
+  void testCached_SameIds() {
+    Cached cached = Coder.cached(CODER, 64);
+    for (int round = 0; round < 3; round++)
+      for (long value = -100; value < 100; value++)
+        assertEquals(CODER.encodeLong(value), cached.encodeLong(value));
+    assertEquals(CODER.encodeInt(42), cached.encodeInt(42));
+    assertEquals(42L, cached.decodeLong(cached.encodeLong(42L)));
+  }
+
+  @Test
+  void testCached_HitsAndMisses() {
+    Cached cached = Coder.cached(CODER, 16);
+    String id = cached.encodeLong(42L);
+    assertSame(id, cached.encodeLong(42L));
+    assertSame(id, cached.encodeLong(42L));
+    cached.encodeLong(43L);
+    assertEquals(new CacheStats(2, 2), cached.encodeStats());
+    assertEquals(0.5d, cached.encodeStats().hitRatio());
+  }
+
+  @Test
+  void testCached_HotValuesSurvive() {
+    Cached cached = Coder.cached(CODER, 1024);
+    Random rnd = new Random(42);
+    for (int i = 0; i < 100_000; i++) {
+      cached.encodeLong(i % 100); // hot
+      cached.encodeLong(1000 + rnd.nextInt(1_000_000)); // cold
+    }
+    CacheStats stats = cached.encodeStats();
+    assertTrue(stats.hits() > 95_000, "hot values should be hits: " + stats);
+  }
+
+  @Test
+  void testCached_Capacity() {
+    assertEquals(4, new CachedCoder.ClockCache(1).capacity());
+    assertEquals(1024, new CachedCoder.ClockCache(1000).capacity());
+    assertEquals(1024, new CachedCoder.ClockCache(1024).capacity());
+    assertThrows(IllegalArgumentException.class, () -> Coder.cached(CODER, 0));
+    assertThrows(IllegalArgumentException.class, () -> Coder.cached(CODER, (1 << 30) + 1));
+    assertThrows(IllegalArgumentException.class, () -> Coder.cached(CODER, Integer.MAX_VALUE));
+    assertEquals(1 << 28, CachedCoder.setCount(1 << 30));
+  }
+
+  @Test
+  void testCachedDense() {
+    Cached cached = Coder.cachedDense(CODER, 100);
+    for (int round = 0; round < 2; round++)
+      for (long value = -10; value < 110; value++)
+        assertEquals(CODER.encodeLong(value), cached.encodeLong(value));
+    assertEquals(new CacheStats(100, 140), cached.encodeStats());
+    assertThrows(IllegalArgumentException.class, () -> Coder.cachedDense(CODER, 0));
+  }
+
+  @Test
+  void testCached_WithLookupTables() {
+    Cached cached = Coder.cached(CODER, 16);
+    String id = cached.encodeLong(42L);
+    Cached fast = cached.withLookupTables(3);
+    assertSame(id, fast.encodeLong(42L));
+    assertEquals(CODER.encodeLong(77L), fast.encodeLong(77L));
+  }
+
+  @Test
+  void testCachedDecode() {
+    Cached cached = Coder.cached(CODER, 0, 64);
+    for (int round = 0; round < 2; round++)
+      for (long value = -10; value < 10; value++)
+        assertEquals(value, cached.decodeLong(CODER.encodeLong(value)));
+    assertEquals(new CacheStats(20, 20), cached.decodeStats());
+    assertEquals(new CacheStats(0, 0), cached.encodeStats());
+    String id = CODER.encodeInt(-13);
+    assertEquals(-13, cached.decodeInt(id));
+    assertEquals(-13, cached.decodeInt(id));
+    assertEquals(new CacheStats(21, 21), cached.decodeStats());
+  }
+
+  @Test
+  void testCachedDecode_Range() {
+    Cached cached = Coder.cached(CODER, 0, 64);
+    String id = CODER.encodeLong(42L);
+    assertEquals(42L, cached.decodeLong("/" + id + "/", 1, 1 + id.length()));
+    assertEquals(new CacheStats(0, 0), cached.decodeStats(), "ranges are not cached");
+  }
+
+  @Test
+  void testCachedDecode_InvalidNotCached() {
+    CachedCoder.DecodeCache cache = new CachedCoder.DecodeCache(4);
+    Cached cached = new CachedCoder(CODER, null, cache);
+    String hot = CODER.encodeLong(42L);
+    cached.decodeLong(hot);
+    for (int i = 0; i < 100; i++) {
+      String invalid = "#" + i;
+      assertThrows(IllegalArgumentException.class, () -> cached.decodeLong(invalid));
+      assertEquals(null, cache.get(invalid));
+    }
+    assertEquals(42L, cache.get(hot).value());
+  }
+
+  @Test
+  void testCachedDecode_Capacity() {
+    assertEquals(4, new CachedCoder.DecodeCache(3).capacity());
+    assertThrows(IllegalArgumentException.class, () -> Coder.cached(CODER, 0, -1));
+    assertThrows(IllegalArgumentException.class, () -> Coder.cached(CODER, 0, (1 << 30) + 1));
+  }
+
+  @Test
+  void testCached_Concurrent() throws Exception {
+    Cached cached = Coder.cached(CODER, 256, 256);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> tasks = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        long seed = t;
+        tasks.add(
+            executor.submit(
+                () -> {
+                  Random rnd = new Random(seed);
+                  for (int i = 0; i < 50_000; i++) {
+                    long value = rnd.nextInt(1000) - 500;
+                    String id = cached.encodeLong(value);
+                    assertEquals(CODER.encodeLong(value), id);
+                    assertEquals(value, cached.decodeLong(id));
+                  }
+                }));
+      }
+      for (Future<?> task : tasks) task.get();
+    } finally {
+      executor.shutdown();
+    }
+    CacheStats stats = cached.encodeStats();
+    assertEquals(200_000, stats.hits() + stats.misses());
+    stats = cached.decodeStats();
+    assertEquals(200_000, stats.hits() + stats.misses());
+  }
+}
@@ -0,0 +1,134 @@
+package se.jbee.lusid;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import se.jbee.lusid.Coder.Mode;
+
+/**
+ * Tests the {@link Coder#decodeLong(CharSequence, int, int)} family of methods that decode an ID
+ * from a range within a larger {@link CharSequence}.
+ */
+class CoderCharSequenceTest {
+
+  private static final List<Mode> MODES =
+      List.of(Mode.MIXED, Mode.LOWER, Mode.UPPER, Mode.XSAFE, Mode.SHAPE);
+
+  private static final long[] VALUES = {
+    0, 1, -1, 42, -42, 1234567, -1234567, 123456789012L, Long.MAX_VALUE, Long.MIN_VALUE
+  };
+
+  @Test
+  void testDecodeLong_Range() {
+    for (Mode mode : MODES)
+      for (int minLength : new int[] {1, 6, 12, 20}) {
+        Coder coder = Coder.of(67L, minLength, mode);
+        for (long value : VALUES) {
+          String id = coder.encodeLong(value);
+          String path = "/users/" + id + "/profile";
+          assertEquals(value, coder.decodeLong(path, 7, 7 + id.length()));
+          StringBuilder sb = new StringBuilder(path);
+          assertEquals(value, coder.decodeLong(sb, 7, 7 + id.length()));
+          assertEquals(path, sb.toString(), "input must not be modified");
+        }
+      }
+  }
+
+  @Test
+  void testDecodeInt_Range() {
+    Coder coder = Coder.of(67L, 8);
+    String id = coder.encodeInt(-13);
+    assertEquals(-13, coder.decodeInt("," + id + ",", 1, 1 + id.length()));
+  }
+
+  @Test
+  void testDecodeDouble_Range() {
+    Coder coder = Coder.of(67L, 8);
+    String id = coder.encodeDouble(0.5d);
+    assertEquals(0.5d, coder.decodeDouble("x=" + id, 2, 2 + id.length()));
+  }
+
+  @Test
+  void testDecodeFloat_Range() {
+    Coder coder = Coder.of(67L, 8);
+    String id = coder.encodeFloat(33.3f);
+    assertEquals(33.3f, coder.decodeFloat(id + ";", 0, id.length()));
+  }
+
+  @Test
+  void testDecodeLong_IllegalRange() {
+    Coder coder = Coder.of(67L, 8);
+    assertThrows(IndexOutOfBoundsException.class, () -> coder.decodeLong("abc", 2, 4));
+    assertThrows(IllegalArgumentException.class, () -> coder.decodeLong("abc", 1, 1));
+  }
+
+  @Test
+  void testDecodeLong_MessageOnlyFromRange() {
+    Random rnd = new Random(42);
+    String secret = "Authorization: Bearer 0123456789;";
+    for (Mode mode : List.of(Mode.MIXED, Mode.LOWER, Mode.DENSE32)) {
+      Coder coder = Coder.of(67L, 8, mode);
+      String symbols = String.join("", mode.tables()) + mode.pad1() + mode.padN() + mode.flip();
+      for (int i = 0; i < 1000; i++) {
+        char[] id = new char[1 + rnd.nextInt(coder.encodedUuidLength())];
+        for (int j = 0; j < id.length; j++) id[j] = symbols.charAt(rnd.nextInt(symbols.length()));
+        String request = secret + new String(id) + secret;
+        int from = secret.length();
+        int to = from + id.length;
+        assertMessageOnlyFromRange(secret, () -> coder.decodeLong(request, from, to));
+        if (id.length == coder.encodedUuidLength())
+          assertMessageOnlyFromRange(secret, () -> coder.decodeUuid(request, from, to));
+      }
+    }
+  }
+
+  private static void assertMessageOnlyFromRange(String outside, Executable decode) {
+    try {
+      decode.execute();
+    } catch (IllegalArgumentException ex) {
+      assertFalse(ex.getMessage().contains(outside), ex.getMessage());
+    } catch (Throwable ex) {
+      fail(ex);
+    }
+  }
+
+  @Test
+  void testDecodeLong_AllocationFree() {
+    Coder coder = Coder.of(67L, 8);
+    StringBuilder ids = new StringBuilder();
+    for (long value : VALUES) ids.append(coder.encodeLong(value)).append(',');
+    String csv = ids.toString();
+    long sum = decodeAll(coder, csv); // warm up
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    int rounds = 10_000;
+    long before = threads.getCurrentThreadAllocatedBytes();
+    for (int i = 0; i < rounds; i++) sum += decodeAll(coder, csv);
+    long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+    assertEquals(0L, allocated / (rounds * VALUES.length), "bytes allocated per decode");
+    assertEquals((rounds + 1) * sum(VALUES), sum);
+  }
+
+  private static long decodeAll(Coder coder, String csv) {
+    long sum = 0;
+    int from = 0;
+    for (int to = csv.indexOf(','); to > 0; to = csv.indexOf(',', from)) {
+      sum += coder.decodeLong(csv, from, to);
+      from = to + 1;
+    }
+    return sum;
+  }
+
+  private static long sum(long[] values) {
+    long sum = 0;
+    for (long v : values) sum += v;
+    return sum;
+  }
+}
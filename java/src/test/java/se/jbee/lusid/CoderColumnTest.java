@@ -0,0 +1,95 @@
+package se.jbee.lusid;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+import se.jbee.lusid.Coder.AsciiColumn;
+import se.jbee.lusid.Coder.Column;
+import se.jbee.lusid.Coder.Mode;
+
+/**
+ * Tests the {@link Coder#encodeLongColumn(long[], int, int)} and {@link
+ * Coder#decodeLongColumn(Column)} family of batch methods.
+ */
+class CoderColumnTest {
+
+  private static final List<Mode> MODES =
+      List.of(Mode.MIXED, Mode.LOWER, Mode.UPPER, Mode.XSAFE, Mode.SHAPE);
+
+  private static final long[] VALUES =
+      LongStream.concat(
+              LongStream.rangeClosed(-1000, 1000),
+              LongStream.of(123456789012L, Long.MAX_VALUE, Long.MIN_VALUE))
+          .toArray();
+
+  @Test
+  void testLongColumn() {
+    for (Mode mode : MODES) {
+      Coder coder = Coder.of(67L, 6, mode);
+      Column column = coder.encodeLongColumn(VALUES, 0, VALUES.length);
+      assertEquals(VALUES.length, column.size());
+      for (int i = 0; i < VALUES.length; i++)
+        assertEquals(coder.encodeLong(VALUES[i]), column.get(i));
+      assertArrayEquals(VALUES, coder.decodeLongColumn(column));
+    }
+  }
+
+  @Test
+  void testLongAsciiColumn() {
+    for (Mode mode : MODES) {
+      Coder coder = Coder.of(67L, 6, mode);
+      AsciiColumn column = coder.encodeLongAsciiColumn(VALUES, 0, VALUES.length);
+      assertEquals(VALUES.length, column.size());
+      for (int i = 0; i < VALUES.length; i++)
+        assertEquals(coder.encodeLong(VALUES[i]), column.get(i));
+      assertArrayEquals(VALUES, coder.decodeLongColumn(column));
+    }
+  }
+
+  @Test
+  void testLongColumn_Range() {
+    Coder coder = Coder.of(67L, 1);
+    Column column = coder.encodeLongColumn(VALUES, 10, 20);
+    assertEquals(10, column.size());
+    assertEquals(coder.encodeLong(VALUES[10]), column.get(0));
+    assertArrayEquals(
+        LongStream.range(0, 10).map(i -> VALUES[10 + (int) i]).toArray(),
+        coder.decodeLongColumn(column));
+  }
+
+  @Test
+  void testLongColumn_Empty() {
+    Coder coder = Coder.of(67L, 8);
+    Column column = coder.encodeLongColumn(VALUES, 3, 3);
+    assertEquals(0, column.size());
+    assertEquals(0, coder.decodeLongColumn(column).length);
+  }
+
+  @Test
+  void testIntColumn() {
+    Coder coder = Coder.of(67L, 8);
+    int[] values = {0, 1, -1, 42, Integer.MAX_VALUE, Integer.MIN_VALUE};
+    Column column = coder.encodeIntColumn(values, 0, values.length);
+    assertEquals(coder.encodeInt(42), column.get(3));
+    assertArrayEquals(values, coder.decodeIntColumn(column));
+  }
+
+  @Test
+  void testDoubleColumn() {
+    Coder coder = Coder.of(67L, 8);
+    double[] values = {0d, 0.5d, -1d, 42.42d, Double.NaN, Double.NEGATIVE_INFINITY};
+    Column column = coder.encodeDoubleColumn(values, 0, values.length);
+    assertEquals(coder.encodeDouble(42.42d), column.get(3));
+    assertArrayEquals(values, coder.decodeDoubleColumn(column));
+  }
+
+  @Test
+  void testColumn_IllegalOffsets() {
+    assertThrows(IllegalArgumentException.class, () -> new Column(new char[3], new int[0]));
+    assertThrows(IllegalArgumentException.class, () -> new Column(new char[3], new int[] {0, 4}));
+  }
+}
@@ -0,0 +1,140 @@
+package se.jbee.lusid;
+
+import static java.util.stream.IntStream.range;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import se.jbee.lusid.Coder.Mode;
+
+/**
+ * Tests the {@link Coder#encodeCompactDouble(double)} and {@link
+ * Coder#decodeCompactDouble(String)} method pair and its float and array variants.
+ */
+class CoderCompactDoubleTest {
+
+  private static final List<Mode> MODES =
+      List.of(Mode.MIXED, Mode.LOWER, Mode.UPPER, Mode.XSAFE, Mode.SHAPE);
+
+  @ParameterizedTest
+  @ValueSource(doubles = {0d, 1d, 2d, -1d, 42d, 100d, 0.5d, 0.25d, 1.5d, -2.75d})
+  void testCompactDouble_Short(double value) {
+    assertEncodesInLength(1, 5, value);
+    assertEncodesInLength(8, 8, value);
+  }
+
+  @Test
+  void testCompactDouble_WholeNumbers() {
+    Coder coder = Coder.of(67L, 1);
+    for (long n = 1; n < 1_000_000_000L; n *= 10) {
+      assertTrue(assertEncodesCompact(coder, n) <= 10, "whole numbers up to 1e9 are short");
+      assertTrue(assertEncodesCompact(coder, -n) <= 10, "whole numbers up to -1e9 are short");
+    }
+  }
+
+  @Test
+  void testCompactDouble_Special() {
+    Coder coder = Coder.of(67L, 1);
+    assertEncodesCompact(coder, Double.NaN);
+    assertEncodesCompact(coder, Double.POSITIVE_INFINITY);
+    assertEncodesCompact(coder, Double.NEGATIVE_INFINITY);
+    assertEncodesCompact(coder, Double.MIN_VALUE);
+    assertEncodesCompact(coder, Double.MAX_VALUE);
+    assertEncodesCompact(coder, -0d);
+    assertEquals(1, coder.encodeCompactDouble(0d).length());
+    // a NaN with a payload keeps its bits
+    double nan = Double.longBitsToDouble(0x7FF0_0000_0000_0123L);
+    String id = coder.encodeCompactDouble(nan);
+    assertEquals(
+        Double.doubleToRawLongBits(nan),
+        Double.doubleToRawLongBits(coder.decodeCompactDouble(id)));
+  }
+
+  @Test
+  void testCompactDouble_2Mil_Fractions() {
+    Coder coder = Coder.of(67L, 6);
+    range(1, 2000_000).parallel().forEach(n -> assertEncodesCompact(coder, 1d / n));
+  }
+
+  @Test
+  void testCompactDouble_RandomBits() {
+    Coder coder = Coder.of(67L, 8);
+    Random rnd = new Random(42);
+    for (int i = 0; i < 100_000; i++)
+      assertEncodesCompact(coder, Double.longBitsToDouble(rnd.nextLong()));
+  }
+
+  @Test
+  void testCompactDouble_ShorterThanDefault() {
+    Coder coder = Coder.of(67L, 1);
+    for (int n = -10_000; n <= 10_000; n++) {
+      assertTrue(coder.encodeCompactDouble(n).length() <= coder.encodeDouble(n).length());
+      assertEquals(coder.encodeCompactDouble(n).length(), coder.encodedCompactLength((double) n));
+    }
+  }
+
+  @Test
+  void testCompactDouble_CharSequence() {
+    Coder coder = Coder.of(67L, 1);
+    String id = coder.encodeCompactDouble(42.5d);
+    String path = "/items/" + id + "/price";
+    assertEquals(42.5d, coder.decodeCompactDouble(path, 7, 7 + id.length()));
+  }
+
+  @Test
+  void testCompactDoubles() {
+    double[] values = {0d, 1d, -1.5d, 42d, 0.1d, Double.NaN, Double.NEGATIVE_INFINITY};
+    for (Mode m : MODES) {
+      Coder coder = Coder.of(67L, 8, m);
+      String id = coder.encodeCompactDoubles(values);
+      assertArrayEquals(values, coder.decodeCompactDoubles(id));
+      assertTrue(id.length() < coder.encodeDoubles(values).length());
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(floats = {0f, 1f, -1f, 42f, 0.5f, 1000000f})
+  void testCompactFloat_Short(float value) {
+    for (Mode m : MODES) {
+      Coder coder = Coder.of(67L, 1, m);
+      String id = coder.encodeCompactFloat(value);
+      assertTrue(id.length() <= 7, "ID too long");
+      assertEquals(value, coder.decodeCompactFloat(id), "decoding error");
+    }
+  }
+
+  @Test
+  void testCompactFloat_RandomBits() {
+    Coder coder = Coder.of(67L, 6);
+    Random rnd = new Random(42);
+    for (int i = 0; i < 100_000; i++) {
+      float value = Float.intBitsToFloat(rnd.nextInt());
+      String id = coder.encodeCompactFloat(value);
+      assertTrue(id.length() <= 11, "ID too long");
+      assertEquals(
+          Float.floatToRawIntBits(value), Float.floatToRawIntBits(coder.decodeCompactFloat(id)));
+    }
+  }
+
+  private static void assertEncodesInLength(int minLength, int maxLength, double actualValue) {
+    for (Mode m : MODES) {
+      int length = assertEncodesCompact(Coder.of(67L, minLength, m), actualValue);
+      assertTrue(length <= maxLength, "ID too long");
+    }
+  }
+
+  private static int assertEncodesCompact(Coder coder, double actualValue) {
+    String id = coder.encodeCompactDouble(actualValue);
+    assertTrue(id.length() <= 20, "ID too long");
+    assertEquals(
+        Double.doubleToRawLongBits(actualValue),
+        Double.doubleToRawLongBits(coder.decodeCompactDouble(id)),
+        "decoding error");
+    return id.length();
+  }
+}
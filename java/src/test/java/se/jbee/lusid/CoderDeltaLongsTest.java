@@ -0,0 +1,112 @@
+package se.jbee.lusid;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+import se.jbee.lusid.Coder.Mode;
+
+/**
+ * Tests the {@link Coder#encodeDeltaLongs(long...)} and {@link Coder#decodeDeltaLongs(String)}
+ * method pair.
+ */
+class CoderDeltaLongsTest {
+
+  private static final List<Mode> MODES =
+      List.of(Mode.MIXED, Mode.LOWER, Mode.UPPER, Mode.XSAFE, Mode.SHAPE, Mode.DENSE32);
+
+  @Test
+  void testDeltaLongs_Empty() {
+    Coder coder = Coder.of(67L, 8);
+    assertEquals("", coder.encodeDeltaLongs());
+    assertArrayEquals(new long[0], coder.decodeDeltaLongs(""));
+  }
+
+  @Test
+  void testDeltaLongs_Single() {
+    Coder coder = Coder.of(67L, 8);
+    for (long value : new long[] {0L, 1L, -1L, Long.MIN_VALUE, Long.MAX_VALUE})
+      assertEquals(coder.encodeLong(value), coder.encodeDeltaLongs(value));
+  }
+
+  @Test
+  void testDeltaLongs_Sorted() {
+    Random rnd = new Random(42);
+    for (Mode mode : MODES) {
+      Coder coder = Coder.of(67L, 8, mode);
+      for (int size : new int[] {2, 10, 100, 1000}) {
+        long[] values = sortedKeys(rnd, size);
+        String id = assertEncodesDelta(coder, values);
+        assertTrue(id.length() < coder.encodeLongs(values).length(), "delta IDs should be shorter");
+      }
+    }
+  }
+
+  @Test
+  void testDeltaLongs_Unsorted() {
+    Random rnd = new Random(42);
+    for (Mode mode : MODES) {
+      Coder coder = Coder.of(67L, 8, mode);
+      for (int i = 0; i < 100; i++) {
+        assertEncodesDelta(coder, rnd.longs(1 + rnd.nextInt(20)).toArray());
+        assertEncodesDelta(coder, rnd.longs(1 + rnd.nextInt(20), -100, 100).toArray());
+      }
+    }
+  }
+
+  @Test
+  void testDeltaLongs_Overflow() {
+    Coder coder = Coder.of(67L, 1);
+    assertEncodesDelta(coder, Long.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, 0L, -1L);
+    assertEncodesDelta(coder, Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE);
+  }
+
+  @Test
+  void testDeltaLongs_Consecutive() {
+    Coder coder = Coder.of(67L, 1);
+    long[] values = LongStream.range(1_000_000, 1_000_100).toArray();
+    String id = assertEncodesDelta(coder, values);
+    // the first value plus a join and a single symbol per following value
+    assertEquals(coder.encodeLong(values[0]).length() + 2 * 99, id.length());
+  }
+
+  @Test
+  void testDeltaLongs_CharSequence() {
+    Coder coder = Coder.of(67L, 8);
+    long[] values = {100L, 105L, 107L, 300L};
+    String id = coder.encodeDeltaLongs(values);
+    String path = "/items/" + id + "/next";
+    assertArrayEquals(values, coder.decodeDeltaLongs(path, 7, 7 + id.length()));
+  }
+
+  @Test
+  void testDeltaLongs_Invalid() {
+    Coder coder = Coder.of(67L, 8);
+    String id = coder.encodeDeltaLongs(1L, 2L, 3L);
+    assertThrows(IllegalArgumentException.class, () -> coder.decodeDeltaLongs(id + "#"));
+  }
+
+  private static long[] sortedKeys(Random rnd, int size) {
+    long[] keys = new long[size];
+    long key = 1_000_000L + rnd.nextInt(1_000_000);
+    for (int i = 0; i < size; i++) keys[i] = key += 1 + rnd.nextInt(100);
+    return keys;
+  }
+
+  private static String assertEncodesDelta(Coder coder, long... values) {
+    String id = coder.encodeDeltaLongs(values);
+    assertArrayEquals(values, coder.decodeDeltaLongs(id), "decoding error");
+    long[] consumed = new long[values.length];
+    int[] count = {0};
+    int n = coder.decodeDeltaLongs(id, 0, id.length(), v -> consumed[count[0]++] = v);
+    assertEquals(values.length, n);
+    assertArrayEquals(values, consumed, Arrays.toString(values));
+    return id;
+  }
+}
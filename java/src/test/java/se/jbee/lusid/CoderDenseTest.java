@@ -0,0 +1,281 @@
+package se.jbee.lusid;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Random;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import se.jbee.lusid.Coder.Mode;
+
+/** Tests the {@link Coder}s of the dense {@link Mode}s using 16, 32 or 64 symbols per table. */
+class CoderDenseTest {
+
+  private static final List<Mode> DENSE = List.of(Mode.DENSE16, Mode.DENSE32, Mode.DENSE64);
+
+  private static final long[] EDGES = {
+    0L, 1L, -1L, 15L, 16L, 31L, 32L, 63L, 64L, Integer.MAX_VALUE, Integer.MIN_VALUE,
+    Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE - 1, Long.MIN_VALUE + 1
+  };
+
+  @Test
+  void testMode_Bits() {
+    assertEquals(3, Mode.MIXED.bits());
+    assertEquals(4, Mode.DENSE16.bits());
+    assertEquals(5, Mode.DENSE32.bits());
+    assertEquals(6, Mode.DENSE64.bits());
+  }
+
+  @Test
+  void testMode_Illegal() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new Mode('Q', 'y', 'z', 'x', List.of("0123456789ABCDEF", "0123456789abcdefg")));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new Mode('Q', 'y', 'z', 'x', List.of("0123456789ABCDE")));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new Mode('Q', 'y', 'z', 'x', List.of("0123456789ABCDEE")));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new Mode('A', 'y', 'z', 'x', List.of("0123456789ABCDEF")));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 4, 8, 12, 20})
+  void testDense_Edges(int minLength) {
+    for (Mode mode : DENSE) {
+      Coder coder = Coder.of(67L, minLength, mode);
+      for (long value : EDGES) assertEncodes(coder, value);
+    }
+  }
+
+  @Test
+  void testDense_Random() {
+    Random rnd = new Random(42);
+    for (Mode mode : DENSE)
+      for (int minLength = 1; minLength <= 20; minLength++) {
+        Coder coder = Coder.of(67L, minLength, mode);
+        for (int i = 0; i < 2000; i++) {
+          assertEncodes(coder, rnd.nextLong());
+          assertEncodes(coder, rnd.nextLong() >> rnd.nextInt(64));
+        }
+      }
+  }
+
+  @Test
+  void testDense_Range() {
+    for (Mode mode : DENSE) {
+      Coder coder = Coder.of(67L, 6, mode);
+      for (long value = -100_000; value <= 100_000; value++) assertEncodes(coder, value);
+    }
+  }
+
+  @Test
+  void testDense_MaxLength() {
+    int[] maxLengths = {16, 13, 11};
+    for (int i = 0; i < DENSE.size(); i++) {
+      Coder coder = Coder.of(67L, 1, DENSE.get(i));
+      for (long value : EDGES) assertTrue(coder.encodeLong(value).length() <= maxLengths[i]);
+      assertEquals(maxLengths[i], coder.encodeLong(Long.MAX_VALUE).length());
+    }
+  }
+
+  @Test
+  void testDense_MaxPadLength() {
+    // the pad length symbol of 16 symbol tables can encode at most 17 padding symbols
+    assertEquals(18, Coder.of(67L, 20, Mode.DENSE16).encodeLong(0L).length());
+    assertEquals(17, Coder.of(67L, 17, Mode.DENSE16).encodeLong(0L).length());
+    assertEquals(20, Coder.of(67L, 20, Mode.DENSE32).encodeLong(0L).length());
+    assertEquals(20, Coder.of(67L, 20, Mode.DENSE64).encodeLong(-1L).length());
+  }
+
+  @Test
+  void testDense_ShorterThan3Bits() {
+    Coder mixed = Coder.of(67L, 1, Mode.MIXED);
+    Random rnd = new Random(42);
+    for (Mode mode : DENSE) {
+      Coder dense = Coder.of(67L, 1, mode);
+      int denseLength = 0;
+      int mixedLength = 0;
+      for (int i = 0; i < 1000; i++) {
+        long value = rnd.nextLong() >> rnd.nextInt(64);
+        denseLength += dense.encodeLong(value).length();
+        mixedLength += mixed.encodeLong(value).length();
+      }
+      assertTrue(denseLength < mixedLength, "dense IDs should be shorter on average");
+    }
+  }
+
+  @Test
+  void testDense_Secret() {
+    for (Mode mode : DENSE) {
+      String id1 = Coder.of(67L, 8, mode).encodeLong(42L);
+      String id2 = Coder.of(68L, 8, mode).encodeLong(42L);
+      assertFalse(id1.equals(id2), "secret should make a difference");
+    }
+  }
+
+  @Test
+  void testDense_Longs() {
+    long[][] values = {{1L, 2L}, {0L, -1L, Long.MAX_VALUE}, {Long.MIN_VALUE, 42L, 7L, 99L}};
+    for (Mode mode : DENSE)
+      for (int minLength : new int[] {1, 8, 20}) {
+        Coder coder = Coder.of(67L, minLength, mode);
+        for (long[] v : values) {
+          String id = coder.encodeLongs(v);
+          assertEquals(coder.encodedLength(v), id.length());
+          assertTrue(id.length() >= minLength);
+          assertArrayEquals(v, coder.decodeLongs(id));
+          assertArrayEquals(v, coder.decodeLongStream(id, 0, id.length()).toArray());
+        }
+      }
+  }
+
+  @Test
+  void testDense_Ascii() {
+    Coder coder = Coder.of(67L, 8, Mode.DENSE64);
+    byte[] buf = new byte[40];
+    int length = coder.encodeLongInto(-12345L, buf, 2);
+    assertEquals(-12345L, coder.decodeLong(buf, 2, 2 + length));
+    ByteBuffer bytes = ByteBuffer.allocate(40);
+    length = coder.encodeLongsInto(new long[] {3L, 4L}, bytes);
+    assertArrayEquals(new long[] {3L, 4L}, coder.decodeLongs(bytes, 0, length));
+  }
+
+  @Test
+  void testDense_Column() {
+    Coder coder = Coder.of(67L, 4, Mode.DENSE32);
+    long[] values = {0L, -1L, 42L, Long.MIN_VALUE, Long.MAX_VALUE};
+    assertArrayEquals(values, coder.decodeLongColumn(coder.encodeLongColumn(values, 0, 5)));
+    assertArrayEquals(values, coder.decodeLongColumn(coder.encodeLongAsciiColumn(values, 0, 5)));
+  }
+
+  @Test
+  void testDense_Invalid() {
+    for (Mode mode : DENSE) {
+      Coder coder = Coder.of(67L, 8, mode);
+      assertThrows(IllegalArgumentException.class, () -> coder.decodeLong(""));
+      assertThrows(IllegalArgumentException.class, () -> coder.decodeLong("#"));
+      String id = coder.encodeLong(42L);
+      String flipped = mode.flip() + id + mode.flip();
+      assertThrows(IllegalArgumentException.class, () -> coder.decodeLong(flipped));
+      assertThrows(IllegalArgumentException.class, () -> coder.decodeLong(id + mode.padN()));
+      assertThrows(IllegalArgumentException.class, () -> coder.decodeLong(id + mode.join()));
+      assertEquals(OptionalLong.empty(), coder.tryDecodeLong(id + mode.join()));
+      assertEquals(OptionalLong.of(42L), coder.tryDecodeLong(id));
+    }
+  }
+
+  @Test
+  void testDense_Fuzz() {
+    Random rnd = new Random(42);
+    for (Mode mode : DENSE) {
+      Coder coder = Coder.of(67L, 6, mode);
+      String symbols = String.join("", mode.tables()) + mode.pad1() + mode.padN() + mode.flip();
+      for (int i = 0; i < 20_000; i++) {
+        char[] id = coder.encodeLong(rnd.nextLong() >> rnd.nextInt(64)).toCharArray();
+        id[rnd.nextInt(id.length)] = symbols.charAt(rnd.nextInt(symbols.length()));
+        String changed = new String(id);
+        OptionalLong value = coder.tryDecodeLong(changed);
+        if (value.isPresent()) {
+          assertEquals(value.getAsLong(), coder.decodeLong(changed));
+        } else {
+          assertThrows(IllegalArgumentException.class, () -> coder.decodeLong(changed));
+        }
+      }
+    }
+  }
+
+  @Test
+  void testDense_Names() {
+    for (Mode mode : DENSE)
+      for (int minLength : new int[] {1, 8, 20}) {
+        Coder coder = Coder.of(67L, minLength, mode);
+        for (String name : List.of("A", "NAME", "SNAKE_CASE_NAME", "ZZZ_")) {
+          String id = coder.encodeName(name);
+          assertTrue(id.length() >= Math.min(minLength, name.length() + 9));
+          assertEquals(name, coder.decodeName(id));
+        }
+      }
+    assertEquals(8, Coder.of(67L, 1, Mode.DENSE16).encodeName("NAME").length());
+    assertEquals(4, Coder.of(67L, 1, Mode.DENSE32).encodeName("NAME").length());
+  }
+
+  @Test
+  void testDense_Text() {
+    for (Mode mode : DENSE)
+      for (int minLength : new int[] {1, 8, 20}) {
+        Coder coder = Coder.of(67L, minLength, mode);
+        for (String text : List.of("a", "Hello World!", "äöü €", "\uD83D\uDE00 emoji")) {
+          assertEquals(text, coder.decodeText(coder.encodeText(text)));
+          assertEquals(text, coder.decodePackedText(coder.encodePackedText(text)));
+        }
+      }
+  }
+
+  @Test
+  void testDense_PackedTextLength() {
+    String text = "x".repeat(24);
+    assertEquals(48, Coder.of(67L, 1, Mode.DENSE16).encodePackedText(text).length());
+    assertEquals(39, Coder.of(67L, 1, Mode.DENSE32).encodePackedText(text).length());
+    assertEquals(32, Coder.of(67L, 1, Mode.DENSE64).encodePackedText(text).length());
+  }
+
+  @Test
+  void testDense_TextStream() throws IOException {
+    String text = "streamed text ".repeat(1000);
+    for (Mode mode : DENSE) {
+      Coder coder = Coder.of(67L, 8, mode);
+      StringWriter id = new StringWriter();
+      coder.encodeText(new StringReader(text), id);
+      assertEquals(coder.encodeText(text), id.toString());
+      StringWriter decoded = new StringWriter();
+      coder.decodeText(new StringReader(id.toString()), decoded);
+      assertEquals(text, decoded.toString());
+    }
+  }
+
+  @Test
+  void testDense_Uuid() {
+    Random rnd = new Random(42);
+    int[] lengths = {32, 26, 22};
+    for (int i = 0; i < DENSE.size(); i++) {
+      Coder coder = Coder.of(67L, 8, DENSE.get(i));
+      assertEquals(lengths[i], coder.encodedUuidLength());
+      for (int j = 0; j < 1000; j++) {
+        UUID expected = new UUID(rnd.nextLong(), rnd.nextLong());
+        String id = coder.encodeUuid(expected);
+        assertEquals(lengths[i], id.length());
+        assertEquals(expected, coder.decodeUuid(id));
+      }
+      assertEquals(new UUID(-1L, 0L), coder.decodeUuid(coder.encodeUuid(-1L, 0L)));
+    }
+  }
+
+  @Test
+  void testDense_LookupTables() {
+    Coder coder = Coder.of(67L, 8, Mode.DENSE32);
+    assertThrows(IllegalStateException.class, () -> coder.withLookupTables(2));
+    assertThrows(IllegalStateException.class, () -> coder.withLookupTables(1));
+  }
+
+  private static void assertEncodes(Coder coder, long value) {
+    String id = coder.encodeLong(value);
+    assertEquals(coder.encodedLength(value), id.length(), "unexpected length");
+    assertEquals(value, coder.decodeLong(id), "decoding error");
+    assertEquals(OptionalLong.of(value), coder.tryDecodeLong(id));
+  }
+}
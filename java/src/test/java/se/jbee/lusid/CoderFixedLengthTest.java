@@ -0,0 +1,187 @@
+package se.jbee.lusid;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import se.jbee.lusid.Coder.Mode;
+
+/** Tests the {@link Coder}s created with {@link Coder#ofFixedLength(long, Mode)}. */
+class CoderFixedLengthTest {
+
+  private static final List<Mode> MODES =
+      List.of(
+          Mode.MIXED,
+          Mode.LOWER,
+          Mode.UPPER,
+          Mode.XSAFE,
+          Mode.SHAPE,
+          Mode.DENSE16,
+          Mode.DENSE32,
+          Mode.DENSE64);
+
+  private static final long[] EDGES = {
+    0L, 1L, -1L, 42L, -42L, Integer.MAX_VALUE, Integer.MIN_VALUE, 1L << 32, -1L << 32,
+    Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE - 1, Long.MIN_VALUE + 1
+  };
+
+  @Test
+  void testMode_FixedLength() {
+    assertEquals(20, Mode.MIXED.fixedLength());
+    assertEquals(20, Mode.XSAFE.fixedLength());
+    assertEquals(16, Mode.DENSE16.fixedLength());
+    assertEquals(13, Mode.DENSE32.fixedLength());
+    assertEquals(11, Mode.DENSE64.fixedLength());
+  }
+
+  @Test
+  void testFixedLength_Edges() {
+    for (Mode mode : MODES) {
+      Coder coder = Coder.ofFixedLength(67L, mode);
+      for (long value : EDGES) assertEncodesFixed(coder, mode, value);
+    }
+  }
+
+  @Test
+  void testFixedLength_Random() {
+    Random rnd = new Random(42);
+    for (Mode mode : MODES) {
+      Coder coder = Coder.ofFixedLength(67L, mode);
+      for (int i = 0; i < 10_000; i++) {
+        assertEncodesFixed(coder, mode, rnd.nextLong());
+        assertEncodesFixed(coder, mode, rnd.nextLong() >> rnd.nextInt(64));
+      }
+    }
+  }
+
+  @Test
+  void testFixedLength_NoSpecialSymbols() {
+    Random rnd = new Random(42);
+    for (Mode mode : MODES) {
+      Coder coder = Coder.ofFixedLength(67L, mode);
+      for (int i = 0; i < 1000; i++) {
+        String id = coder.encodeLong(rnd.nextLong() >> rnd.nextInt(64));
+        for (char c : new char[] {mode.join(), mode.flip(), mode.pad1(), mode.padN()})
+          assertEquals(-1, id.indexOf(c), "special symbol in " + id);
+      }
+    }
+  }
+
+  @Test
+  void testFixedLength_DifferentFromMinLength() {
+    Coder fixed = Coder.ofFixedLength(67L, Mode.MIXED);
+    Coder padded = Coder.of(67L, 20, Mode.MIXED);
+    assertNotEquals(padded.encodeLong(42L), fixed.encodeLong(42L));
+    assertThrows(IllegalArgumentException.class, () -> fixed.decodeLong(padded.encodeLong(42L)));
+    assertEquals(OptionalLong.empty(), fixed.tryDecodeLong(padded.encodeLong(42L)));
+  }
+
+  @Test
+  void testFixedLength_Registered() {
+    assertSame(Coder.ofFixedLength(67L, Mode.MIXED), Coder.ofFixedLength(67L, Mode.MIXED));
+    assertNotEquals(Coder.of(67L, 20, Mode.MIXED), Coder.ofFixedLength(67L, Mode.MIXED));
+  }
+
+  @Test
+  void testFixedLength_Secret() {
+    for (Mode mode : MODES)
+      assertNotEquals(
+          Coder.ofFixedLength(67L, mode).encodeLong(42L),
+          Coder.ofFixedLength(68L, mode).encodeLong(42L));
+  }
+
+  @Test
+  void testFixedLength_Longs() {
+    long[] values = {0L, -1L, 42L, Long.MIN_VALUE, Long.MAX_VALUE};
+    for (Mode mode : MODES) {
+      Coder coder = Coder.ofFixedLength(67L, mode);
+      String id = coder.encodeLongs(values);
+      int length = mode.fixedLength();
+      assertEquals(values.length * (length + 1) - 1, id.length());
+      assertEquals(id.length(), coder.encodedLength(values));
+      assertArrayEquals(values, coder.decodeLongs(id));
+      for (int i = 0; i < values.length; i++) {
+        int from = i * (length + 1);
+        assertEquals(values[i], coder.decodeLong(id, from, from + length));
+      }
+    }
+  }
+
+  @Test
+  void testFixedLength_Column() {
+    long[] values = {0L, -1L, 42L, Long.MIN_VALUE, Long.MAX_VALUE};
+    for (Mode mode : MODES) {
+      Coder coder = Coder.ofFixedLength(67L, mode);
+      Coder.Column column = coder.encodeLongColumn(values, 0, values.length);
+      for (int i = 0; i < column.offsets().length; i++)
+        assertEquals(i * mode.fixedLength(), column.offsets()[i]);
+      assertArrayEquals(values, coder.decodeLongColumn(column));
+    }
+  }
+
+  @Test
+  void testFixedLength_Invalid() {
+    for (Mode mode : MODES) {
+      Coder coder = Coder.ofFixedLength(67L, mode);
+      String id = coder.encodeLong(42L);
+      assertThrows(IllegalArgumentException.class, () -> coder.decodeLong(id.substring(1)));
+      assertThrows(IllegalArgumentException.class, () -> coder.decodeLong(id + id.charAt(0)));
+      String padded = mode.pad1() + id.substring(1);
+      assertThrows(IllegalArgumentException.class, () -> coder.decodeLong(padded));
+      assertEquals(OptionalLong.empty(), coder.tryDecodeLong(padded));
+      String flipped = mode.flip() + id.substring(1);
+      assertThrows(IllegalArgumentException.class, () -> coder.decodeLong(flipped));
+      assertEquals(OptionalLong.empty(), coder.tryDecodeLong(flipped));
+    }
+  }
+
+  @Test
+  void testFixedLength_Fuzz() {
+    Random rnd = new Random(42);
+    for (Mode mode : MODES) {
+      Coder coder = Coder.ofFixedLength(67L, mode);
+      String symbols = String.join("", mode.tables()) + mode.pad1() + mode.padN() + mode.flip();
+      for (int i = 0; i < 10_000; i++) {
+        char[] id = coder.encodeLong(rnd.nextLong()).toCharArray();
+        id[rnd.nextInt(id.length)] = symbols.charAt(rnd.nextInt(symbols.length()));
+        String changed = new String(id);
+        OptionalLong value = coder.tryDecodeLong(changed);
+        if (value.isPresent()) {
+          assertEquals(value.getAsLong(), coder.decodeLong(changed));
+          assertEquals(changed, coder.encodeLong(value.getAsLong()));
+        } else {
+          assertThrows(IllegalArgumentException.class, () -> coder.decodeLong(changed));
+        }
+      }
+    }
+  }
+
+  @Test
+  void testFixedLength_LookupTables() {
+    Coder plain = Coder.ofFixedLength(67L, Mode.MIXED);
+    Coder tables = plain.withLookupTables(3);
+    Random rnd = new Random(42);
+    for (int i = 0; i < 10_000; i++) {
+      long value = rnd.nextLong() >> rnd.nextInt(64);
+      String id = plain.encodeLong(value);
+      assertEquals(id, tables.encodeLong(value));
+      assertEquals(value, tables.decodeLong(id));
+    }
+  }
+
+  private static void assertEncodesFixed(Coder coder, Mode mode, long value) {
+    String id = coder.encodeLong(value);
+    assertEquals(mode.fixedLength(), id.length(), "unexpected length");
+    assertEquals(mode.fixedLength(), coder.encodedLength(value));
+    assertEquals(value, coder.decodeLong(id), "decoding error");
+    assertEquals(OptionalLong.of(value), coder.tryDecodeLong(id));
+    assertTrue(coder.isValid(id));
+  }
+}
@@ -0,0 +1,128 @@
+package se.jbee.lusid;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import jdk.jfr.Recording;
+import jdk.jfr.ValueDescriptor;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import se.jbee.lusid.Coder.Mode;
+
+/**
+ * Tests the JDK Flight Recorder events emitted by {@link FlightEvents} by recording them into a
+ * file and reading them back.
+ */
+class CoderFlightEventsTest {
+
+  @TempDir Path dir;
+
+  @Test
+  void testEvents_Available() {
+    assertTrue(FlightEvents.AVAILABLE);
+  }
+
+  @Test
+  void testEvents_CoderCreated() throws IOException {
+    List<RecordedEvent> events =
+        record(
+            "se.jbee.lusid.CoderCreated",
+            () -> Coder.of(13579L, 7, Mode.XSAFE).withLookupTables(3));
+    assertEquals(2, events.size());
+    RecordedEvent created = events.get(0);
+    assertEquals("XSAFE", created.getString("mode"));
+    assertEquals(7, created.getInt("minLength"));
+    assertEquals(1, created.getInt("triplets"));
+    assertEquals(3, events.get(1).getInt("triplets"));
+    assertFalse(created.getDuration().isNegative());
+  }
+
+  @Test
+  void testEvents_DecodeFailure() throws IOException {
+    Coder coder = Coder.of(67L, 8);
+    String id = coder.encodeLong(42L);
+    // long enough to not have padding
+    String unpadded = coder.encodeLong(Long.MAX_VALUE / 3);
+    List<RecordedEvent> events =
+        record(
+            "se.jbee.lusid.DecodeFailure",
+            () -> {
+              assertThrows(IllegalArgumentException.class, () -> coder.decodeLong(""));
+              assertThrows(
+                  IllegalArgumentException.class,
+                  () -> coder.decodeLong(id.substring(0, 7) + "!"));
+              assertThrows(
+                  IllegalArgumentException.class,
+                  () -> coder.decodeLong(unpadded.substring(0, 5) + "!" + unpadded.substring(6)));
+              // non-throwing decoding does not emit events
+              coder.tryDecodeLong("!!!");
+            });
+    Set<String> reasons =
+        events.stream().map(e -> e.getString("reason")).collect(Collectors.toSet());
+    assertEquals(Set.of("EMPTY", "OFFSET", "SYMBOL"), reasons);
+    assertEquals(3, events.size());
+    // no ID or secret
+    Set<String> standard = Set.of("startTime", "duration", "eventThread", "stackTrace");
+    for (RecordedEvent e : events)
+      assertEquals(
+          List.of("reason"),
+          e.getFields().stream()
+              .map(ValueDescriptor::getName)
+              .filter(name -> !standard.contains(name))
+              .toList());
+  }
+
+  @Test
+  void testEvents_BatchOperation() throws IOException {
+    Coder coder = Coder.of(67L, 8);
+    long[] values = LongStream.range(0, 100_000).toArray();
+    List<RecordedEvent> events =
+        record(
+            "se.jbee.lusid.BatchOperation",
+            () -> coder.decodeLongColumn(coder.encodeLongColumn(values, 0, values.length)));
+    assertEquals(2, events.size());
+    assertEquals("encodeLongColumn", events.get(0).getString("operation"));
+    assertEquals("decodeLongColumn", events.get(1).getString("operation"));
+    assertEquals(values.length, events.get(1).getInt("count"));
+  }
+
+  @Test
+  void testEvents_DisabledByDefault() throws IOException {
+    Path file = dir.resolve("default.jfr");
+    try (Recording recording = new Recording()) {
+      recording.start();
+      Coder.of(24680L, 9, Mode.SHAPE);
+      recording.stop();
+      recording.dump(file);
+    }
+    for (RecordedEvent e : RecordingFile.readAllEvents(file))
+      assertFalse(e.getEventType().getName().startsWith("se.jbee.lusid"));
+  }
+
+  private List<RecordedEvent> record(String eventName, Runnable action) throws IOException {
+    Path file = dir.resolve(eventName + ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable(eventName).withThreshold(Duration.ZERO);
+      recording.start();
+      action.run();
+      recording.stop();
+      recording.dump(file);
+    }
+    assertTrue(Files.size(file) > 0);
+    return RecordingFile.readAllEvents(file).stream()
+        .filter(e -> e.getEventType().getName().equals(eventName))
+        .toList();
+  }
+}
@@ -0,0 +1,98 @@
+package se.jbee.lusid;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests decoding multiple values from a {@link CharSequence} slice using {@link
+ * Coder#decodeLongs(CharSequence, int, int)}, {@link Coder#decodeLongs(CharSequence, int, int,
+ * java.util.function.LongConsumer)}, {@link Coder#decodeLongIterator(CharSequence, int, int)} and
+ * {@link Coder#decodeLongStream(CharSequence, int, int)}.
+ */
+class CoderLongsLazyTest {
+
+  private final Coder coder = Coder.of(42L, 12);
+
+  @Test
+  void testLongs_Slice() {
+    long[] values = {1L, -2L, 300L, Long.MAX_VALUE, Long.MIN_VALUE, 0L};
+    String id = coder.encodeLongs(values);
+    String path = "/items/" + id + "/details";
+    int from = 7;
+    int to = from + id.length();
+    assertArrayEquals(values, coder.decodeLongs(path, from, to));
+    assertArrayEquals(values, decodeWithConsumer(path, from, to));
+    assertArrayEquals(values, decodeWithIterator(path, from, to));
+    assertArrayEquals(values, coder.decodeLongStream(path, from, to).toArray());
+  }
+
+  @Test
+  void testLongs_Single() {
+    String id = coder.encodeLongs(42L);
+    assertArrayEquals(new long[] {42L}, coder.decodeLongs(id));
+    assertArrayEquals(new long[] {42L}, decodeWithConsumer(id, 0, id.length()));
+    assertArrayEquals(new long[] {42L}, decodeWithIterator(id, 0, id.length()));
+  }
+
+  @Test
+  void testLongs_Empty() {
+    assertArrayEquals(new long[0], coder.decodeLongs(""));
+    assertArrayEquals(new long[0], coder.decodeLongs("abc", 1, 1));
+    assertEquals(0, coder.decodeLongs("abc", 1, 1, value -> {}));
+    PrimitiveIterator.OfLong iter = coder.decodeLongIterator("abc", 1, 1);
+    assertFalse(iter.hasNext());
+    assertThrows(NoSuchElementException.class, iter::nextLong);
+    assertEquals(0L, coder.decodeLongStream("abc", 1, 1).count());
+  }
+
+  @Test
+  void testLongs_Many() {
+    long[] values = new Random(42).longs(500).toArray();
+    String id = coder.encodeLongs(values);
+    assertArrayEquals(values, coder.decodeLongs(id));
+    assertArrayEquals(values, decodeWithConsumer(id, 0, id.length()));
+    assertArrayEquals(values, decodeWithIterator(id, 0, id.length()));
+    // the first values can be consumed without decoding the rest
+    assertArrayEquals(
+        LongStream.of(values).limit(3).toArray(),
+        coder.decodeLongStream(id, 0, id.length()).limit(3).toArray());
+  }
+
+  @Test
+  void testLongs_Invalid() {
+    String id = coder.encodeLongs(1L, 2L, 3L);
+    String trailingJoin = id + Coder.Mode.MIXED.join();
+    assertThrows(IllegalArgumentException.class, () -> coder.decodeLongs(trailingJoin));
+    PrimitiveIterator.OfLong iter =
+        coder.decodeLongIterator(trailingJoin, 0, trailingJoin.length());
+    assertEquals(1L, iter.nextLong());
+    assertEquals(2L, iter.nextLong());
+    assertEquals(3L, iter.nextLong());
+    assertTrue(iter.hasNext());
+    assertThrows(IllegalArgumentException.class, iter::nextLong);
+    assertThrows(IndexOutOfBoundsException.class, () -> coder.decodeLongIterator(id, 0, 100));
+  }
+
+  private long[] decodeWithConsumer(CharSequence id, int from, int to) {
+    LongStream.Builder values = LongStream.builder();
+    int count = coder.decodeLongs(id, from, to, values);
+    long[] res = values.build().toArray();
+    assertEquals(res.length, count);
+    return res;
+  }
+
+  private long[] decodeWithIterator(CharSequence id, int from, int to) {
+    LongStream.Builder values = LongStream.builder();
+    coder.decodeLongIterator(id, from, to).forEachRemaining(values);
+    return values.build().toArray();
+  }
+}
@@ -0,0 +1,98 @@
+package se.jbee.lusid;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+import se.jbee.lusid.Coder.Mode;
+
+/**
+ * Tests that a {@link Coder#withLookupTables(int)} coder produces and accepts the exact same IDs as
+ * the coder it was derived from.
+ */
+class CoderLookupTablesTest {
+
+  private static final List<Mode> MODES =
+      List.of(
+          Mode.MIXED,
+          Mode.LOWER,
+          Mode.UPPER,
+          Mode.XSAFE,
+          Mode.SHAPE,
+          new Mode('Q', 'y', '9', '8', List.of("BCDFGJKL", "mnpstvxz", "bcdfgjkl", "ÄÖÜäöüàé")));
+
+  private static final long[] VALUES = values();
+
+  @Test
+  void testLong() {
+    for (Mode mode : MODES)
+      for (int minLength = 1; minLength <= 20; minLength++) {
+        Coder plain = Coder.of(67L, minLength, mode);
+        for (int triplets = 1; triplets <= 4; triplets++) {
+          Coder coder = plain.withLookupTables(triplets);
+          for (long value : VALUES) {
+            String id = plain.encodeLong(value);
+            assertEquals(id, coder.encodeLong(value));
+            assertEquals(value, coder.decodeLong(id));
+          }
+        }
+      }
+  }
+
+  @Test
+  void testNameAndText() {
+    Coder plain = Coder.of(67L, 12);
+    Coder coder = plain.withLookupTables(3);
+    for (String name : List.of("A", "HELLO", "HELLO_WORLD_AND_EVERYONE")) {
+      assertEquals(plain.encodeName(name), coder.encodeName(name));
+      assertEquals(name, coder.decodeName(plain.encodeName(name)));
+    }
+    String text = "Grüße, world!";
+    assertEquals(plain.encodeText(text), coder.encodeText(text));
+    assertEquals(text, coder.decodeText(plain.encodeText(text)));
+  }
+
+  @Test
+  void testDecode_InvalidSymbol() {
+    Coder plain = Coder.of(67L, 8);
+    Coder coder = plain.withLookupTables(2);
+    String id = plain.encodeLong(123456789L);
+    for (int i = 0; i < id.length(); i++) {
+      String invalid = id.substring(0, i) + "#" + id.substring(i + 1);
+      IllegalArgumentException expected =
+          assertThrows(IllegalArgumentException.class, () -> plain.decodeLong(invalid));
+      IllegalArgumentException actual =
+          assertThrows(IllegalArgumentException.class, () -> coder.decodeLong(invalid));
+      assertEquals(expected.getMessage(), actual.getMessage());
+    }
+  }
+
+  @Test
+  void testSharedTables() {
+    Lusid a = (Lusid) Coder.of(1L, 8, Mode.UPPER).withLookupTables(3);
+    Lusid b = (Lusid) Coder.of(2L, 12, Mode.UPPER).withLookupTables(3);
+    assertSame(a.chunks(), b.chunks());
+  }
+
+  @Test
+  void testIllegalTriplets() {
+    Coder coder = Coder.of(67L, 8);
+    assertThrows(IllegalArgumentException.class, () -> coder.withLookupTables(0));
+    assertThrows(IllegalArgumentException.class, () -> coder.withLookupTables(5));
+  }
+
+  private static long[] values() {
+    LongStream.Builder values = LongStream.builder();
+    for (int shift = 0; shift < 64; shift++) {
+      long bit = 1L << shift;
+      values.add(bit).add(bit - 1).add(-bit).add(~bit);
+    }
+    Random rnd = new Random(42);
+    for (int i = 0; i < 100; i++) values.add(rnd.nextLong() >> rnd.nextInt(64));
+    return values.build().toArray();
+  }
+}
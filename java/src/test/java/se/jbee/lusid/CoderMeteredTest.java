@@ -0,0 +1,205 @@
+package se.jbee.lusid;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import se.jbee.lusid.Coder.MeterStats;
+import se.jbee.lusid.Coder.Metered;
+import se.jbee.lusid.Coder.Operation;
+
+/** Tests the metering {@link Coder}s created by {@link Coder#metered(Coder, boolean)}. */
+class CoderMeteredTest {
+
+  private static final Coder CODER = Coder.of(67L, 8);
+
+  @Test
+  void testMetered_SameIds() {
+    Metered metered = Coder.metered(CODER, true);
+    for (long value = -100; value < 100; value++) {
+      String id = CODER.encodeLong(value);
+      assertEquals(id, metered.encodeLong(value));
+      assertEquals(value, metered.decodeLong(id));
+    }
+    assertEquals(CODER.encodeDoubles(1d, 2d), metered.encodeDoubles(1d, 2d));
+    assertEquals(CODER.encodeText("text"), metered.encodeText("text"));
+  }
+
+  @Test
+  void testMetered_CountsAndLengths() {
+    Metered metered = Coder.metered(CODER, false);
+    String id = metered.encodeLong(42L);
+    metered.encodeLong(43L);
+    metered.decodeLong(id);
+    metered.decodeLong("/" + id, 1, 1 + id.length());
+    MeterStats encode = metered.stats(Operation.ENCODE_LONG);
+    assertEquals(2, encode.count());
+    assertEquals(0, encode.failures());
+    assertEquals(2, encode.lengths()[8]);
+    assertEquals(8, encode.maxLength());
+    assertEquals(0, encode.latencies().length);
+    assertEquals(0L, encode.latency(0.5d));
+    MeterStats decode = metered.stats(Operation.DECODE_LONG);
+    assertEquals(2, decode.count());
+    assertEquals(2, decode.lengths()[8]);
+  }
+
+  @Test
+  void testMetered_NotCountedTwice() {
+    Metered metered = Coder.metered(CODER, false);
+    assertEquals(42, metered.decodeInt(metered.encodeInt(42)));
+    assertEquals(0.5d, metered.decodeDouble(metered.encodeDouble(0.5d)));
+    assertEquals(0.5f, metered.decodeFloat(metered.encodeFloat(0.5f)));
+    assertArrayEquals(new long[] {1, 2}, metered.decodeLongs(metered.encodeLongs(1L, 2L)));
+    assertEquals("NAME", metered.decodeName(metered.encodeName("NAME")));
+    assertEquals("text", metered.decodeText(metered.encodeText("text")));
+    assertEquals("text", metered.decodePackedText(metered.encodePackedText("text")));
+    UUID uuid = new UUID(42L, -42L);
+    assertEquals(uuid, metered.decodeUuid(metered.encodeUuid(uuid)));
+    for (Operation op : Operation.values()) {
+      long expected =
+          switch (op) {
+            case ENCODE_LONG, DECODE_LONG -> 0;
+            case ENCODE_TEXT, DECODE_TEXT -> 2;
+            default -> 1;
+          };
+      assertEquals(expected, metered.stats(op).count(), op.name());
+    }
+  }
+
+  @Test
+  void testMetered_Failures() {
+    Metered metered = Coder.metered(CODER, false);
+    assertThrows(IllegalArgumentException.class, () -> metered.decodeLong("not an ID!"));
+    assertThrows(IllegalArgumentException.class, () -> metered.decodeLong(""));
+    assertEquals(OptionalLong.empty(), metered.tryDecodeLong("not an ID!"));
+    assertEquals(OptionalLong.of(42L), metered.tryDecodeLong(metered.encodeLong(42L)));
+    MeterStats decode = metered.stats(Operation.DECODE_LONG);
+    assertEquals(4, decode.count());
+    assertEquals(3, decode.failures());
+    assertEquals(0, metered.stats(Operation.DECODE_LONGS).count());
+    assertThrows(IllegalArgumentException.class, () -> metered.encodeName("lower"));
+    assertEquals(1, metered.stats(Operation.ENCODE_NAME).failures());
+  }
+
+  @Test
+  void testMetered_FailuresOutOfBounds() {
+    Metered metered = Coder.metered(CODER, true);
+    String id = metered.encodeLong(42L);
+    assertThrows(IndexOutOfBoundsException.class, () -> metered.decodeLong(id, 2, 1));
+    assertThrows(
+        IndexOutOfBoundsException.class, () -> metered.tryDecodeLong(id, 0, id.length() + 1));
+    assertThrows(IllegalArgumentException.class, () -> metered.decodeLong("not an ID!"));
+    MeterStats decode = metered.stats(Operation.DECODE_LONG);
+    assertEquals(3, decode.count());
+    assertEquals(3, decode.failures());
+    // failed calls are part of the latency histogram
+    assertEquals(3, Arrays.stream(decode.latencies()).sum());
+  }
+
+  @Test
+  void testMetered_ConvenienceMethods() {
+    Metered metered = Coder.metered(CODER, false);
+    assertArrayEquals(new int[] {1, 2}, metered.decodeInts(metered.encodeInts(1, 2)));
+    assertArrayEquals(new double[] {0.5d}, metered.decodeDoubles(metered.encodeDoubles(0.5d)));
+    double[] compact = {1d, 2d};
+    assertArrayEquals(compact, metered.decodeCompactDoubles(metered.encodeCompactDoubles(compact)));
+    assertArrayEquals(new long[] {3, 4}, metered.decodeDeltaLongs(metered.encodeDeltaLongs(3, 4)));
+    assertEquals(1.5d, metered.decodeCompactDouble(metered.encodeCompactDouble(1.5d)));
+    assertEquals(1.5f, metered.decodeCompactFloat(metered.encodeCompactFloat(1.5f)));
+    String uuid = metered.encodeUuid(1L, 2L);
+    assertEquals(1L, metered.decodeUuidMostSigBits(uuid, 0, uuid.length()));
+    assertEquals(2L, metered.decodeUuidLeastSigBits(uuid, 0, uuid.length()));
+    assertThrows(IllegalArgumentException.class, () -> metered.decodeUuid("too short"));
+    for (Operation op : Operation.values()) {
+      long expected =
+          switch (op) {
+            case ENCODE_LONGS, DECODE_LONGS -> 4;
+            case ENCODE_DOUBLE, DECODE_DOUBLE, ENCODE_FLOAT, DECODE_FLOAT, ENCODE_UUID -> 1;
+            case DECODE_UUID -> 3;
+            default -> 0;
+          };
+      assertEquals(expected, metered.stats(op).count(), op.name());
+    }
+    assertEquals(1, metered.stats(Operation.DECODE_UUID).failures());
+  }
+
+  @Test
+  void testMetered_DecodeLongsConsumerAndIterator() {
+    Metered metered = Coder.metered(CODER, false);
+    String id = CODER.encodeLongs(1L, 2L, 3L);
+    long[] sum = {0};
+    assertEquals(3, metered.decodeLongs(id, 0, id.length(), v -> sum[0] += v));
+    assertEquals(6, sum[0]);
+    MeterStats decode = metered.stats(Operation.DECODE_LONGS);
+    assertEquals(1, decode.count());
+    assertEquals(1, decode.lengths()[id.length()]);
+    assertEquals(6, metered.decodeLongStream(id, 0, id.length()).sum());
+    assertEquals(2, metered.stats(Operation.DECODE_LONGS).count());
+    String invalid = id + "!";
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> metered.decodeLongs(invalid, 0, invalid.length(), v -> {}));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> metered.decodeLongStream(invalid, 0, invalid.length()).sum());
+    decode = metered.stats(Operation.DECODE_LONGS);
+    assertEquals(4, decode.count());
+    assertEquals(2, decode.failures());
+  }
+
+  @Test
+  void testMetered_Latency() {
+    Metered metered = Coder.metered(CODER, true);
+    for (int i = 0; i < 100; i++) metered.encodeLong(i);
+    MeterStats stats = metered.stats(Operation.ENCODE_LONG);
+    assertEquals(MeteredCoder.LATENCY_BUCKETS, stats.latencies().length);
+    long p50 = stats.latency(0.5d);
+    long p99 = stats.latency(0.99d);
+    assertTrue(p50 > 0 && p50 <= p99, "p50: " + p50 + " p99: " + p99);
+  }
+
+  @Test
+  void testMetered_WithLookupTablesSharesMeters() {
+    Metered metered = Coder.metered(CODER, false);
+    Metered tables = metered.withLookupTables(2);
+    tables.encodeLong(42L);
+    metered.encodeLong(42L);
+    assertEquals(2, metered.stats(Operation.ENCODE_LONG).count());
+    assertEquals(2, tables.stats(Operation.ENCODE_LONG).count());
+  }
+
+  @Test
+  void testMetered_Concurrent() throws Exception {
+    Metered metered = Coder.metered(CODER, true);
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 4; t++)
+        futures.add(
+            pool.submit(
+                () -> {
+                  for (long value = 0; value < 10_000; value++)
+                    metered.decodeLong(metered.encodeLong(value));
+                }));
+      for (Future<?> f : futures) f.get();
+    } finally {
+      pool.shutdown();
+    }
+    assertEquals(40_000, metered.stats(Operation.ENCODE_LONG).count());
+    assertEquals(40_000, metered.stats(Operation.DECODE_LONG).count());
+    long lengths = 0;
+    for (long n : metered.stats(Operation.ENCODE_LONG).lengths()) lengths += n;
+    assertEquals(40_000, lengths);
+  }
+}
@@ -3,6 +3,7 @@ package se.jbee.lusid;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.util.ArrayList;
 import java.util.List;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.function.Executable;
@@ -28,6 +29,15 @@ class CoderModeTest {
                 'Q', 'y', '9', '8', List.of("BCDFGJKL", "mnpstvxz", "bcdfgjkl")));
   }
 
+  @Test
+  void testMode_TableCountMax() {
+    List<String> tables = new ArrayList<>(List.of("BCDFGJKL", "mnpstvxz", "bcdfgjkl", "MNPSTVXZ"));
+    while (tables.size() < 14) tables.add("01234567");
+    assertIllegalMode(
+        "At most 13 bit tables are supported", () -> new Coder.Mode('Q', 'y', '9', '8', tables));
+    new Coder.Mode('Q', 'y', '9', '8', tables.subList(0, 13));
+  }
+
   @Test
   void testMode_TableUnique() {
     assertIllegalMode(
@@ -2,6 +2,10 @@ package se.jbee.lusid;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+import java.util.Random;
+import se.jbee.lusid.Coder.Mode;
+
 import static java.lang.Math.max;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -37,6 +41,31 @@ class CoderNameTest {
     assertEquals("Not a name character: o at index 1", ex.getMessage());
   }
 
+  @Test
+  void testName_Garbage() {
+    assertThrows(IllegalArgumentException.class, () -> Coder.of(67L, 9).decodeName("8Z"));
+    Random rnd = new Random(42);
+    for (Mode mode : List.of(Mode.MIXED, Mode.LOWER, Mode.DENSE32))
+      for (int minLength : new int[] {1, 9}) {
+        Coder coder = Coder.of(67L, minLength, mode);
+        String symbols = String.join("", mode.tables()) + mode.pad1() + mode.padN();
+        for (int i = 0; i < 10_000; i++) {
+          String id = randomId(rnd, symbols);
+          try {
+            coder.decodeName(id);
+          } catch (IllegalArgumentException ex) {
+            // expected for most garbage, any other exception is a bug
+          }
+        }
+      }
+  }
+
+  static String randomId(Random rnd, String symbols) {
+    char[] id = new char[1 + rnd.nextInt(12)];
+    for (int i = 0; i < id.length; i++) id[i] = symbols.charAt(rnd.nextInt(symbols.length()));
+    return new String(id);
+  }
+
   private void assertName(Coder coder, int expectedLength, String expected) {
     String id = coder.encodeName(expected);
     assertEquals(expectedLength, id.length());
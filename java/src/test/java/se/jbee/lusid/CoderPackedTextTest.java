@@ -0,0 +1,91 @@
+package se.jbee.lusid;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Tests the {@link Coder#encodePackedText(String)} and {@link Coder#decodePackedText(String)}
+ * method pair.
+ */
+class CoderPackedTextTest {
+
+  @Test
+  void testPackedText_Empty() {
+    Coder coder = Coder.of(67L, 9);
+    assertPackedText(coder, 0, "");
+  }
+
+  @Test
+  void testPackedText() {
+    Coder coder = Coder.of(67L, 9);
+    String expected = "Hello world! 🎉";
+    // 17 bytes * 8 bits = 136 bits / 5 = 28 units
+    assertPackedText(coder, 28, expected);
+    assertEquals(34, coder.encodeText(expected).length());
+    StringBuilder str = new StringBuilder();
+    expected.codePoints().forEach(cp -> assertPackedText(coder, -1, str.append(cp).toString()));
+  }
+
+  @Test
+  void testPackedText_Length() {
+    Random rnd = new Random(42);
+    for (int minLength = 1; minLength <= 20; minLength++) {
+      Coder coder = Coder.of(67L, minLength);
+      for (int length = 1; length < 40; length++) {
+        byte[] ascii = new byte[length];
+        for (int i = 0; i < length; i++) ascii[i] = (byte) ('a' + rnd.nextInt(26));
+        int units = (8 * length + 4) / 5;
+        // padding is at most 9 characters
+        int expectedLength = max(units, min(minLength, units + 9));
+        assertPackedText(coder, expectedLength, new String(ascii, UTF_8));
+      }
+    }
+  }
+
+  @Test
+  void testPackedText_MaxPadding() {
+    Coder coder = Coder.of(67L, 14);
+    // 2 bytes = 4 units + 9 padding
+    assertPackedText(coder, 4 + 9, "NO");
+  }
+
+  @Test
+  void testPackedText_Secret() {
+    String text = "the same text";
+    assertNotEquals(
+        Coder.of(67L, 9).encodePackedText(text), Coder.of(68L, 9).encodePackedText(text));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {4, 5, 6})
+  void testPackedText_PackUnpack(int unitBits) {
+    byte[] bytes = new byte[256];
+    for (int i = 0; i < bytes.length; i++) bytes[i] = (byte) i;
+    int mask = (1 << unitBits) - 1;
+    for (int length = 0; length <= bytes.length; length++) {
+      byte[] buf = new byte[2 * length];
+      System.arraycopy(bytes, 0, buf, 0, length);
+      int units = Lusid.packedUnits(buf, length, unitBits);
+      for (int i = 0; i < units; i++) assertEquals(buf[i] & mask, buf[i]);
+      assertEquals(length, Lusid.unpackedBytes(buf, units, unitBits));
+      assertArrayEquals(Arrays.copyOf(bytes, length), Arrays.copyOf(buf, length));
+    }
+  }
+
+  private void assertPackedText(Coder coder, int expectedLength, String expected) {
+    String id = coder.encodePackedText(expected);
+    if (expectedLength >= 0) assertEquals(expectedLength, id.length());
+    String actual = coder.decodePackedText(id);
+    assertEquals(expected, actual);
+  }
+}
@@ -0,0 +1,92 @@
+package se.jbee.lusid;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link Coder#encodeLongEach(long[])} and {@link Coder#decodeLongEach(String[])} family
+ * of methods that de/encode many individual values in parallel.
+ */
+class CoderParallelTest {
+
+  private static final Coder CODER = Coder.of(67L, 8);
+
+  private static final long[] VALUES = LongStream.range(-5000, 5000).map(v -> v * 7919L).toArray();
+
+  private static final String[] IDS =
+      LongStream.of(VALUES).mapToObj(CODER::encodeLong).toArray(String[]::new);
+
+  @Test
+  void testEncodeLongEach_CommonPool() {
+    assertArrayEquals(IDS, CODER.encodeLongEach(VALUES));
+    assertArrayEquals(IDS, CODER.encodeLongEach(LongStream.of(VALUES)));
+  }
+
+  @Test
+  void testDecodeLongEach_CommonPool() {
+    assertArrayEquals(VALUES, CODER.decodeLongEach(IDS));
+  }
+
+  @Test
+  void testEachForkJoinPool() {
+    ForkJoinPool pool = new ForkJoinPool(3);
+    try {
+      assertArrayEquals(IDS, CODER.encodeLongEach(VALUES, pool, 100));
+      assertArrayEquals(VALUES, CODER.decodeLongEach(IDS, pool, 100));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  void testEachExecutor() {
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      assertArrayEquals(IDS, CODER.encodeLongEach(VALUES, executor, 333));
+      assertArrayEquals(VALUES, CODER.decodeLongEach(IDS, executor, 333));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void testEachSequential() {
+    // an executor that must not be used as the input is not larger than the threshold
+    Executor unused =
+        cmd -> {
+          throw new AssertionError("should be sequential");
+        };
+    assertArrayEquals(IDS, CODER.encodeLongEach(VALUES, unused, VALUES.length));
+    assertArrayEquals(new String[0], CODER.encodeLongEach(new long[0]));
+    assertArrayEquals(new long[0], CODER.decodeLongEach(new String[0]));
+  }
+
+  @Test
+  void testEach_IllegalThreshold() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> CODER.encodeLongEach(VALUES, ForkJoinPool.commonPool(), 0));
+  }
+
+  @Test
+  void testDecodeLongEach_InvalidId() {
+    String[] ids = IDS.clone();
+    ids[ids.length - 7] = "_";
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      assertThrows(IllegalArgumentException.class, () -> CODER.decodeLongEach(ids, executor, 64));
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> CODER.decodeLongEach(ids, ForkJoinPool.commonPool(), 64));
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
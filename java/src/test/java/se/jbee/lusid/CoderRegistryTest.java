@@ -0,0 +1,60 @@
+package se.jbee.lusid;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import se.jbee.lusid.Coder.Mode;
+
+/** Tests that {@link Coder#of(long, int, Mode)} returns shared instances. */
+class CoderRegistryTest {
+
+  @Test
+  void testOf_Shared() {
+    assertSame(Coder.of(67L, 8), Coder.of(67L, 8));
+    assertSame(Coder.of(67L, 8, Mode.UPPER), Coder.of(67L, 8, Mode.UPPER));
+    assertSame(Coder.of(67L, 20), Coder.of(67L, 42), "min length is limited to 20");
+    assertNotSame(Coder.of(67L, 8), Coder.of(67L, 9));
+    assertNotSame(Coder.of(67L, 8), Coder.of(68L, 8));
+    assertNotSame(Coder.of(67L, 8, Mode.UPPER), Coder.of(67L, 8, Mode.LOWER));
+  }
+
+  @Test
+  void testOf_EqualModeShared() {
+    List<String> tables = List.of("BCDFGJKL", "mnpstvxz", "bcdfgjkl", "MNPSTVXZ");
+    Coder a = Coder.of(67L, 8, new Mode('Q', 'y', '9', '8', tables));
+    Coder b = Coder.of(67L, 8, new Mode('Q', 'y', '9', '8', tables));
+    assertSame(a, b);
+    Lusid c = (Lusid) Coder.of(13L, 6, new Mode('Q', 'y', '9', '8', tables));
+    assertSame(((Lusid) a).tables(), c.tables(), "tables are shared per mode");
+    assertSame(((Lusid) a).symbols(), c.symbols(), "symbols are shared per mode");
+  }
+
+  @Test
+  void testMode_TablesCopied() {
+    List<String> tables = new ArrayList<>(List.of("BCDFGJKL", "mnpstvxz", "bcdfgjkl", "MNPSTVXZ"));
+    Mode mode = new Mode('Q', 'y', '9', '8', tables);
+    tables.set(0, "12345678");
+    assertEquals("BCDFGJKL", mode.tables().get(0));
+  }
+
+  @Test
+  void testOf_SecretPropertyReadEachTime() {
+    String property = "lusid.test.secret";
+    System.setProperty(property, "42");
+    try {
+      Coder a = Coder.of(property, 8, Mode.MIXED);
+      assertSame(a, Coder.of(property, 8, Mode.MIXED));
+      System.setProperty(property, "43");
+      Coder b = Coder.of(property, 8, Mode.MIXED);
+      assertNotEquals(a.encodeLong(1L), b.encodeLong(1L));
+      assertSame(Coder.of(43L, 8), b);
+    } finally {
+      System.clearProperty(property);
+    }
+  }
+}
@@ -0,0 +1,157 @@
+package se.jbee.lusid;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import se.jbee.lusid.Coder.HighWaterMark;
+import se.jbee.lusid.Coder.Sequence;
+
+/**
+ * Tests the {@link Sequence}s created by {@link Coder#sequence(Coder, HighWaterMark, int)} and the
+ * {@link HighWaterMark} implementations.
+ */
+class CoderSequenceTest {
+
+  private static final Coder CODER = Coder.of(67L, 8);
+
+  @TempDir Path dir;
+
+  @Test
+  void testSequence_SingleThread() {
+    Sequence seq = Coder.sequence(CODER, HighWaterMark.inMemory(1L), 10);
+    for (long expected = 1; expected < 100; expected++) assertEquals(expected, seq.nextLong());
+    assertEquals(CODER.encodeLong(100L), seq.nextId());
+  }
+
+  @Test
+  void testSequence_MarkAheadOfNumbers() {
+    HighWaterMark mark = HighWaterMark.inMemory(0L);
+    Sequence seq = Coder.sequence(CODER, mark, 10);
+    seq.nextLong();
+    assertEquals(10L * BlockSequence.LEASE_BLOCKS, mark.load());
+    for (int i = 1; i < 10 * BlockSequence.LEASE_BLOCKS; i++) seq.nextLong();
+    assertEquals(10L * BlockSequence.LEASE_BLOCKS, mark.load());
+    seq.nextLong();
+    assertEquals(20L * BlockSequence.LEASE_BLOCKS, mark.load());
+  }
+
+  @Test
+  void testSequence_Concurrent() throws Exception {
+    Sequence seq = Coder.sequence(CODER, HighWaterMark.inMemory(0L), 7);
+    int threads = 8;
+    int perThread = 10_000;
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    List<Future<long[]>> futures = new ArrayList<>();
+    try {
+      for (int t = 0; t < threads; t++)
+        futures.add(
+            pool.submit(
+                () -> {
+                  long[] values = new long[perThread];
+                  for (int i = 0; i < perThread; i++) values[i] = seq.nextLong();
+                  return values;
+                }));
+      Set<Long> all = new HashSet<>();
+      for (Future<long[]> f : futures) {
+        long[] values = f.get();
+        for (int i = 0; i < values.length; i++) {
+          assertTrue(all.add(values[i]), "duplicate: " + values[i]);
+          if (i > 0) assertTrue(values[i] > values[i - 1], "ascending per thread");
+        }
+      }
+      assertEquals(threads * perThread, all.size());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  void testSequence_FileRestart() throws IOException {
+    Path file = dir.resolve("seq.mark");
+    Sequence before = Coder.sequence(CODER, HighWaterMark.file(file, 1000L), 100);
+    long last = 0;
+    for (int i = 0; i < 250; i++) last = before.nextLong();
+    assertEquals(1249L, last);
+    long stored = Long.parseLong(Files.readString(file, US_ASCII));
+    assertEquals(1000L + 100 * BlockSequence.LEASE_BLOCKS, stored);
+
+    // a new sequence (as after a restart) continues after the mark
+    Sequence after = Coder.sequence(CODER, HighWaterMark.file(file, 1000L), 100);
+    assertEquals(stored, after.nextLong());
+    assertEquals(List.of("seq.mark"), list(dir));
+  }
+
+  @Test
+  void testSequence_IllegalBlockSize() {
+    HighWaterMark mark = HighWaterMark.inMemory(0L);
+    assertThrows(IllegalArgumentException.class, () -> Coder.sequence(CODER, mark, 0));
+  }
+
+  @Test
+  void testSequence_Exhausted() {
+    Sequence seq = Coder.sequence(CODER, HighWaterMark.inMemory(Long.MAX_VALUE - 2), 2);
+    assertEquals(Long.MAX_VALUE - 2, seq.nextLong());
+    assertEquals(Long.MAX_VALUE - 1, seq.nextLong());
+    assertThrows(IllegalStateException.class, seq::nextLong);
+    // stays exhausted, never wraps to negative numbers
+    assertThrows(IllegalStateException.class, seq::nextLong);
+  }
+
+  @Test
+  void testSequence_ExhaustedPartialBlock() {
+    Sequence seq = Coder.sequence(CODER, HighWaterMark.inMemory(Long.MAX_VALUE - 5), 4);
+    for (long i = 5; i > 1; i--) assertEquals(Long.MAX_VALUE - i, seq.nextLong());
+    for (int i = 0; i < 3; i++) assertThrows(IllegalStateException.class, seq::nextLong);
+  }
+
+  @Test
+  void testSequence_NegativeStart() {
+    assertThrows(IllegalArgumentException.class, () -> HighWaterMark.inMemory(-10L));
+    assertThrows(IllegalArgumentException.class, () -> HighWaterMark.inMemory(Long.MIN_VALUE));
+    Path file = dir.resolve("seq.mark");
+    assertThrows(IllegalArgumentException.class, () -> HighWaterMark.file(file, -1L));
+  }
+
+  @Test
+  void testSequence_NegativeStoredMark() throws IOException {
+    Path file = dir.resolve("seq.mark");
+    Files.writeString(file, "-10", US_ASCII);
+    Sequence seq = Coder.sequence(CODER, HighWaterMark.file(file, 0L), 10);
+    assertThrows(IllegalStateException.class, seq::nextLong);
+    // the mark is not lowered any further
+    assertEquals("-10", Files.readString(file, US_ASCII));
+  }
+
+  @Test
+  void testSequence_SharedMark() {
+    HighWaterMark mark = HighWaterMark.inMemory(100L);
+    Sequence a = Coder.sequence(CODER, mark, 10);
+    Sequence b = Coder.sequence(CODER, mark, 10);
+    Set<Long> all = new HashSet<>();
+    for (int i = 0; i < 5000; i++) {
+      assertTrue(all.add(a.nextLong()), "duplicate");
+      assertTrue(all.add(b.nextLong()), "duplicate");
+    }
+    assertEquals(100L, all.stream().mapToLong(Long::longValue).min().getAsLong());
+  }
+
+  private static List<String> list(Path dir) throws IOException {
+    try (var files = Files.list(dir)) {
+      return files.map(f -> f.getFileName().toString()).toList();
+    }
+  }
+}
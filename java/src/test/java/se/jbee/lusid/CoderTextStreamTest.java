@@ -0,0 +1,145 @@
+package se.jbee.lusid;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the streaming {@link Coder#encodeText(Reader, java.io.Writer)} and {@link
+ * Coder#decodeText(Reader, java.io.Writer)} method pair (and its channel variant) against {@link
+ * Coder#encodeText(String)} and {@link Coder#decodeText(String)}.
+ */
+class CoderTextStreamTest {
+
+  @Test
+  void testTextStream_SameAsEncodeText() throws IOException {
+    Random rnd = new Random(42);
+    for (int minLength = 1; minLength <= 20; minLength++) {
+      Coder coder = Coder.of(67L, minLength);
+      for (int length = 0; length < 30; length++) {
+        String text = randomText(rnd, length);
+        assertTextStream(coder, text);
+      }
+    }
+  }
+
+  @Test
+  void testTextStream_LongerThanChunk() throws IOException {
+    Coder coder = Coder.of(67L, 9);
+    String text = randomText(new Random(13), 3 * TextStreams.CHUNK_SIZE + 7);
+    assertTextStream(coder, text);
+  }
+
+  @Test
+  void testTextStream_SmallReads() throws IOException {
+    Coder coder = Coder.of(67L, 9);
+    String text = randomText(new Random(7), 1000);
+    String expected = coder.encodeText(text);
+    StringWriter id = new StringWriter();
+    coder.encodeText(new TrickleReader(text), id);
+    assertEquals(expected, id.toString());
+    StringWriter actual = new StringWriter();
+    coder.decodeText(new TrickleReader(expected), actual);
+    assertEquals(text, actual.toString());
+  }
+
+  @Test
+  void testTextStream_LoneSurrogates() throws IOException {
+    Coder coder = Coder.of(67L, 9);
+    assertTextStream(coder, "lone \uD83C in the middle and at the end \uD83C");
+    assertTextStream(coder, "\uDF89\uD83C");
+  }
+
+  @Test
+  void testTextStream_Bytes() throws IOException {
+    Coder coder = Coder.of(67L, 12);
+    byte[] bytes = new byte[2 * TextStreams.CHUNK_SIZE + 1];
+    new Random(42).nextBytes(bytes);
+    ByteArrayOutputStream id = new ByteArrayOutputStream();
+    long written =
+        coder.encodeText(
+            Channels.newChannel(new ByteArrayInputStream(bytes)), Channels.newChannel(id));
+    assertEquals(2L * bytes.length, written);
+    ByteArrayOutputStream actual = new ByteArrayOutputStream();
+    coder.decodeText(
+        Channels.newChannel(new ByteArrayInputStream(id.toByteArray())),
+        Channels.newChannel(actual));
+    assertArrayEquals(bytes, actual.toByteArray());
+  }
+
+  @Test
+  void testTextStream_Invalid() {
+    Coder coder = Coder.of(67L, 9);
+    String id = coder.encodeText("some text that is long enough to not be padded");
+    String invalid = id.substring(0, 20) + "!" + id.substring(21);
+    StringWriter text = new StringWriter();
+    assertThrows(
+        IllegalArgumentException.class, () -> coder.decodeText(new StringReader(invalid), text));
+  }
+
+  private static void assertTextStream(Coder coder, String text) throws IOException {
+    String expected = coder.encodeText(text);
+    StringWriter id = new StringWriter();
+    assertEquals(expected.length(), coder.encodeText(new StringReader(text), id));
+    assertEquals(expected, id.toString());
+    StringWriter actual = new StringWriter();
+    coder.decodeText(new StringReader(expected), actual);
+    assertEquals(coder.decodeText(expected), actual.toString());
+
+    ByteArrayOutputStream idBytes = new ByteArrayOutputStream();
+    coder.encodeText(
+        Channels.newChannel(new ByteArrayInputStream(text.getBytes(UTF_8))),
+        Channels.newChannel(idBytes));
+    assertEquals(expected, idBytes.toString(ISO_8859_1));
+    ByteArrayOutputStream actualBytes = new ByteArrayOutputStream();
+    coder.decodeText(
+        Channels.newChannel(new ByteArrayInputStream(idBytes.toByteArray())),
+        Channels.newChannel(actualBytes));
+    assertEquals(coder.decodeText(expected), actualBytes.toString(UTF_8));
+  }
+
+  private static String randomText(Random rnd, int length) {
+    String letters = "abc XYZ 0123 äöü € 🎉";
+    StringBuilder str = new StringBuilder(length);
+    while (str.length() < length) {
+      int i = rnd.nextInt(letters.length());
+      // keep surrogate pairs together
+      if (Character.isLowSurrogate(letters.charAt(i))) i--;
+      str.append(letters.charAt(i));
+      if (Character.isHighSurrogate(letters.charAt(i))) str.append(letters.charAt(i + 1));
+    }
+    return str.toString();
+  }
+
+  /** Returns at most 3 characters per read so that characters are split between chunks */
+  private static final class TrickleReader extends Reader {
+
+    private final StringReader in;
+
+    TrickleReader(String str) {
+      this.in = new StringReader(str);
+    }
+
+    @Override
+    public int read(char[] buf, int off, int len) throws IOException {
+      return in.read(buf, off, Math.min(3, len));
+    }
+
+    @Override
+    public void close() {
+      in.close();
+    }
+  }
+}
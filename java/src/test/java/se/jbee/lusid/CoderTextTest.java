@@ -7,8 +7,14 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import org.junit.jupiter.api.Test;
+import se.jbee.lusid.Coder.Mode;
 
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /** Tests the {@link Coder#encodeText(String)} and {@link Coder#decodeText(String)} method pair. */
@@ -36,6 +42,56 @@ class CoderTextTest {
     assertText(coder, 4 + 9, "NO");
   }
 
+  @Test
+  void testText_EncodeUTF8() {
+    String[] texts = {
+      "ascii", "Grüße", "3€", "\uD83C\uDF89!", "high \uD83C", "low \uDF89", "\uDF89\uD83C"
+    };
+    for (String text : texts) {
+      byte[] dst = new byte[3 * text.length()];
+      int length = Lusid.encodeUTF8(text, dst);
+      assertArrayEquals(text.getBytes(UTF_8), Arrays.copyOf(dst, length), text);
+    }
+  }
+
+  @Test
+  void testText_LongerThanScratch() {
+    Coder coder = Coder.of(67L, 9);
+    String expected = "Grüße ".repeat(300);
+    assertText(coder, -1, expected);
+    assertText(coder, -1, "short again");
+  }
+
+  @Test
+  void testText_Garbage() throws Exception {
+    assertThrows(IllegalArgumentException.class, () -> Coder.of(67L, 9).decodeText("ec85N"));
+    Random rnd = new Random(42);
+    for (Mode mode : List.of(Mode.MIXED, Mode.LOWER, Mode.DENSE32))
+      for (int minLength : new int[] {1, 9}) {
+        Coder coder = Coder.of(67L, minLength, mode);
+        String symbols = String.join("", mode.tables()) + mode.pad1() + mode.padN();
+        for (int i = 0; i < 10_000; i++) {
+          String id = CoderNameTest.randomId(rnd, symbols);
+          // any exception other than IllegalArgumentException is a bug
+          try {
+            coder.decodeText(id);
+          } catch (IllegalArgumentException ex) {
+            // expected for most garbage
+          }
+          try {
+            coder.decodePackedText(id);
+          } catch (IllegalArgumentException ex) {
+            // expected for most garbage
+          }
+          try {
+            coder.decodeText(new StringReader(id), new StringWriter());
+          } catch (IllegalArgumentException ex) {
+            // expected for most garbage
+          }
+        }
+      }
+  }
+
   private void assertText(Coder coder, int expectedLength, String expected) {
     String id = coder.encodeText(expected);
     if (expectedLength >= 0) assertEquals(expectedLength, id.length());
@@ -0,0 +1,108 @@
+package se.jbee.lusid;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import se.jbee.lusid.Coder.Mode;
+
+/**
+ * Tests the non-throwing {@link Coder#tryDecodeLong(CharSequence, int, int)} and {@link
+ * Coder#isValid(CharSequence, int, int)} against {@link Coder#decodeLong(CharSequence, int, int)}.
+ */
+class CoderTryDecodeTest {
+
+  private static final List<Mode> MODES =
+      List.of(Mode.MIXED, Mode.LOWER, Mode.UPPER, Mode.XSAFE, Mode.SHAPE);
+
+  @Test
+  void testTryDecodeLong_Valid() {
+    Random rnd = new Random(42);
+    for (Mode mode : MODES)
+      for (int minLength : new int[] {1, 6, 12, 20}) {
+        Coder coder = Coder.of(67L, minLength, mode);
+        for (int i = 0; i < 1000; i++) {
+          long value = i % 2 == 0 ? rnd.nextLong() : rnd.nextInt(100_000);
+          String id = coder.encodeLong(value);
+          assertEquals(OptionalLong.of(value), coder.tryDecodeLong(id));
+          String path = "/" + id + "/";
+          assertEquals(OptionalLong.of(value), coder.tryDecodeLong(path, 1, 1 + id.length()));
+          assertTrue(coder.isValid(id));
+        }
+      }
+  }
+
+  @Test
+  void testTryDecodeLong_Invalid() {
+    Coder coder = Coder.of(67L, 8);
+    String id = coder.encodeLong(42L);
+    assertEquals(OptionalLong.empty(), coder.tryDecodeLong(""));
+    assertEquals(OptionalLong.empty(), coder.tryDecodeLong(id, 3, 3));
+    assertEquals(OptionalLong.empty(), coder.tryDecodeLong(id.substring(0, 7) + "!"));
+    assertEquals(OptionalLong.empty(), coder.tryDecodeLong(id.substring(0, 7) + "ä"));
+    assertFalse(coder.isValid("not an ID!"));
+    assertFalse(coder.isValid(String.valueOf(Mode.MIXED.flip())));
+    assertThrows(IndexOutOfBoundsException.class, () -> coder.tryDecodeLong(id, 0, 100));
+    assertThrows(IndexOutOfBoundsException.class, () -> coder.isValid(id, -1, 3));
+  }
+
+  @Test
+  void testTryDecodeLong_SameAsDecodeLong() {
+    Random rnd = new Random(13);
+    for (Mode mode : MODES)
+      for (int triplets = 1; triplets <= 2; triplets++) {
+        Coder coder = Coder.of(67L, 8, mode).withLookupTables(triplets);
+        String symbols = String.join("", mode.tables()) + mode.pad1() + mode.padN() + mode.flip();
+        for (int i = 0; i < 10_000; i++) {
+          String id = i % 2 == 0 ? randomId(rnd, symbols) : changedId(rnd, coder, symbols);
+          assertSameAsDecodeLong(coder, id);
+        }
+      }
+  }
+
+  @Test
+  void testIsValid_SameAsDecodeLong_DenseAndFixed() {
+    Random rnd = new Random(17);
+    for (Mode mode : List.of(Mode.MIXED, Mode.DENSE16, Mode.DENSE32, Mode.DENSE64))
+      for (Coder coder : List.of(Coder.of(67L, 1, mode), Coder.ofFixedLength(67L, mode))) {
+        String symbols = String.join("", mode.tables()) + mode.pad1() + mode.padN() + mode.flip();
+        assertFalse(coder.isValid(String.valueOf(mode.flip())));
+        for (int i = 0; i < 10_000; i++) {
+          String id = i % 2 == 0 ? randomId(rnd, symbols) : changedId(rnd, coder, symbols);
+          assertSameAsDecodeLong(coder, id);
+        }
+      }
+  }
+
+  private static void assertSameAsDecodeLong(Coder coder, String id) {
+    OptionalLong actual = coder.tryDecodeLong(id);
+    try {
+      long expected = coder.decodeLong(id);
+      assertEquals(OptionalLong.of(expected), actual, id);
+      assertTrue(coder.isValid(id), id);
+    } catch (IllegalArgumentException ex) {
+      assertEquals(OptionalLong.empty(), actual, id);
+      assertFalse(coder.isValid(id), id);
+    }
+  }
+
+  /** Any symbols (and some that aren't) in any order */
+  private static String randomId(Random rnd, String symbols) {
+    char[] id = new char[1 + rnd.nextInt(22)];
+    for (int i = 0; i < id.length; i++)
+      id[i] = rnd.nextInt(50) == 0 ? '#' : symbols.charAt(rnd.nextInt(symbols.length()));
+    return new String(id);
+  }
+
+  /** A valid ID with a single symbol changed */
+  private static String changedId(Random rnd, Coder coder, String symbols) {
+    char[] id = coder.encodeLong(rnd.nextLong() >> rnd.nextInt(64)).toCharArray();
+    id[rnd.nextInt(id.length)] = symbols.charAt(rnd.nextInt(symbols.length()));
+    return new String(id);
+  }
+}
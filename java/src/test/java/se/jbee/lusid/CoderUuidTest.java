@@ -0,0 +1,90 @@
+package se.jbee.lusid;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import se.jbee.lusid.Coder.Mode;
+
+/**
+ * Tests the {@link Coder#encodeUuid(UUID)} and {@link Coder#decodeUuid(String)} method pair and
+ * its raw 2 long variants.
+ */
+class CoderUuidTest {
+
+  private static final List<Mode> MODES =
+      List.of(Mode.MIXED, Mode.LOWER, Mode.UPPER, Mode.XSAFE, Mode.SHAPE);
+
+  @Test
+  void testUuid() {
+    Random rnd = new Random(42);
+    for (Mode mode : MODES)
+      for (int minLength : new int[] {1, 8, 20}) {
+        Coder coder = Coder.of(67L, minLength, mode);
+        for (int i = 0; i < 1000; i++) {
+          UUID expected = new UUID(rnd.nextLong(), rnd.nextLong());
+          String id = coder.encodeUuid(expected);
+          assertEquals(Coder.UUID_LENGTH, id.length());
+          assertEquals(expected, coder.decodeUuid(id));
+        }
+      }
+  }
+
+  @Test
+  void testUuid_Extremes() {
+    Coder coder = Coder.of(67L, 8);
+    long[] bits = {0L, -1L, 1L, Long.MIN_VALUE, Long.MAX_VALUE};
+    for (long msb : bits)
+      for (long lsb : bits) {
+        String id = coder.encodeUuid(msb, lsb);
+        assertEquals(Coder.UUID_LENGTH, id.length());
+        assertEquals(msb, coder.decodeUuidMostSigBits(id, 0, id.length()));
+        assertEquals(lsb, coder.decodeUuidLeastSigBits(id, 0, id.length()));
+      }
+  }
+
+  @Test
+  void testUuid_Into() {
+    Coder coder = Coder.of(67L, 8);
+    UUID uuid = UUID.randomUUID();
+    char[] buf = new char[30];
+    int length =
+        coder.encodeUuidInto(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), buf, 2);
+    assertEquals(Coder.UUID_LENGTH, length);
+    String path = new String(buf);
+    assertEquals(coder.encodeUuid(uuid), path.substring(2, 2 + length));
+    assertEquals(uuid, coder.decodeUuid(path, 2, 2 + length));
+    assertThrows(IndexOutOfBoundsException.class, () -> coder.encodeUuidInto(1L, 2L, buf, 5));
+  }
+
+  @Test
+  void testUuid_Secret() {
+    UUID uuid = UUID.randomUUID();
+    assertNotEquals(Coder.of(67L, 8).encodeUuid(uuid), Coder.of(68L, 8).encodeUuid(uuid));
+  }
+
+  @Test
+  void testUuid_Invalid() {
+    Coder coder = Coder.of(67L, 8);
+    String id = coder.encodeUuid(UUID.randomUUID());
+    assertThrows(IllegalArgumentException.class, () -> coder.decodeUuid(id.substring(1)));
+    assertThrows(IllegalArgumentException.class, () -> coder.decodeUuid(id + id.charAt(0)));
+    assertThrows(IllegalArgumentException.class, () -> coder.decodeUuid("!" + id.substring(1)));
+    // the first symbol of each half can only encode 4 bits
+    int invalid = 0;
+    String symbols = String.join("", Mode.MIXED.tables().subList(0, 4));
+    for (char s : symbols.toCharArray()) {
+      String changed = s + id.substring(1);
+      try {
+        coder.decodeUuid(changed);
+      } catch (IllegalArgumentException ex) {
+        invalid++;
+      }
+    }
+    assertEquals(symbols.length() / 2, invalid);
+  }
+}
@@ -0,0 +1,90 @@
+package se.jbee.lusid;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+import se.jbee.lusid.Coder.Column;
+import se.jbee.lusid.Coder.Mode;
+
+/**
+ * Tests that the {@link VectorEncoder} used to encode columns produces the exact same IDs as {@link
+ * Coder#encodeLong(long)}.
+ *
+ * <p>The build runs this test a second time without {@code jdk.incubator.vector} (and {@code
+ * lusid.test.vectorized=false}) to check the scalar fallback.
+ */
+class CoderVectorTest {
+
+  private static final List<Mode> MODES =
+      List.of(Mode.MIXED, Mode.LOWER, Mode.UPPER, Mode.XSAFE, Mode.SHAPE);
+
+  private static final long[] VALUES = values();
+
+  private static final boolean VECTORIZED =
+      !"false".equals(System.getProperty("lusid.test.vectorized"));
+
+  @Test
+  void testVectorized() {
+    assertEquals(VECTORIZED, Lusid.isVectorized(), "jdk.incubator.vector presence not detected");
+  }
+
+  @Test
+  void testEncodeLongColumn_SameAsEncodeLong() {
+    for (Mode mode : MODES)
+      for (int minLength = 1; minLength <= 20; minLength++) {
+        Coder coder = Coder.of(67L, minLength, mode);
+        Column column = coder.encodeLongColumn(VALUES, 0, VALUES.length);
+        for (int i = 0; i < VALUES.length; i++)
+          assertEquals(coder.encodeLong(VALUES[i]), column.get(i));
+        assertArrayEquals(VALUES, coder.decodeLongColumn(column));
+      }
+  }
+
+  @Test
+  void testEncodeLongs_SameAsEncodeLong() {
+    assumeTrue(Lusid.isVectorized());
+    for (Mode mode : MODES)
+      for (int minLength = 1; minLength <= 20; minLength++) {
+        Lusid coder = (Lusid) Coder.of(67L, minLength, mode);
+        Column column = coder.encodeLongColumn(VALUES, 0, VALUES.length);
+        char[] symbols = new char[column.symbols().length];
+        VectorEncoder.encodeLongs(coder, VALUES, 0, VALUES.length, symbols, column.offsets());
+        for (int i = 0; i < VALUES.length; i++) {
+          String expected = coder.encodeLong(VALUES[i]);
+          assertEquals(expected, column.get(i));
+          int offset = column.offsets()[i];
+          assertEquals(expected, new String(symbols, offset, expected.length()));
+        }
+      }
+  }
+
+  @Test
+  void testEncodeLongs_Range() {
+    Coder coder = Coder.of(67L, 8);
+    for (int from = 0; from < 9; from++)
+      for (int to = from; to < from + 19; to++) {
+        Column column = coder.encodeLongColumn(VALUES, from, to);
+        for (int i = from; i < to; i++)
+          assertEquals(coder.encodeLong(VALUES[i]), column.get(i - from));
+        assertArrayEquals(
+            LongStream.range(from, to).map(i -> VALUES[(int) i]).toArray(),
+            coder.decodeLongColumn(column));
+      }
+  }
+
+  private static long[] values() {
+    LongStream.Builder values = LongStream.builder();
+    for (int shift = 0; shift < 64; shift++) {
+      long bit = 1L << shift;
+      values.add(bit).add(bit - 1).add(-bit).add(~bit).add(bit + 1);
+    }
+    Random rnd = new Random(42);
+    for (int i = 0; i < 200; i++) values.add(rnd.nextLong() >> rnd.nextInt(64));
+    return values.add(0).add(Lusid.MAX_19).add(~Lusid.MAX_19).add(Long.MIN_VALUE).build().toArray();
+  }
+}